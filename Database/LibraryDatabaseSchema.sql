@@ -43,6 +43,77 @@ CREATE INDEX idx_books_name_author ON books(name, author);
 CREATE INDEX idx_books_issued ON books(is_issued);
 CREATE INDEX idx_books_category ON books(category_id);
 
+-- One active loan per borrower, enforced by the database so concurrent issues cannot both succeed.
+-- NULL while the book is on the shelf; NULLs do not collide in a unique index.
+ALTER TABLE books
+ADD COLUMN active_borrower VARCHAR(255) AS (CASE WHEN is_issued THEN LOWER(issued_to) END) STORED,
+ADD UNIQUE INDEX uq_books_active_borrower (active_borrower);
+
+-- Lower-cased copies of the columns that are matched case-insensitively. A WHERE clause on
+-- LOWER(name) cannot use idx_books_name_author; one on name_key uses idx_books_name_author_key.
+-- Borrowers are already matched through active_borrower, which is LOWER(issued_to) and indexed.
+ALTER TABLE books
+ADD COLUMN name_key VARCHAR(255) AS (LOWER(name)) STORED,
+ADD COLUMN author_key VARCHAR(255) AS (LOWER(author)) STORED,
+ADD INDEX idx_books_name_author_key (name_key, author_key);
+
+ALTER TABLE book_categories
+ADD COLUMN category_key VARCHAR(255) AS (LOWER(category_name)) STORED,
+ADD UNIQUE INDEX uq_book_categories_category_key (category_key);
+
+-- Fine assessments written by FineEngine: one row per loan (book and due date), updated by each
+-- nightly run until it is paid. The foreign key is replaced so renumbering a book carries its fines
+-- along and removing one keeps them with book_id cleared, as loan_events does.
+-- The run reads books in ID windows through idx_books_issued, which InnoDB already extends with the id.
+-- fine_history_ibfk_1 is assumed to be the name InnoDB generated for the unnamed foreign key in
+-- CREATE TABLE fine_history above; check SHOW CREATE TABLE fine_history if the table was made otherwise.
+-- The new columns start out nullable so that existing rows can be backfilled first.
+ALTER TABLE fine_history
+DROP FOREIGN KEY fine_history_ibfk_1,
+MODIFY COLUMN book_id INT NULL,
+ADD COLUMN due_date DATE NULL,
+ADD COLUMN assessed_on DATE NULL;
+
+-- An existing row was assessed the day it was created, for a loan due days_overdue days earlier
+UPDATE fine_history
+SET assessed_on = DATE(created_at),
+    due_date = DATE(created_at) - INTERVAL days_overdue DAY;
+
+-- Several rows for one loan are successive assessments of it: keep the paid one, otherwise the latest.
+-- Two paid rows for the same loan make the unique index below fail and have to be merged by hand.
+DELETE dup FROM fine_history dup
+JOIN fine_history other ON other.book_id = dup.book_id AND other.due_date = dup.due_date AND other.id <> dup.id
+WHERE dup.paid = false AND (other.paid = true OR other.id > dup.id);
+
+ALTER TABLE fine_history
+MODIFY COLUMN due_date DATE NOT NULL,
+MODIFY COLUMN assessed_on DATE NOT NULL,
+ADD UNIQUE INDEX uq_fine_history_loan (book_id, due_date),
+ADD CONSTRAINT fk_fine_history_book FOREIGN KEY (book_id) REFERENCES books(id)
+    ON DELETE SET NULL ON UPDATE CASCADE;
+
+-- Append-only loan history: one ISSUE and one RETURN row per loan, written in the same transaction
+-- as the books update. The issued_to, return_date and issued_on columns of books only describe the
+-- current loan. History outlives the book, so removing one only clears book_id. due_date is NULL
+-- for loans recorded before return_date was required, like return_date itself.
+CREATE TABLE loan_events (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    book_id INT,
+    event_type VARCHAR(6) NOT NULL,
+    borrower VARCHAR(255) NOT NULL,
+    event_date DATE NOT NULL,
+    due_date DATE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_loan_events_book FOREIGN KEY (book_id) REFERENCES books(id)
+        ON DELETE SET NULL ON UPDATE CASCADE
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_loan_events_type_date ON loan_events(event_type, event_date);
+
+-- Loans that were already open when the table was added
+INSERT INTO loan_events (book_id, event_type, borrower, event_date, due_date)
+SELECT id, 'ISSUE', issued_to, COALESCE(issued_on, CURRENT_DATE), return_date FROM books WHERE is_issued = true;
+
 -- Insert default categories
 INSERT INTO book_categories (category_name) VALUES 
 ('Fiction'),
@@ -0,0 +1,161 @@
+package com.example.benchmarks;
+
+import com.example.EmbeddedLibrary;
+import com.example.LibraryException;
+import com.example.MyLibrary;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-memory H2 database in MySQL mode, seeded with a synthetic catalog. Book {@code k} is
+ * called {@code "Book k"} and has ID {@code k}; every tenth book is issued to {@code "reader-k"}
+ * and two thirds of those loans are overdue.
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+    private static final AtomicInteger DATABASE_COUNT = new AtomicInteger();
+    private static final int SEED_BATCH_SIZE = 10_000;
+    private static final int CATEGORY_COUNT = 10;
+
+    private final String url;
+    private final int catalogSize;
+    // Kept open so the in-memory database survives between pool connections; also used for fixtures
+    private final Connection fixture;
+
+    private BenchmarkDatabase(String url, int catalogSize) throws SQLException {
+        this.url = url;
+        this.catalogSize = catalogSize;
+        this.fixture = DriverManager.getConnection(url, "sa", "");
+    }
+
+    public static BenchmarkDatabase create(int catalogSize) {
+        String url = "jdbc:h2:mem:library" + DATABASE_COUNT.incrementAndGet()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        try {
+            BenchmarkDatabase database = new BenchmarkDatabase(url, catalogSize);
+            EmbeddedLibrary.createSchema(database.fixture);
+            database.seed();
+            return database;
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to create benchmark database", e);
+        }
+    }
+
+    /**
+     * Opens a library on this database through {@link MyLibrary#MyLibrary()}, so the pool is built
+     * from the same configuration keys as in the application.
+     */
+    public MyLibrary openLibrary(int statementCacheSize, String removalMode) {
+        return openLibrary(url, statementCacheSize, removalMode);
+    }
+
+    public MyLibrary openLibrary() {
+        return openLibrary(64, "STABLE_IDS");
+    }
+
+    /**
+     * Opens a library that reads through {@link CopyingDriver}, so each string column of each row
+     * is a String of its own, as with a driver that decodes rows off the wire.
+     */
+    public MyLibrary openCopyingLibrary() {
+        return openLibrary(CopyingDriver.wrap(url), 64, "STABLE_IDS");
+    }
+
+    private MyLibrary openLibrary(String url, int statementCacheSize, String removalMode) {
+        System.setProperty("db.driver", "");
+        System.setProperty("db.url", url);
+        System.setProperty("db.username", "sa");
+        System.setProperty("db.password", "");
+        System.setProperty("db.pool.maxSize", "16");
+        System.setProperty("db.pool.statementCacheSize", Integer.toString(statementCacheSize));
+        System.setProperty("library.removal.mode", removalMode);
+        return new MyLibrary();
+    }
+
+    public int getCatalogSize() {
+        return catalogSize;
+    }
+
+    public static String bookName(int id) {
+        return "Book " + id;
+    }
+
+    public static String authorOf(int id) {
+        return "Author " + (id % 1000);
+    }
+
+    public static boolean isSeededAsIssued(int id) {
+        return id % 10 == 0;
+    }
+
+    public int randomAvailableId() {
+        int id = ThreadLocalRandom.current().nextInt(1, catalogSize + 1);
+        return isSeededAsIssued(id) ? id - 1 : id;
+    }
+
+    public int randomIssuedId() {
+        return 10 * ThreadLocalRandom.current().nextInt(1, catalogSize / 10 + 1);
+    }
+
+    /**
+     * Runs a fixture statement outside the measured library calls.
+     */
+    public synchronized int update(String sql, Object... params) {
+        try (PreparedStatement stmt = fixture.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new LibraryException("Fixture update failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void seed() throws SQLException {
+        LocalDate today = LocalDate.now();
+        fixture.setAutoCommit(false);
+        String insert = "INSERT INTO books (id, name, author, category_id, is_issued, issued_to, return_date, issued_on) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = fixture.prepareStatement(insert)) {
+            for (int id = 1; id <= catalogSize; id++) {
+                stmt.setInt(1, id);
+                stmt.setString(2, bookName(id));
+                stmt.setString(3, authorOf(id));
+                stmt.setInt(4, id % CATEGORY_COUNT + 1);
+                boolean issued = isSeededAsIssued(id);
+                stmt.setBoolean(5, issued);
+                stmt.setString(6, issued ? "reader-" + id : null);
+                // Due 20 or 10 days ago, or today
+                stmt.setDate(7, issued ? Date.valueOf(today.plusDays(id % 30 - 20)) : null);
+                stmt.setDate(8, issued ? Date.valueOf(today.minusDays(30)) : null);
+                stmt.addBatch();
+                if (id % SEED_BATCH_SIZE == 0) {
+                    stmt.executeBatch();
+                    fixture.commit();
+                }
+            }
+            stmt.executeBatch();
+            fixture.commit();
+        } finally {
+            fixture.setAutoCommit(true);
+        }
+        try (Statement stmt = fixture.createStatement()) {
+            stmt.execute("ALTER TABLE books ALTER COLUMN id RESTART WITH " + (catalogSize + 1));
+        }
+    }
+
+    @Override
+    public void close() {
+        try (Statement stmt = fixture.createStatement()) {
+            stmt.execute("SHUTDOWN");
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to drop benchmark database", e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.benchmarks;
+
+import java.io.IOException;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs JMH with the usual command line options, writing JSON results to
+ * {@code benchmark-results.json} unless {@code -rf} or {@code -rff} say otherwise.
+ */
+public class BenchmarkMain {
+    private static final String RESULT_FILE = "benchmark-results.json";
+
+    public static void main(String[] args) throws RunnerException, IOException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            // Listing and help are handled by the stock entry point
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result(RESULT_FILE);
+        }
+        if (!commandLine.getJvmArgsAppend().hasValue()) {
+            options.jvmArgsAppend("-Xmx4g", "-Dlog4j.configurationFile=log4j2-benchmark.xml");
+        }
+        new Runner(options.build()).run();
+    }
+}
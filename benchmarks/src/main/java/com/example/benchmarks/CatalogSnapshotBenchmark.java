@@ -0,0 +1,87 @@
+package com.example.benchmarks;
+
+import com.example.CatalogSnapshot;
+import com.example.MyLibrary;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One full {@link CatalogSnapshot} export, and one import into an empty database, per
+ * invocation. The throughput of the last one is printed in MB/s; run with {@code -prof gc} to see
+ * that allocation grows with the catalog but the heap after GC does not.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogSnapshotBenchmark {
+    @Param({ "100000", "1000000" })
+    public int catalogSize;
+
+    private BenchmarkDatabase source;
+    private MyLibrary sourceLibrary;
+    private Path directory;
+    private Path snapshot;
+    private BenchmarkDatabase target;
+    private MyLibrary targetLibrary;
+    private CatalogSnapshot.Result last;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = BenchmarkDatabase.create(catalogSize);
+        sourceLibrary = source.openLibrary();
+        directory = Files.createTempDirectory("library-snapshot");
+        snapshot = directory.resolve("catalog.snapshot");
+        sourceLibrary.exportSnapshot(snapshot);
+    }
+
+    @Setup(Level.Iteration)
+    public void openTarget() {
+        target = BenchmarkDatabase.create(0);
+        targetLibrary = target.openLibrary();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeTarget() {
+        targetLibrary.close();
+        target.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("%n%s, heap used %d MB%n", last,
+                (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / 1048576);
+        sourceLibrary.close();
+        source.close();
+        InMemoryCatalogState.delete(directory);
+    }
+
+    @Benchmark
+    public CatalogSnapshot.Result exportSnapshot() {
+        last = sourceLibrary.exportSnapshot(directory.resolve("export.snapshot"));
+        return last;
+    }
+
+    @Benchmark
+    public CatalogSnapshot.Result importSnapshot() {
+        last = targetLibrary.importSnapshot(snapshot);
+        return last;
+    }
+}
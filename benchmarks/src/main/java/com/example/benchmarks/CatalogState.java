@@ -0,0 +1,33 @@
+package com.example.benchmarks;
+
+import com.example.MyLibrary;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A seeded catalog and a library opened on it, shared by all benchmark threads of one trial.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int catalogSize;
+
+    public BenchmarkDatabase database;
+    public MyLibrary library;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.create(catalogSize);
+        library = database.openLibrary();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        library.close();
+        database.close();
+    }
+}
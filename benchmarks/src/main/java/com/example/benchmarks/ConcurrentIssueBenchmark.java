@@ -0,0 +1,86 @@
+package com.example.benchmarks;
+
+import com.example.LibraryException;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Several desks issuing and returning books from a shared hot shelf to a shared set of borrowers
+ * at once, so desks race both for books and for borrowers. Every issue either succeeds or loses
+ * the race cleanly; the two outcomes are reported as secondary counters. ConcurrentIssueTest
+ * checks the one-loan-per-book and per-borrower invariants under the same kind of load.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ConcurrentIssueBenchmark {
+    @State(Scope.Benchmark)
+    public static class Shelf {
+        // Fewer books means more desks competing for the same rows
+        @Param({ "16", "512" })
+        public int hotBooks;
+
+        // Fewer borrowers than desks means two desks often issue to the same person
+        @Param({ "4", "1024" })
+        public int borrowers;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Desk {
+        public long issued;
+        public long conflicts;
+
+        String today;
+        String dueDate;
+
+        @Setup(Level.Trial)
+        public void open() {
+            today = LocalDate.now().toString();
+            dueDate = LocalDate.now().plusDays(14).toString();
+        }
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            issued = 0;
+            conflicts = 0;
+        }
+    }
+
+    @Benchmark
+    public void issueAndReturn(CatalogState state, Shelf shelf, Desk desk) {
+        // Seeded IDs 1 to 9 of every ten are on the shelf
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int slot = random.nextInt(shelf.hotBooks);
+        int bookId = slot / 9 * 10 + slot % 9 + 1;
+        String name = BenchmarkDatabase.bookName(bookId);
+        String author = BenchmarkDatabase.authorOf(bookId);
+        try {
+            state.library.issueBook(name, author, "borrower-" + random.nextInt(shelf.borrowers), desk.dueDate,
+                    desk.today);
+        } catch (LibraryException e) {
+            desk.conflicts++;
+            return;
+        }
+        desk.issued++;
+        state.library.returnBook(name, author);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Wraps another driver so that every string column read returns a new String with its own
+ * characters, as a driver that decodes rows off the wire does (MySQL Connector/J, for one).
+ * H2 in memory hands back the Strings it stores, which hides what sharing saves. Connect with
+ * {@link #URL_PREFIX} in front of the wrapped driver's URL.
+ */
+public final class CopyingDriver implements Driver {
+    public static final String URL_PREFIX = "jdbc:copying:";
+
+    static {
+        try {
+            DriverManager.registerDriver(new CopyingDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Returns {@code url} routed through this driver, registering it first.
+     */
+    public static String wrap(String url) {
+        return URL_PREFIX + url;
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        return wrap(Connection.class, DriverManager.getConnection(url.substring(URL_PREFIX.length()), info));
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    // Statements and result sets are wrapped on the way out, so rows read through either are copied
+    private static <T> T wrap(Class<T> type, Object target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof String value && target instanceof ResultSet && method.getName().equals("getString")) {
+                return new String(value.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+            }
+            if ((result instanceof Statement || result instanceof ResultSet) && method.getReturnType().isInterface()) {
+                return wrap(method.getReturnType(), result);
+            }
+            return result;
+        };
+        return type.cast(Proxy.newProxyInstance(CopyingDriver.class.getClassLoader(), new Class<?>[] { type },
+                handler));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.benchmarks;
+
+import com.example.Book;
+import com.example.IssuedBook;
+import com.example.LibraryStatistics;
+import com.example.MyLibrary;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The dashboard numbers (available, issued, overdue and per-category counts) read three ways:
+ * listing both tables and counting in Java, the maintained {@link LibraryStatistics} snapshot,
+ * and the recount that reconciles it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DashboardStatisticsBenchmark {
+    @Param({ "100000", "1000000" })
+    public int catalogSize;
+
+    private BenchmarkDatabase database;
+    private MyLibrary library;
+    private LibraryStatistics statistics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.create(catalogSize);
+        library = database.openLibrary();
+        statistics = LibraryStatistics.start(library, 0, Clock.systemDefaultZone());
+        statistics.reconcile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        statistics.close();
+        library.close();
+        database.close();
+    }
+
+    @Benchmark
+    public Map<String, long[]> countFromLists() {
+        long today = LocalDate.now().toEpochDay();
+        Map<String, long[]> counts = new HashMap<>();
+        for (Book book : library.getAvailableBooks()) {
+            counts.computeIfAbsent(book.categoryName(), k -> new long[3])[0]++;
+        }
+        for (IssuedBook issuedBook : library.getIssuedBooks()) {
+            long[] category = counts.computeIfAbsent(issuedBook.categoryName(), k -> new long[3]);
+            category[1]++;
+            if (issuedBook.returnEpochDay() < today) {
+                category[2]++;
+            }
+        }
+        return counts;
+    }
+
+    @Benchmark
+    public LibraryStatistics.Snapshot snapshot() {
+        return statistics.snapshot();
+    }
+
+    @Benchmark
+    public LibraryStatistics.Snapshot reconcile() {
+        statistics.reconcile();
+        return statistics.snapshot();
+    }
+}
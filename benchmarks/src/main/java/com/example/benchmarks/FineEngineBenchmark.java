@@ -0,0 +1,76 @@
+package com.example.benchmarks;
+
+import com.example.FineEngine;
+import com.example.MyLibrary;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One complete nightly fine run with every book in the catalog on an overdue loan. EMPTY starts
+ * from an empty fine_history, as on the first night; ASSESSED reruns over yesterday's rows, as on
+ * every night after.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FineEngineBenchmark {
+    @Param({ "100000", "1000000" })
+    public int catalogSize;
+
+    @Param({ "EMPTY", "ASSESSED" })
+    public String history;
+
+    private BenchmarkDatabase database;
+    private MyLibrary library;
+    private FineEngine engine;
+    private final LocalDate today = LocalDate.now();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.create(catalogSize);
+        // Due between 1 and 60 days ago
+        database.update("UPDATE books SET is_issued = true, issued_to = CONCAT('reader-', id), "
+                + "return_date = DATEADD('DAY', -MOD(id, 60) - 1, CAST(? AS DATE))", Date.valueOf(today));
+        library = database.openLibrary();
+        engine = library.createFineEngine();
+        if (history.equals("ASSESSED")) {
+            engine.run(today.minusDays(1));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetHistory() {
+        if (history.equals("EMPTY")) {
+            database.update("DELETE FROM fine_history");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+        library.close();
+        database.close();
+    }
+
+    @Benchmark
+    public FineEngine.RunResult run() {
+        return engine.run(today);
+    }
+}
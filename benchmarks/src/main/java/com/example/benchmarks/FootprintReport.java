@@ -0,0 +1,39 @@
+package com.example.benchmarks;
+
+import com.example.InMemoryLibrary;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Prints the heap retained by {@link InMemoryLibrary} per 100k books. Run with a fixed heap, e.g.
+ * {@code java -Xms4g -Xmx4g -cp benchmarks.jar com.example.benchmarks.FootprintReport 100000 1000000}.
+ */
+public class FootprintReport {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = args.length == 0 ? new int[] { 100_000, 500_000, 1_000_000 } : new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        System.out.printf("%12s %12s %16s %14s%n", "books", "heap MB", "MB per 100k", "bytes/book");
+        for (int size : sizes) {
+            Path directory = Files.createTempDirectory("library-footprint");
+            long before = usedHeap();
+            InMemoryLibrary library = InMemoryCatalogState.seed(directory, size);
+            long retained = usedHeap() - before;
+            System.out.printf("%12d %12.1f %16.2f %14d%n", size, retained / 1048576.0,
+                    retained / 1048576.0 / size * 100_000, retained / size);
+            library.close();
+            InMemoryCatalogState.delete(directory);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.benchmarks;
+
+import com.example.Book;
+import com.example.IssuedBook;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup latency of the in-memory catalog; the target is well under a microsecond.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InMemoryBenchmarks {
+
+    @Benchmark
+    public Book getBookById(InMemoryCatalogState state) {
+        return state.library.getBookById(state.ids[state.sample()]);
+    }
+
+    @Benchmark
+    public Book searchBook(InMemoryCatalogState state) {
+        return state.library.searchBook(state.ids[state.sample()]);
+    }
+
+    @Benchmark
+    public boolean isBookIssued(InMemoryCatalogState state) {
+        int i = state.sample();
+        return state.library.isBookIssued(state.names[i], state.authors[i]);
+    }
+
+    @Benchmark
+    public IssuedBook getBookIssuedTo(InMemoryCatalogState state) {
+        return state.library.getBookIssuedTo(state.borrowers[state.sample()]);
+    }
+}
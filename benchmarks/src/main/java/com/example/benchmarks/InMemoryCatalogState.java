@@ -0,0 +1,86 @@
+package com.example.benchmarks;
+
+import com.example.InMemoryLibrary;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * An {@link InMemoryLibrary} in a temporary directory, seeded like {@link BenchmarkDatabase}.
+ */
+@State(Scope.Benchmark)
+public class InMemoryCatalogState {
+    @Param({ "100000", "1000000" })
+    public int catalogSize;
+
+    public InMemoryLibrary library;
+    private Path directory;
+
+    // Lookup keys built up front so the benchmarks do not measure string concatenation
+    static final int SAMPLES = 4096;
+    int[] ids = new int[SAMPLES];
+    String[] names = new String[SAMPLES];
+    String[] authors = new String[SAMPLES];
+    String[] borrowers = new String[SAMPLES];
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("library-memory");
+        library = seed(directory, catalogSize);
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            ids[i] = random.nextInt(catalogSize) + 1;
+            names[i] = BenchmarkDatabase.bookName(ids[i]);
+            authors[i] = BenchmarkDatabase.authorOf(ids[i]);
+            borrowers[i] = "reader-" + 10 * (random.nextInt(catalogSize / 10) + 1);
+        }
+    }
+
+    int sample() {
+        return ThreadLocalRandom.current().nextInt(SAMPLES);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        library.close();
+        delete(directory);
+    }
+
+    static InMemoryLibrary seed(Path directory, int catalogSize) {
+        InMemoryLibrary library = InMemoryLibrary.open(directory, false);
+        String today = LocalDate.now().toString();
+        for (int id = 1; id <= catalogSize; id++) {
+            String name = BenchmarkDatabase.bookName(id);
+            String author = BenchmarkDatabase.authorOf(id);
+            library.addBook(name, author, "Fiction");
+            if (BenchmarkDatabase.isSeededAsIssued(id)) {
+                library.issueBook(name, author, "reader-" + id, today, today);
+            }
+        }
+        return library;
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.benchmarks;
+
+import com.example.LibraryRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of turning issued-book rows into {@link com.example.IssuedBook}s. Scores are per row; run
+ * with {@code -prof gc} and read {@code gc.alloc.rate.norm} for the bytes allocated per row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IssuedBookMappingBenchmark {
+    // Every tenth book is issued, so this catalog has ISSUED_ROWS loans
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int ISSUED_ROWS = CATALOG_SIZE / 10;
+
+    @Param({ "EMBEDDED", "MEMORY" })
+    public String backend;
+
+    private BenchmarkDatabase database;
+    private Path directory;
+    private LibraryRepository library;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (backend.equals("EMBEDDED")) {
+            database = BenchmarkDatabase.create(CATALOG_SIZE);
+            library = database.openLibrary();
+        } else {
+            directory = Files.createTempDirectory("library-mapping");
+            library = InMemoryCatalogState.seed(directory, CATALOG_SIZE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        library.close();
+        if (database != null) {
+            database.close();
+        } else {
+            InMemoryCatalogState.delete(directory);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ISSUED_ROWS)
+    public void forEachIssuedBook(Blackhole blackhole) {
+        library.forEachIssuedBook(blackhole::consume);
+    }
+}
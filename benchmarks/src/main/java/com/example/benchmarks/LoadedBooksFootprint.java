@@ -0,0 +1,55 @@
+package com.example.benchmarks;
+
+import com.example.Book;
+import com.example.IssuedBook;
+import com.example.MyLibrary;
+import java.util.List;
+
+/**
+ * Prints the heap retained by the book lists the UI loads, per book, for catalogs read from an
+ * embedded database: once as H2 hands the rows out, and once through {@link CopyingDriver}, which
+ * gives every string column of every row a String of its own like a network driver. Run with a
+ * fixed heap, e.g.
+ * {@code java -Xms3g -Xmx3g -cp benchmarks.jar com.example.benchmarks.LoadedBooksFootprint 1000000}.
+ */
+public class LoadedBooksFootprint {
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[] { 100_000, 1_000_000 } : new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        System.out.printf("%8s %12s %12s %12s %14s %14s%n", "driver", "books", "available", "issued", "heap MB",
+                "bytes/book");
+        for (int size : sizes) {
+            measure(size, false);
+            measure(size, true);
+        }
+    }
+
+    private static void measure(int size, boolean copying) {
+        long before = usedHeap();
+        List<Book> available;
+        List<IssuedBook> issued;
+        // The database is dropped before measuring: H2 hands out the strings it holds, and a
+        // MySQL driver would not, so the lists must be the only thing keeping them alive
+        try (BenchmarkDatabase database = BenchmarkDatabase.create(size)) {
+            MyLibrary library = copying ? database.openCopyingLibrary() : database.openLibrary();
+            available = library.getAvailableBooks();
+            issued = library.getIssuedBooks();
+            library.close();
+        }
+        long retained = usedHeap() - before;
+        int books = available.size() + issued.size();
+        System.out.printf("%8s %12d %12d %12d %14.1f %14d%n", copying ? "copying" : "h2", books, available.size(),
+                issued.size(), retained / 1048576.0, retained / books);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.benchmarks;
+
+import com.example.Book;
+import com.example.LibraryMetrics;
+import com.example.LibraryRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost metrics add to the cheapest repository call there is, an in-memory lookup by id. OFF is
+ * the repository as the app uses it with {@code library.metrics.enabled=false}; ON is the same
+ * repository behind {@link LibraryMetrics#instrument}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+    private static final int CATALOG_SIZE = 100_000;
+
+    @Param({ "OFF", "ON" })
+    public String metrics;
+
+    private Path directory;
+    private LibraryRepository raw;
+    private LibraryRepository library;
+    private LibraryMetrics libraryMetrics;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("library-metrics");
+        raw = InMemoryCatalogState.seed(directory, CATALOG_SIZE);
+        if (metrics.equals("ON")) {
+            libraryMetrics = new LibraryMetrics();
+            library = libraryMetrics.instrument(raw);
+        } else {
+            library = raw;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (libraryMetrics != null) {
+            System.out.println();
+            System.out.println(libraryMetrics.getOperation("getBookById"));
+        }
+        raw.close();
+        InMemoryCatalogState.delete(directory);
+    }
+
+    @Benchmark
+    public Book getBookById() {
+        return library.getBookById(ThreadLocalRandom.current().nextInt(CATALOG_SIZE) + 1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.benchmarks;
+
+import com.example.IssuedBook;
+import com.example.MyLibrary;
+import com.example.OverdueTracker;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Listing overdue loans by filtering every issued book against reading them off the front of
+ * {@link OverdueTracker}. Seeded loans fall due over the 30 days around today, so
+ * {@code daysBack} of 15 makes about a sixth of them overdue and 0 about two thirds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OverdueTrackerBenchmark {
+    @Param({ "100000", "1000000" })
+    public int catalogSize;
+
+    @Param({ "15", "0" })
+    public int daysBack;
+
+    private BenchmarkDatabase database;
+    private MyLibrary library;
+    private OverdueTracker tracker;
+    private LocalDate asOf;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.create(catalogSize);
+        library = database.openLibrary();
+        tracker = OverdueTracker.start(library, batch -> { }, 500, 0);
+        tracker.reload();
+        asOf = LocalDate.now().minusDays(daysBack);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tracker.close();
+        library.close();
+        database.close();
+    }
+
+    @Benchmark
+    public List<IssuedBook> scanIssuedBooks() {
+        long day = asOf.toEpochDay();
+        List<IssuedBook> overdue = new ArrayList<>();
+        for (IssuedBook issuedBook : library.getIssuedBooks()) {
+            if (issuedBook.returnEpochDay() != IssuedBook.NO_DATE && issuedBook.returnEpochDay() < day) {
+                overdue.add(issuedBook);
+            }
+        }
+        return overdue;
+    }
+
+    @Benchmark
+    public List<IssuedBook> tracker() {
+        return tracker.getOverdueLoans(asOf);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.benchmarks;
+
+import com.example.Book;
+import com.example.IssuedBook;
+import com.example.Page;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmarks {
+
+    @Benchmark
+    public List<Book> getAvailableBooks(CatalogState state) {
+        return state.library.getAvailableBooks();
+    }
+
+    @Benchmark
+    public List<IssuedBook> getIssuedBooks(CatalogState state) {
+        return state.library.getIssuedBooks();
+    }
+
+    @Benchmark
+    public Page<Book> getAvailableBooksPage(CatalogState state) {
+        return state.library.getAvailableBooksPage(state.database.randomAvailableId(), 200);
+    }
+
+    @Benchmark
+    public Book searchBook(CatalogState state) {
+        return state.library.searchBook(state.database.randomAvailableId());
+    }
+
+    @Benchmark
+    public double calculateFine(CatalogState state) {
+        return state.library.calculateFine(state.database.randomIssuedId());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.benchmarks;
+
+import com.example.MyLibrary;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Removal latency against catalog size for both removal modes. A random shelved book is removed
+ * and added back after the measured call, so RESEQUENCE shifts about half the catalog each time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RemoveBookBenchmark {
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int catalogSize;
+
+    @Param({ "STABLE_IDS", "RESEQUENCE" })
+    public String removalMode;
+
+    private BenchmarkDatabase database;
+    private MyLibrary library;
+    private int seededId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.create(catalogSize);
+        library = database.openLibrary(64, removalMode);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        library.close();
+        database.close();
+    }
+
+    // Books are removed by name, so the seeded names stay valid after IDs are resequenced
+    @Setup(Level.Invocation)
+    public void pick() {
+        seededId = database.randomAvailableId();
+    }
+
+    @TearDown(Level.Invocation)
+    public void restore() {
+        library.addBook(BenchmarkDatabase.bookName(seededId), BenchmarkDatabase.authorOf(seededId), "Fiction");
+    }
+
+    @Benchmark
+    public boolean removeBook() {
+        return library.removeBook(BenchmarkDatabase.bookName(seededId), BenchmarkDatabase.authorOf(seededId));
+    }
+}
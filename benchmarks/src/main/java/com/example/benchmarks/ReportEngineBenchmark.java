@@ -0,0 +1,93 @@
+package com.example.benchmarks;
+
+import com.example.Book;
+import com.example.FineEngine;
+import com.example.IssuedBook;
+import com.example.MyLibrary;
+import com.example.ReportEngine;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building the report with {@link ReportEngine} on 1 and 4 workers, against listing both tables
+ * and aggregating in Java on one thread. Fines are assessed once first so the fine totals have
+ * rows to read. Run with {@code -prof gc} to compare allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportEngineBenchmark {
+    @Param({ "100000", "1000000" })
+    public int catalogSize;
+
+    @Param({ "1", "4" })
+    public int parallelism;
+
+    private BenchmarkDatabase database;
+    private MyLibrary library;
+    private ReportEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.create(catalogSize);
+        library = database.openLibrary();
+        try (FineEngine fines = library.createFineEngine()) {
+            fines.run(LocalDate.now());
+        }
+        System.setProperty("library.report.parallelism", Integer.toString(parallelism));
+        engine = library.createReportEngine();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+        library.close();
+        database.close();
+    }
+
+    @Benchmark
+    public Map<String, long[]> listAndCount() {
+        long today = LocalDate.now().toEpochDay();
+        Map<String, long[]> circulation = new HashMap<>();
+        Map<String, long[]> authors = new HashMap<>();
+        for (Book book : library.getAvailableBooks()) {
+            circulation.computeIfAbsent(book.categoryName(), k -> new long[3])[0]++;
+            authors.computeIfAbsent(book.author().toLowerCase(), k -> new long[2])[0]++;
+        }
+        for (IssuedBook issuedBook : library.getIssuedBooks()) {
+            long[] category = circulation.computeIfAbsent(issuedBook.categoryName(), k -> new long[3]);
+            category[0]++;
+            category[1]++;
+            if (issuedBook.returnEpochDay() < today) {
+                category[2]++;
+            }
+            long[] author = authors.computeIfAbsent(issuedBook.author().toLowerCase(), k -> new long[2]);
+            author[0]++;
+            author[1]++;
+        }
+        return circulation;
+    }
+
+    @Benchmark
+    public ReportEngine.Report reportEngine() {
+        return engine.run(LocalDate.now());
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.benchmarks;
+
+import com.example.Book;
+import com.example.MyLibrary;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The keystroke lookup behind the book ID field, with the pooled statement cache off and on.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBookBenchmark {
+    @Param({ "1000", "100000" })
+    public int catalogSize;
+
+    @Param({ "0", "64" })
+    public int statementCacheSize;
+
+    private BenchmarkDatabase database;
+    private MyLibrary library;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.create(catalogSize);
+        library = database.openLibrary(statementCacheSize, "STABLE_IDS");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        library.close();
+        database.close();
+    }
+
+    @Benchmark
+    public Book searchBook() {
+        return library.searchBook(database.randomAvailableId());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.benchmarks;
+
+import com.example.Book;
+import com.example.InMemoryLibrary;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Logging cost per {@code searchBook} call, on the in-memory catalog so the lookup itself is
+ * cheap. OFF is the shipped level, where the per-call message is DEBUG and skipped; SYNC logs
+ * every call through a flushing file appender on the calling thread, as the old Console setup
+ * did; ASYNC logs every call through async loggers and a RollingRandomAccessFile.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBookLoggingBenchmark {
+    private static final int CATALOG_SIZE = 100_000;
+
+    @Param({ "OFF", "SYNC", "ASYNC" })
+    public String logging;
+
+    private Path directory;
+    private Path logDirectory;
+    private InMemoryLibrary library;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, URISyntaxException {
+        directory = Files.createTempDirectory("library-logging");
+        library = InMemoryCatalogState.seed(directory, CATALOG_SIZE);
+        logDirectory = Files.createTempDirectory("library-logs");
+        System.setProperty("library.log.dir", logDirectory.toString());
+        String config = switch (logging) {
+            case "SYNC" -> "log4j2-logging-sync.xml";
+            case "ASYNC" -> "log4j2-logging-async.xml";
+            default -> "log4j2-benchmark.xml";
+        };
+        Configurator.reconfigure(getClass().getClassLoader().getResource(config).toURI());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        library.close();
+        LogManager.shutdown();
+        long logged = 0;
+        try (var files = Files.list(logDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                logged += Files.size(file);
+            }
+        }
+        System.out.printf("%n%d MB logged%n", logged / 1048576);
+        InMemoryCatalogState.delete(directory);
+        InMemoryCatalogState.delete(logDirectory);
+    }
+
+    @Benchmark
+    public Book searchBook() {
+        return library.searchBook(ThreadLocalRandom.current().nextInt(CATALOG_SIZE) + 1);
+    }
+}
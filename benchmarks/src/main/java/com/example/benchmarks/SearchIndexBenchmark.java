@@ -0,0 +1,149 @@
+package com.example.benchmarks;
+
+import com.example.InMemoryLibrary;
+import com.example.LibraryException;
+import com.example.SearchIndex;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Live search latency over a catalog of made-up titles and authors, whose words follow a skewed
+ * frequency distribution like real titles do. Sample-time mode reports the p99 per query kind.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchIndexBenchmark {
+    private static final String[] SYLLABLES = { "ka", "lo", "mi", "ra", "ten", "vel", "dor", "an", "is", "qua",
+            "ber", "sol", "mo", "ri", "ne", "tha", "gu", "el", "ori", "pan", "ste", "vi", "zu", "cor" };
+    private static final int VOCABULARY_SIZE = 20_000;
+    private static final int SURNAMES = 5_000;
+    private static final int QUERIES = 4096;
+
+    public enum QueryKind {
+        // First letters of one title word, as while typing
+        PREFIX,
+        // Two whole title words and the start of a third
+        PHRASE,
+        // A title word with one letter changed
+        TYPO,
+        // An author's surname and the start of a title word
+        AUTHOR_AND_TITLE
+    }
+
+    @Param({ "100000", "1000000" })
+    public int catalogSize;
+
+    @Param({ "PREFIX", "PHRASE", "TYPO", "AUTHOR_AND_TITLE" })
+    public QueryKind queryKind;
+
+    private Path directory;
+    private InMemoryLibrary library;
+    private SearchIndex index;
+    private final String[] queries = new String[QUERIES];
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("library-search");
+        library = InMemoryLibrary.open(directory, false);
+        Random random = new Random(42);
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = word(random, 2 + random.nextInt(3));
+        }
+        String[] surnames = new String[SURNAMES];
+        for (int i = 0; i < surnames.length; i++) {
+            surnames[i] = capitalize(word(random, 3));
+        }
+        String[][] titles = new String[QUERIES][];
+        String[] authors = new String[QUERIES];
+        for (int id = 1; id <= catalogSize; id++) {
+            String[] title = new String[2 + random.nextInt(4)];
+            for (int w = 0; w < title.length; w++) {
+                // Squaring skews picks toward the start of the vocabulary
+                double r = random.nextDouble();
+                title[w] = vocabulary[(int) (r * r * VOCABULARY_SIZE)];
+            }
+            String surname = surnames[random.nextInt(SURNAMES)];
+            String author = capitalize(word(random, 2)) + " " + surname;
+            try {
+                library.addBook(capitalize(String.join(" ", title)), author, "Fiction");
+            } catch (LibraryException e) {
+                continue; // a duplicate title and author
+            }
+            if (id % (catalogSize / QUERIES) == 0 && id / (catalogSize / QUERIES) <= QUERIES) {
+                titles[id / (catalogSize / QUERIES) - 1] = title;
+                authors[id / (catalogSize / QUERIES) - 1] = surname;
+            }
+        }
+        index = SearchIndex.create(library);
+        index.rebuild();
+        for (int i = 0; i < QUERIES; i++) {
+            String[] title = titles[i] != null ? titles[i] : titles[0];
+            queries[i] = query(title, authors[i] != null ? authors[i] : authors[0], random);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        library.close();
+        InMemoryCatalogState.delete(directory);
+    }
+
+    @Benchmark
+    public List<SearchIndex.Hit> search() {
+        return index.search(queries[ThreadLocalRandom.current().nextInt(QUERIES)], 50);
+    }
+
+    private String query(String[] title, String author, Random random) {
+        String word = title[random.nextInt(title.length)];
+        switch (queryKind) {
+            case PREFIX:
+                return word.substring(0, 1 + random.nextInt(word.length()));
+            case PHRASE:
+                String last = title[title.length - 1];
+                return title[0] + " " + title[1] + " " + last.substring(0, Math.min(3, last.length()));
+            case TYPO:
+                int at = random.nextInt(word.length());
+                char replacement = (char) ('a' + random.nextInt(26));
+                return word.substring(0, at) + replacement + word.substring(at + 1);
+            case AUTHOR_AND_TITLE:
+                return author + " " + word.substring(0, Math.min(2, word.length()));
+            default:
+                throw new IllegalStateException("Unknown query kind " + queryKind);
+        }
+    }
+
+    private static String word(Random random, int syllables) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
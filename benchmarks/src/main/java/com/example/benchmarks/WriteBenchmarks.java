@@ -0,0 +1,97 @@
+package com.example.benchmarks;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single-threaded write latency. Each benchmark undoes its change outside the measured call so the
+ * catalog keeps its size for the whole trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmarks {
+    static final String RETURN_SQL =
+            "UPDATE books SET is_issued = false, issued_to = NULL, return_date = NULL, issued_on = NULL WHERE id = ?";
+    static final String ISSUE_SQL =
+            "UPDATE books SET is_issued = true, issued_to = ?, return_date = ?, issued_on = ? WHERE id = ?";
+    private static final String BORROWER = "bench-reader";
+
+    @State(Scope.Benchmark)
+    public static class AddFixture {
+        final AtomicInteger counter = new AtomicInteger();
+
+        // Books added during an iteration are removed before the next one
+        @TearDown(Level.Iteration)
+        public void removeAdded(CatalogState state) {
+            state.database.update("DELETE FROM books WHERE name LIKE 'Added %'");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class IssueFixture {
+        int bookId;
+        String today;
+        String dueDate;
+
+        @Setup(Level.Trial)
+        public void dates() {
+            today = LocalDate.now().toString();
+            dueDate = LocalDate.now().plusDays(14).toString();
+        }
+
+        @Setup(Level.Invocation)
+        public void pick(CatalogState state) {
+            bookId = state.database.randomAvailableId();
+        }
+
+        @TearDown(Level.Invocation)
+        public void undo(CatalogState state) {
+            state.database.update(RETURN_SQL, bookId);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ReturnFixture {
+        int bookId;
+
+        @Setup(Level.Invocation)
+        public void issue(CatalogState state) {
+            bookId = state.database.randomAvailableId();
+            LocalDate today = LocalDate.now();
+            state.database.update(ISSUE_SQL, BORROWER, today.plusDays(14), today, bookId);
+        }
+    }
+
+    @Benchmark
+    public boolean addBook(CatalogState state, AddFixture fixture) {
+        return state.library.addBook("Added " + fixture.counter.incrementAndGet(), "Bench Author", "Fiction");
+    }
+
+    @Benchmark
+    public boolean issueBook(CatalogState state, IssueFixture fixture) {
+        return state.library.issueBook(BenchmarkDatabase.bookName(fixture.bookId),
+                BenchmarkDatabase.authorOf(fixture.bookId), BORROWER, fixture.dueDate, fixture.today);
+    }
+
+    @Benchmark
+    public boolean returnBook(CatalogState state, ReturnFixture fixture) {
+        return state.library.returnBook(BenchmarkDatabase.bookName(fixture.bookId),
+                BenchmarkDatabase.authorOf(fixture.bookId));
+    }
+}
@@ -0,0 +1,172 @@
+package com.example;
+
+import javafx.application.Platform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs {@link LibraryRepository} calls on virtual threads so the JavaFX application thread never
+ * waits on JDBC. Chain UI work with {@code thenAcceptAsync(..., AsyncLibrary.FX_THREAD)}.
+ */
+public class AsyncLibrary implements AutoCloseable {
+    public static final Executor FX_THREAD = Platform::runLater;
+    private static final Logger logger = LogManager.getLogger(AsyncLibrary.class);
+    // How long close() lets calls already running finish before closing the library under them
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final LibraryRepository library;
+    private final CatalogCache cache;
+    private final SearchIndex searchIndex;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicReference<CompletableFuture<Book>> pendingLookup = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<List<SearchIndex.Hit>>> pendingSearch = new AtomicReference<>();
+
+    public AsyncLibrary(LibraryRepository library, CatalogCache cache, SearchIndex searchIndex) {
+        this.library = library;
+        this.cache = cache;
+        this.searchIndex = searchIndex;
+    }
+
+    public LibraryRepository getLibrary() {
+        return library;
+    }
+
+    public CatalogCache getCache() {
+        return cache;
+    }
+
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public CompletableFuture<List<String>> getCategories() {
+        return supply(cache::getCategories);
+    }
+
+    public CompletableFuture<Page<Book>> getAvailableBooksPage(int afterId, int pageSize) {
+        return supply(() -> library.getAvailableBooksPage(afterId, pageSize));
+    }
+
+    public CompletableFuture<Page<IssuedBook>> getIssuedBooksPage(int afterId, int pageSize) {
+        return supply(() -> library.getIssuedBooksPage(afterId, pageSize));
+    }
+
+    public CompletableFuture<Boolean> addBook(String name, String author, String category) {
+        return supply(() -> library.addBook(name, author, category));
+    }
+
+    public CompletableFuture<Boolean> removeBook(String name, String author) {
+        return supply(() -> library.removeBook(name, author));
+    }
+
+    public CompletableFuture<Boolean> issueBook(String name, String author, String issuedTo, String returnDate,
+            String issuedOn) {
+        return supply(() -> library.issueBook(name, author, issuedTo, returnDate, issuedOn));
+    }
+
+    public CompletableFuture<Boolean> returnBook(String name, String author) {
+        return supply(() -> library.returnBook(name, author));
+    }
+
+    public CompletableFuture<List<BatchItemResult>> issueBooks(List<IssueRequest> requests) {
+        return supply(() -> library.issueBooks(requests));
+    }
+
+    public CompletableFuture<List<BatchItemResult>> returnBooks(List<Integer> bookIds) {
+        return supply(() -> library.returnBooks(bookIds));
+    }
+
+    public CompletableFuture<Book> searchBook(int bookId) {
+        return supply(() -> cache.searchBook(bookId));
+    }
+
+    // Any book, issued or not; searchBook only finds available ones
+    public CompletableFuture<Book> getBookById(int bookId) {
+        return supply(() -> cache.getBookById(bookId));
+    }
+
+    /**
+     * Type-ahead lookup: starting a new one cancels the previous one, so a slow answer for an
+     * earlier keystroke can never overwrite the answer for the current text. A query that is
+     * already on the wire still runs to the end; interrupting it would close the pooled
+     * connection's socket.
+     */
+    public CompletableFuture<Book> searchBookLatest(int bookId) {
+        CompletableFuture<Book> lookup = searchBook(bookId);
+        cancelPendingLookup(pendingLookup.getAndSet(lookup));
+        return lookup;
+    }
+
+    // Cancels the outstanding type-ahead lookup, e.g. when the field is cleared
+    public void cancelPendingLookup() {
+        cancelPendingLookup(pendingLookup.getAndSet(null));
+    }
+
+    public CompletableFuture<Void> rebuildSearchIndex() {
+        return supply(() -> {
+            searchIndex.rebuild();
+            return null;
+        });
+    }
+
+    /**
+     * Live search over titles and authors; like {@link #searchBookLatest}, each call cancels the
+     * previous one.
+     */
+    public CompletableFuture<List<SearchIndex.Hit>> searchLatest(String query, int limit) {
+        CompletableFuture<List<SearchIndex.Hit>> search = supply(() -> searchIndex.search(query, limit));
+        cancelPendingLookup(pendingSearch.getAndSet(search));
+        return search;
+    }
+
+    public void cancelPendingSearch() {
+        cancelPendingLookup(pendingSearch.getAndSet(null));
+    }
+
+    private void cancelPendingLookup(CompletableFuture<?> previous) {
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    public <T> CompletableFuture<T> supply(Callable<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (result.isDone()) {
+                return; // cancelled before it started
+            }
+            try {
+                result.complete(call.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Stops taking calls, waits up to {@value #CLOSE_TIMEOUT_SECONDS} seconds for the running ones
+     * and then closes the library.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Closing the library with calls still running after {} s", CLOSE_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        cache.logStats();
+        library.close();
+    }
+}
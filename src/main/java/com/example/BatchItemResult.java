@@ -0,0 +1,36 @@
+package com.example;
+
+/**
+ * Outcome for one book of a batch issue or return.
+ */
+public class BatchItemResult {
+    private final int bookId;
+    private final boolean success;
+    private final String message;
+
+    public BatchItemResult(int bookId, boolean success, String message) {
+        this.bookId = bookId;
+        this.success = success;
+        this.message = message;
+    }
+
+    static BatchItemResult ok(int bookId) {
+        return new BatchItemResult(bookId, true, null);
+    }
+
+    static BatchItemResult failed(int bookId, String message) {
+        return new BatchItemResult(bookId, false, message);
+    }
+
+    public int getBookId() {
+        return bookId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -1,56 +1,18 @@
 package com.example;
 
-public class Book {
-    private int id;
-    private String name;
-    private String author;
-    private String category;
+/**
+ * A book in the catalog. Immutable; the category is a shared {@link Category} instance.
+ */
+public record Book(int id, String name, String author, Category category) {
 
     public Book(int id, String name, String author, String category) {
-        this.id = id;
-        this.name = name;
-        this.author = author;
-        this.category = category;
+        this(id, name, author, Category.of(category));
     }
 
-    // Add constructor without category for backward compatibility
-    public Book(int id, String name, String author) {
-        this.id = id;
-        this.name = name;
-        this.author = author;
-        this.category = null;
+    /**
+     * Returns the category's name, or {@code null} for a book without one.
+     */
+    public String categoryName() {
+        return category != null ? category.name() : null;
     }
-
-    // Existing getters and setters
-    public int getId() {
-        return id;
-    }
-
-    public void setId(int id) {
-        this.id = id;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public void setName(String name) {
-        this.name = name;
-    }
-
-    public String getAuthor() {
-        return author;
-    }
-
-    public void setAuthor(String author) {
-        this.author = author;
-    }
-
-    public String getCategory() {
-        return category;
-    }
-
-    public void setCategory(String category) {
-        this.category = category;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,306 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streams books from a CSV or TSV file (columns: name, author, category; optional header row)
+ * into the {@code books} table with batched inserts. Categories and existing books are loaded
+ * into memory once, so each row costs no extra round trip. Rows that cannot be imported are
+ * written to a reject file with the reason appended as an extra column.
+ */
+public class BookImporter {
+    private static final Logger logger = LogManager.getLogger(BookImporter.class);
+    private static final int PROGRESS_INTERVAL = 100_000;
+
+    private final ConnectionPool connectionPool;
+    private final int batchSize;
+    private final int commitInterval;
+
+    public BookImporter(ConnectionPool connectionPool, int batchSize, int commitInterval) {
+        if (batchSize < 1 || commitInterval < batchSize) {
+            throw new IllegalArgumentException("Batch size must be positive and no larger than the commit interval");
+        }
+        this.connectionPool = connectionPool;
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+    }
+
+    public ImportResult importFile(Path source, Path rejectFile) {
+        BatchInsert insert = null;
+        try (Connection connection = connectionPool.getConnection()) {
+            Map<String, Integer> categoryIds = loadCategoryIds(connection);
+            Set<String> existingBooks = loadExistingBooks(connection);
+
+            connection.setAutoCommit(false);
+            String sql = "INSERT INTO books (name, author, category_id) VALUES (?, ?, ?)";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                insert = new BatchInsert(connection, stmt, categoryIds, existingBooks);
+                return readRows(source, rejectFile, insert);
+            } catch (SQLException | IOException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException e) {
+            long committed = insert == null ? 0 : insert.committed;
+            throw new LibraryException("Import failed after " + committed + " committed rows: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads {@code source} row by row, skipping blank lines and a header, and passes each row that
+     * has a name, author and category to {@code handler}. Rows the handler turns down, and rows
+     * missing a field, are copied to {@code rejectFile} with the reason appended. Shared by every
+     * backend's import so they accept and reject the same files.
+     */
+    static <E extends Exception> ImportResult readRows(Path source, Path rejectFile, RowHandler<E> handler)
+            throws IOException, E {
+        char delimiter = source.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".tsv") ? '\t' : ',';
+        long start = System.nanoTime();
+        long rowsRead = 0;
+        long rejected = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8);
+                BufferedWriter rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8)) {
+            boolean firstLine = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = parseLine(line, delimiter);
+                if (firstLine) {
+                    firstLine = false;
+                    if (isHeader(fields)) {
+                        continue;
+                    }
+                }
+                rowsRead++;
+
+                String reason;
+                if (fields.size() < 3 || fields.get(0).isBlank() || fields.get(1).isBlank()) {
+                    reason = "expected name, author and category";
+                } else {
+                    reason = handler.row(fields.get(0).trim(), fields.get(1).trim(), fields.get(2).trim());
+                }
+                if (reason != null) {
+                    rejected++;
+                    rejects.write(line);
+                    rejects.write(delimiter);
+                    rejects.write(reason);
+                    rejects.newLine();
+                }
+                if (rowsRead % PROGRESS_INTERVAL == 0) {
+                    logger.info("Import progress: {} rows read, {} rows/s", rowsRead,
+                            (long) ImportResult.rate(rowsRead, System.nanoTime() - start));
+                }
+            }
+        }
+        handler.finish();
+
+        ImportResult result = new ImportResult(rowsRead, rowsRead - rejected, rejected, System.nanoTime() - start);
+        logger.info("Imported books from {}: {}", source, result);
+        return result;
+    }
+
+    /**
+     * Stores the rows {@link #readRows} accepts.
+     */
+    @FunctionalInterface
+    interface RowHandler<E extends Exception> {
+        // Returns null once the row is stored, or why it was rejected
+        String row(String name, String author, String category) throws E;
+
+        // Called after the last row; rows still buffered must be stored now
+        default void finish() throws E {
+        }
+    }
+
+    // Sends rows in batches and commits every commitInterval rows
+    private final class BatchInsert implements RowHandler<SQLException> {
+        private final Connection connection;
+        private final PreparedStatement stmt;
+        private final Map<String, Integer> categoryIds;
+        private final Set<String> existingBooks;
+        private int pendingBatch;
+        private long uncommitted;
+        private long committed;
+
+        BatchInsert(Connection connection, PreparedStatement stmt, Map<String, Integer> categoryIds,
+                Set<String> existingBooks) {
+            this.connection = connection;
+            this.stmt = stmt;
+            this.categoryIds = categoryIds;
+            this.existingBooks = existingBooks;
+        }
+
+        @Override
+        public String row(String name, String author, String category) throws SQLException {
+            Integer categoryId = categoryIds.get(category.toLowerCase(Locale.ROOT));
+            if (categoryId == null) {
+                return "unknown category";
+            } else if (!existingBooks.add(bookKey(name, author))) {
+                return "duplicate book";
+            }
+
+            stmt.setString(1, name);
+            stmt.setString(2, author);
+            stmt.setInt(3, categoryId);
+            stmt.addBatch();
+            pendingBatch++;
+            uncommitted++;
+
+            if (pendingBatch == batchSize) {
+                stmt.executeBatch();
+                pendingBatch = 0;
+            }
+            if (uncommitted >= commitInterval) {
+                // The interval need not be a multiple of the batch size; send the rest first
+                commit();
+            }
+            return null;
+        }
+
+        @Override
+        public void finish() throws SQLException {
+            commit();
+        }
+
+        private void commit() throws SQLException {
+            if (pendingBatch > 0) {
+                stmt.executeBatch();
+                pendingBatch = 0;
+            }
+            connection.commit();
+            committed += uncommitted;
+            uncommitted = 0;
+        }
+    }
+
+    private Map<String, Integer> loadCategoryIds(Connection connection) throws SQLException {
+        Map<String, Integer> categoryIds = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT id, category_name FROM book_categories")) {
+            while (rs.next()) {
+                categoryIds.put(rs.getString("category_name").toLowerCase(Locale.ROOT), rs.getInt("id"));
+            }
+        }
+        return categoryIds;
+    }
+
+    private Set<String> loadExistingBooks(Connection connection) throws SQLException {
+        Set<String> keys = new HashSet<>();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.setFetchSize(DBHelper.getIntProperty("library.stream.fetchSize", 1000));
+            try (ResultSet rs = stmt.executeQuery("SELECT name, author FROM books")) {
+                while (rs.next()) {
+                    keys.add(bookKey(rs.getString(1), rs.getString(2)));
+                }
+            }
+        }
+        return keys;
+    }
+
+    // Same case-insensitive identity addBook uses for its duplicate check
+    static String bookKey(String name, String author) {
+        return name.toLowerCase(Locale.ROOT) + '\u0001' + author.toLowerCase(Locale.ROOT);
+    }
+
+    static boolean isHeader(List<String> fields) {
+        return fields.size() >= 3 && fields.get(0).trim().equalsIgnoreCase("name")
+                && fields.get(1).trim().equalsIgnoreCase("author")
+                && fields.get(2).trim().equalsIgnoreCase("category");
+    }
+
+    // Splits one line; fields may be wrapped in double quotes with "" as an escaped quote
+    static List<String> parseLine(String line, char delimiter) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    public static class ImportResult {
+        private final long rowsRead;
+        private final long imported;
+        private final long rejected;
+        private final long elapsedNanos;
+
+        public ImportResult(long rowsRead, long imported, long rejected, long elapsedNanos) {
+            this.rowsRead = rowsRead;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        static double rate(long rows, long nanos) {
+            return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+        }
+
+        public long getRowsRead() {
+            return rowsRead;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1_000_000_000.0;
+        }
+
+        public double getRowsPerSecond() {
+            return rate(rowsRead, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows read, %d imported, %d rejected in %.2f s (%.0f rows/s)",
+                    rowsRead, imported, rejected, getElapsedSeconds(), getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example;
+
+/**
+ * How {@link MyLibrary#removeBook(String, String)} treats the ID of a removed book.
+ */
+public enum BookRemovalMode {
+    // Delete the row and leave a gap; other books keep their IDs. Cost does not depend on catalog size.
+    STABLE_IDS,
+    // Shift every higher ID down by one so IDs stay contiguous. Rewrites every row above the removed one.
+    RESEQUENCE
+}
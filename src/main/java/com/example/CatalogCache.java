@@ -0,0 +1,122 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache for the catalog lookups the UI repeats most: {@code searchBook} on every
+ * keystroke, {@code getBookById} and {@code getCategories}. It listens to the library's change
+ * events, so committed writes update or invalidate the affected entries. Misses are cached too,
+ * which matters for type-ahead where most prefixes of an ID do not exist.
+ * <p>
+ * Events only come from this instance, so every entry, hit or miss, also expires after
+ * {@code library.cache.ttlSeconds}; a book added, issued or returned at another desk on the same
+ * database shows up here within that time.
+ */
+public class CatalogCache implements LibraryListener {
+    private static final Logger logger = LogManager.getLogger(CatalogCache.class);
+    private static final String ALL_CATEGORIES = "all";
+
+    private final LibraryRepository library;
+    private final LruCache<Integer, Optional<Book>> availableBooks;
+    private final LruCache<Integer, Optional<Book>> booksById;
+    private final LruCache<String, List<String>> categories;
+
+    public static CatalogCache create(LibraryRepository library) {
+        return create(library, DBHelper.getIntProperty("library.cache.maxEntries", 10000),
+                Duration.ofSeconds(DBHelper.getIntProperty("library.cache.ttlSeconds", 30)));
+    }
+
+    /**
+     * With a zero {@code timeToLive} entries only change through this library's events.
+     */
+    public static CatalogCache create(LibraryRepository library, int maxEntries, Duration timeToLive) {
+        return create(library, maxEntries, timeToLive, System::nanoTime);
+    }
+
+    // Registers once the cache is built, so no event can reach a half-constructed instance
+    static CatalogCache create(LibraryRepository library, int maxEntries, Duration timeToLive, LongSupplier clock) {
+        CatalogCache cache = new CatalogCache(library, maxEntries, timeToLive, clock);
+        library.addLibraryListener(cache);
+        return cache;
+    }
+
+    private CatalogCache(LibraryRepository library, int maxEntries, Duration timeToLive, LongSupplier clock) {
+        this.library = library;
+        this.availableBooks = new LruCache<>(maxEntries, timeToLive, clock);
+        this.booksById = new LruCache<>(maxEntries, timeToLive, clock);
+        this.categories = new LruCache<>(1, timeToLive, clock);
+    }
+
+    public Book searchBook(int bookId) {
+        return availableBooks.getOrLoad(bookId, id -> Optional.ofNullable(library.searchBook(id))).orElse(null);
+    }
+
+    public Book getBookById(int bookId) {
+        return booksById.getOrLoad(bookId, id -> Optional.ofNullable(library.getBookById(id))).orElse(null);
+    }
+
+    public List<String> getCategories() {
+        return categories.getOrLoad(ALL_CATEGORIES, key -> List.copyOf(library.getCategories()));
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        availableBooks.put(book.id(), Optional.of(book));
+        booksById.put(book.id(), Optional.of(book));
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        availableBooks.put(book.id(), Optional.empty());
+        booksById.put(book.id(), Optional.empty());
+    }
+
+    @Override
+    public void bookIssued(IssuedBook issuedBook) {
+        availableBooks.put(issuedBook.id(), Optional.empty());
+    }
+
+    @Override
+    public void bookReturned(Book book) {
+        availableBooks.put(book.id(), Optional.of(book));
+    }
+
+    @Override
+    public void bookUpdated(int bookId) {
+        availableBooks.invalidate(bookId);
+        booksById.invalidate(bookId);
+    }
+
+    @Override
+    public void categoriesChanged() {
+        categories.clear();
+    }
+
+    @Override
+    public void catalogReloaded() {
+        availableBooks.clear();
+        booksById.clear();
+    }
+
+    public LruCache<Integer, Optional<Book>> getAvailableBooksCache() {
+        return availableBooks;
+    }
+
+    public LruCache<Integer, Optional<Book>> getBooksByIdCache() {
+        return booksById;
+    }
+
+    public LruCache<String, List<String>> getCategoriesCache() {
+        return categories;
+    }
+
+    public void logStats() {
+        logger.info("Catalog cache - searchBook: {}; getBookById: {}; categories: {}",
+                availableBooks, booksById, categories);
+    }
+}
@@ -0,0 +1,443 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+/**
+ * Dumps the catalog (categories and books, with their loans) to a binary snapshot file and loads
+ * one into a catalog that has no books, for the kiosks' nightly copies and for warming a fresh
+ * instance. Export streams rows into one direct buffer that is written through a
+ * {@link FileChannel}; import reads the file through memory-mapped windows and inserts in
+ * batches. Neither keeps more than a batch of rows, so heap use does not grow with the catalog.
+ * <p>
+ * The file is the header ({@code LIBSNAP1}, format version, creation time in epoch
+ * milliseconds), one record per category, one per book in ID order, an end marker with the record
+ * counts, and a CRC32 of everything before it. Strings are an unsigned two-byte length followed by
+ * UTF-8; dates are epoch days, with {@link IssuedBook#NO_DATE} for none; a category ID of 0 means
+ * none.
+ */
+public class CatalogSnapshot {
+    private static final Logger logger = LogManager.getLogger(CatalogSnapshot.class);
+    private static final long MAGIC = 0x4C4942534E415031L; // "LIBSNAP1"
+    private static final int VERSION = 1;
+    private static final byte END = 0;
+    private static final byte CATEGORY = 1;
+    private static final byte BOOK = 2;
+    private static final int HEADER_BYTES = 8 + 4 + 8;
+    private static final int TRAILER_BYTES = 1 + 8 + 8 + 8;
+    // Type, ID, category ID, issued flag and the two dates
+    private static final int BOOK_FIXED_BYTES = 1 + 4 + 4 + 1 + 4 + 4;
+    // Large enough for any record; the window is remapped before one could straddle its end
+    private static final int MAX_RECORD_BYTES = BOOK_FIXED_BYTES + 3 * (2 + 65535);
+    private static final long MAP_WINDOW_BYTES = 64L << 20;
+
+    private final ConnectionPool connectionPool;
+    private final int bufferSize;
+    private final int fetchSize;
+    private final int batchSize;
+    private final int commitInterval;
+
+    public CatalogSnapshot(ConnectionPool connectionPool, int bufferSize, int fetchSize, int batchSize,
+            int commitInterval) {
+        if (bufferSize < 65536) {
+            throw new IllegalArgumentException("Buffer size must be at least 64 KB");
+        }
+        if (batchSize < 1 || commitInterval < batchSize) {
+            throw new IllegalArgumentException("Batch size must be positive and no larger than the commit interval");
+        }
+        this.connectionPool = connectionPool;
+        this.bufferSize = bufferSize;
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Writes the catalog to {@code file}, read in one transaction, replacing the file only once
+     * the snapshot is complete.
+     */
+    public Result export(Path file) {
+        long start = System.nanoTime();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long categories = 0;
+        long books = 0;
+        long bytes;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Connection connection = connectionPool.getConnection();
+                    FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING)) {
+                connection.setAutoCommit(false);
+                SnapshotWriter out = new SnapshotWriter(channel, ByteBuffer.allocateDirect(bufferSize));
+                out.ensure(HEADER_BYTES);
+                out.buffer.putLong(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+
+                try (PreparedStatement stmt = LibraryQuery.CATEGORY_NAMES_BY_ID.prepare(connection);
+                        ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String name = rs.getString("category_name");
+                        out.ensure(1 + 4 + SnapshotWriter.maxBytes(name));
+                        out.buffer.put(CATEGORY).putInt(rs.getInt("id"));
+                        out.putString(name);
+                        categories++;
+                    }
+                }
+                try (PreparedStatement stmt = LibraryQuery.SNAPSHOT_BOOKS.prepare(connection)) {
+                    stmt.setFetchSize(fetchSize);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            boolean issued = rs.getBoolean("is_issued");
+                            String name = rs.getString("name");
+                            String author = rs.getString("author");
+                            String issuedTo = issued ? rs.getString("issued_to") : null;
+                            if (issuedTo == null) {
+                                issuedTo = "";
+                            }
+                            out.ensure(BOOK_FIXED_BYTES + SnapshotWriter.maxBytes(name)
+                                    + SnapshotWriter.maxBytes(author) + SnapshotWriter.maxBytes(issuedTo));
+                            out.buffer.put(BOOK).putInt(rs.getInt("id")).putInt(rs.getInt("category_id"))
+                                    .put((byte) (issued ? 1 : 0));
+                            out.putString(name);
+                            out.putString(author);
+                            if (issued) {
+                                out.putString(issuedTo);
+                                out.buffer.putInt(epochDay(rs.getDate("return_date")))
+                                        .putInt(epochDay(rs.getDate("issued_on")));
+                            }
+                            books++;
+                        }
+                    }
+                }
+                out.ensure(TRAILER_BYTES);
+                out.buffer.put(END).putLong(categories).putLong(books);
+                bytes = out.finish();
+                channel.force(false);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (SQLException | IOException e) {
+            throw new LibraryException("Snapshot export to " + file + " failed: " + e.getMessage(), e);
+        } finally {
+            // Already moved into place unless the export failed
+            deleteQuietly(temp);
+        }
+        Result result = new Result(categories, books, bytes, System.nanoTime() - start);
+        logger.info("Exported catalog snapshot {}: {}", file, result);
+        return result;
+    }
+
+    /**
+     * Loads {@code file} into the catalog, keeping book and category IDs, after checking the whole
+     * file against its checksum. The catalog must have no books; its categories are replaced by
+     * the snapshot's. Open loans are recorded in {@code loan_events} as the schema upgrade does.
+     * Rows are committed every {@code commitInterval} books, so a failure part way leaves the
+     * catalog partly loaded.
+     */
+    public Result load(Path file) {
+        long start = System.nanoTime();
+        long categories = 0;
+        long books = 0;
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            verify(channel, size);
+            SnapshotReader in = new SnapshotReader(channel, size - 8);
+            in.ensure(HEADER_BYTES);
+            in.window.position(HEADER_BYTES);
+
+            try (Connection connection = connectionPool.getConnection()) {
+                connection.setAutoCommit(false);
+                requireNoBooks(connection);
+                try (PreparedStatement delete = LibraryQuery.DELETE_ALL_CATEGORIES.prepare(connection)) {
+                    delete.executeUpdate();
+                }
+                try (PreparedStatement insertCategory = LibraryQuery.SNAPSHOT_INSERT_CATEGORY.prepare(connection);
+                        PreparedStatement insertBook = LibraryQuery.SNAPSHOT_INSERT_BOOK.prepare(connection)) {
+                    int pendingBatch = 0;
+                    byte type;
+                    while ((type = in.nextRecord()) != END) {
+                        if (type == CATEGORY) {
+                            insertCategory.setInt(1, in.window.getInt());
+                            insertCategory.setString(2, in.getString());
+                            insertCategory.executeUpdate();
+                            categories++;
+                        } else if (type == BOOK) {
+                            insertBook.setInt(1, in.window.getInt());
+                            int categoryId = in.window.getInt();
+                            boolean issued = in.window.get() != 0;
+                            insertBook.setString(2, in.getString());
+                            insertBook.setString(3, in.getString());
+                            if (categoryId == 0) {
+                                insertBook.setNull(4, Types.INTEGER);
+                            } else {
+                                insertBook.setInt(4, categoryId);
+                            }
+                            insertBook.setBoolean(5, issued);
+                            if (issued) {
+                                insertBook.setString(6, in.getString());
+                                setDate(insertBook, 7, in.window.getInt());
+                                setDate(insertBook, 8, in.window.getInt());
+                            } else {
+                                insertBook.setNull(6, Types.VARCHAR);
+                                insertBook.setNull(7, Types.DATE);
+                                insertBook.setNull(8, Types.DATE);
+                            }
+                            insertBook.addBatch();
+                            books++;
+                            if (++pendingBatch == batchSize) {
+                                insertBook.executeBatch();
+                                pendingBatch = 0;
+                            }
+                            if (books % commitInterval == 0) {
+                                connection.commit();
+                            }
+                        } else {
+                            throw new LibraryException("Snapshot " + file + " has an unknown record type " + type);
+                        }
+                    }
+                    if (pendingBatch > 0) {
+                        insertBook.executeBatch();
+                    }
+                }
+                long expectedCategories = in.window.getLong();
+                long expectedBooks = in.window.getLong();
+                if (expectedCategories != categories || expectedBooks != books) {
+                    throw new LibraryException("Snapshot " + file + " should hold " + expectedCategories
+                            + " categories and " + expectedBooks + " books but holds " + categories + " and " + books);
+                }
+                try (PreparedStatement stmt = LibraryQuery.RECORD_OPEN_LOANS.prepare(connection)) {
+                    stmt.executeUpdate();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                throw new LibraryException("Snapshot import from " + file + " failed after " + books + " books: "
+                        + e.getMessage(), e);
+            }
+        } catch (IOException e) {
+            throw new LibraryException("Failed to read snapshot " + file + ": " + e.getMessage(), e);
+        }
+        Result result = new Result(categories, books, size, System.nanoTime() - start);
+        logger.info("Imported catalog snapshot {}: {}", file, result);
+        return result;
+    }
+
+    private static void requireNoBooks(Connection connection) throws SQLException {
+        try (PreparedStatement stmt = LibraryQuery.MAX_BOOK_ID.prepare(connection);
+                ResultSet rs = stmt.executeQuery()) {
+            if (rs.next() && rs.getInt("max_id") != 0) {
+                throw new LibraryException("A snapshot can only be imported into a catalog with no books");
+            }
+        }
+    }
+
+    // Checks the header and the checksum over every byte before the trailing CRC
+    private static void verify(FileChannel channel, long size) throws IOException {
+        if (size < HEADER_BYTES + TRAILER_BYTES) {
+            throw new LibraryException("Snapshot is too short to be one");
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        if (header.getLong() != MAGIC) {
+            throw new LibraryException("Not a catalog snapshot");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new LibraryException("Unsupported snapshot version " + version);
+        }
+        CRC32 crc = new CRC32();
+        long checked = size - 8;
+        for (long position = 0; position < checked; position += MAP_WINDOW_BYTES) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(MAP_WINDOW_BYTES, checked - position)));
+        }
+        long expected = channel.map(FileChannel.MapMode.READ_ONLY, checked, 8).getLong();
+        if (crc.getValue() != expected) {
+            throw new LibraryException("Snapshot checksum does not match; the file is damaged or incomplete");
+        }
+    }
+
+    private static int epochDay(Date date) {
+        return date == null ? IssuedBook.NO_DATE : (int) date.toLocalDate().toEpochDay();
+    }
+
+    private static void setDate(PreparedStatement stmt, int index, int epochDay) throws SQLException {
+        if (epochDay == IssuedBook.NO_DATE) {
+            stmt.setNull(index, Types.DATE);
+        } else {
+            stmt.setDate(index, Date.valueOf(LocalDate.ofEpochDay(epochDay)));
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Exports or imports a snapshot of the configured catalog, for scheduled kiosk dumps:
+     * {@code CatalogSnapshot export|import <file>}.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2 || !(args[0].equals("export") || args[0].equals("import"))) {
+            System.err.println("Usage: CatalogSnapshot export|import <file>");
+            System.exit(2);
+        }
+        LibraryRepository repository = DBHelper.createRepository();
+        try {
+            if (!(repository instanceof MyLibrary)) {
+                throw new LibraryException("Snapshots need library.storage=mysql or embedded");
+            }
+            MyLibrary library = (MyLibrary) repository;
+            Result result = args[0].equals("export")
+                    ? library.exportSnapshot(Path.of(args[1]))
+                    : library.importSnapshot(Path.of(args[1]));
+            System.out.println(result);
+        } finally {
+            repository.close();
+        }
+    }
+
+    /**
+     * What one export or import moved; {@code bytes} is the snapshot file size.
+     */
+    public record Result(long categories, long books, long bytes, long elapsedNanos) {
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1_000_000_000.0;
+        }
+
+        public double getMegabytesPerSecond() {
+            return BookImporter.ImportResult.rate(bytes, elapsedNanos) / (1 << 20);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d categories and %d books, %.1f MB in %.2f s (%.1f MB/s)", categories, books,
+                    bytes / (double) (1 << 20), getElapsedSeconds(), getMegabytesPerSecond());
+        }
+    }
+
+    // Fills the direct buffer and writes it out whenever the next record might not fit
+    private static final class SnapshotWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final CRC32 crc = new CRC32();
+        private long written;
+
+        SnapshotWriter(FileChannel channel, ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        // UTF-8 needs at most three bytes for each UTF-16 char
+        static int maxBytes(String value) {
+            return 2 + 3 * value.length();
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+                if (buffer.remaining() < bytes) {
+                    throw new LibraryException("Record of up to " + bytes + " bytes does not fit the snapshot buffer");
+                }
+            }
+        }
+
+        // Encodes straight into the buffer and fills in the length afterwards
+        void putString(String value) {
+            int lengthAt = buffer.position();
+            buffer.position(lengthAt + 2);
+            encoder.reset();
+            CharBuffer chars = CharBuffer.wrap(value);
+            if (encoder.encode(chars, buffer, true).isOverflow() || encoder.flush(buffer).isOverflow()
+                    || buffer.position() - lengthAt - 2 > 65535) {
+                throw new LibraryException("Value too long for a snapshot: " + value.length() + " characters");
+            }
+            buffer.putShort(lengthAt, (short) (buffer.position() - lengthAt - 2));
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        // Writes what is buffered and then the checksum of everything written; returns the file size
+        long finish() throws IOException {
+            flush();
+            buffer.putLong(crc.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+            return written;
+        }
+    }
+
+    // Reads through a mapped window that is moved forward whenever a record might cross its end
+    private static final class SnapshotReader {
+        private final FileChannel channel;
+        private final long end;
+        private final byte[] chars = new byte[65535];
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        SnapshotReader(FileChannel channel, long end) throws IOException {
+            this.channel = channel;
+            this.end = end;
+            this.window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(MAP_WINDOW_BYTES, end));
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (window.remaining() >= bytes || windowStart + window.limit() == end) {
+                return;
+            }
+            windowStart += window.position();
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                    Math.min(MAP_WINDOW_BYTES, end - windowStart));
+        }
+
+        byte nextRecord() throws IOException {
+            ensure(MAX_RECORD_BYTES);
+            if (!window.hasRemaining()) {
+                throw new LibraryException("Snapshot ends without an end marker");
+            }
+            return window.get();
+        }
+
+        String getString() {
+            int length = window.getShort() & 0xFFFF;
+            window.get(chars, 0, length);
+            return new String(chars, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
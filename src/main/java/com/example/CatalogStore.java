@@ -0,0 +1,369 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Persists {@link InMemoryLibrary} as a snapshot plus an append-only journal of changes. Both
+ * files hold the same length-prefixed, checksummed records. Every record sets state instead of
+ * changing it relative to the previous value, so replaying a record twice is harmless and a crash
+ * between writing a snapshot and truncating the journal loses nothing.
+ */
+final class CatalogStore implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(CatalogStore.class);
+
+    private static final byte CATEGORY_ADDED = 1;
+    private static final byte BOOK_ADDED = 2;
+    private static final byte CATEGORY_ASSIGNED = 3;
+    private static final byte BOOK_ISSUED = 4;
+    private static final byte BOOK_RETURNED = 5;
+    private static final byte BOOK_REMOVED = 6;
+    private static final byte LOANS_COUNTED = 7;
+    private static final byte LAST_ID = 8;
+    // Far above any real record; a larger length means the header itself is damaged
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    /**
+     * Receives records in the order they were written.
+     */
+    interface Changes {
+        void categoryAdded(String category);
+
+        void bookAdded(int id, String name, String author, String category);
+
+        void categoryAssigned(int id, String category);
+
+        void bookIssued(int id, String issuedTo, long returnEpochDay, long issuedOnEpochDay);
+
+        void bookReturned(int id);
+
+        void bookRemoved(int id);
+
+        /**
+         * The running total of loans started in a month; written after each issue as a total
+         * rather than an increment, like every other record.
+         */
+        void loansCounted(YearMonth month, long loans);
+
+        /**
+         * The highest book ID handed out so far, removed books included. Snapshots record it
+         * because they only hold the books that remain; in the journal BOOK_ADDED implies it.
+         */
+        void lastIdAssigned(int id);
+    }
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final boolean syncWrites;
+    private FileOutputStream journalOut;
+    // Replaced by compact() and read by writers without the store's lock
+    private volatile RecordWriter journal;
+    private volatile long journalRecords;
+
+    CatalogStore(Path directory, boolean syncWrites) {
+        this.snapshotFile = directory.resolve("catalog.snapshot");
+        this.journalFile = directory.resolve("catalog.journal");
+        this.syncWrites = syncWrites;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new LibraryException("Failed to create " + directory, e);
+        }
+    }
+
+    /**
+     * Replays the snapshot and then the journal into {@code target}, drops a torn record at the
+     * end of the journal and opens the journal for appending.
+     */
+    synchronized void load(Changes target) {
+        try {
+            if (Files.exists(snapshotFile)) {
+                replay(snapshotFile, target);
+            }
+            long validLength = Files.exists(journalFile) ? replay(journalFile, target) : 0;
+            if (Files.exists(journalFile) && Files.size(journalFile) > validLength) {
+                logger.warn("Discarding {} bytes of incomplete journal records",
+                        Files.size(journalFile) - validLength);
+                try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+                    channel.truncate(validLength);
+                }
+            }
+            openJournal(true);
+        } catch (IOException e) {
+            throw new LibraryException("Failed to load catalog from " + snapshotFile.getParent() + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the journal writer. Callers append while holding the lock that orders the change
+     * against other changes to the same book.
+     */
+    Changes journal() {
+        return journal;
+    }
+
+    long getJournalRecords() {
+        return journalRecords;
+    }
+
+    /**
+     * Replaces the snapshot with the records {@code writer} emits and starts an empty journal.
+     * The caller must keep the catalog unchanged until this returns.
+     */
+    synchronized void compact(Consumer<Changes> writer) {
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+                BufferedOutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+                writer.accept(new RecordWriter(buffered, false, null));
+                buffered.flush();
+                out.getChannel().force(true);
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journalOut.close();
+            openJournal(false);
+        } catch (IOException e) {
+            throw new LibraryException("Failed to write catalog snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (journalOut != null) {
+                journalOut.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to close catalog journal: {}", e.getMessage());
+        }
+    }
+
+    private void openJournal(boolean append) throws IOException {
+        journalOut = new FileOutputStream(journalFile.toFile(), append);
+        journal = new RecordWriter(journalOut, true, syncWrites ? journalOut.getChannel() : null);
+        if (!append) {
+            journalRecords = 0;
+        }
+    }
+
+    // Returns the length of the readable prefix of the file
+    private long replay(Path file, Changes target) throws IOException {
+        long validLength = 0;
+        long records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    long checksum = in.readInt() & 0xFFFFFFFFL;
+                    if (length < 1 || length > MAX_RECORD_BYTES) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if (crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(payload)), target);
+                validLength += 8 + payload.length;
+                records++;
+            }
+        }
+        if (file.equals(journalFile)) {
+            journalRecords = records;
+        }
+        return validLength;
+    }
+
+    private static void apply(DataInputStream in, Changes target) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case CATEGORY_ADDED:
+                target.categoryAdded(in.readUTF());
+                break;
+            case BOOK_ADDED:
+                target.bookAdded(in.readInt(), in.readUTF(), in.readUTF(), readNullable(in));
+                break;
+            case CATEGORY_ASSIGNED:
+                target.categoryAssigned(in.readInt(), in.readUTF());
+                break;
+            case BOOK_ISSUED:
+                target.bookIssued(in.readInt(), in.readUTF(), in.readLong(), in.readLong());
+                break;
+            case BOOK_RETURNED:
+                target.bookReturned(in.readInt());
+                break;
+            case BOOK_REMOVED:
+                target.bookRemoved(in.readInt());
+                break;
+            case LOANS_COUNTED:
+                target.loansCounted(YearMonth.of(in.readInt(), in.readByte()), in.readLong());
+                break;
+            case LAST_ID:
+                target.lastIdAssigned(in.readInt());
+                break;
+            default:
+                throw new IOException("Unknown catalog record type " + type);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Encodes each change as one record. Journal records are written through to the file one at a
+     * time; snapshot records go to a buffered stream.
+     */
+    private final class RecordWriter implements Changes {
+        private final OutputStream out;
+        private final boolean journalWriter;
+        private final FileChannel syncChannel;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        private final DataOutputStream record = new DataOutputStream(buffer);
+
+        RecordWriter(OutputStream out, boolean journalWriter, FileChannel syncChannel) {
+            this.out = out;
+            this.journalWriter = journalWriter;
+            this.syncChannel = syncChannel;
+        }
+
+        @Override
+        public void categoryAdded(String category) {
+            write(r -> {
+                r.writeByte(CATEGORY_ADDED);
+                r.writeUTF(category);
+            });
+        }
+
+        @Override
+        public void bookAdded(int id, String name, String author, String category) {
+            write(r -> {
+                r.writeByte(BOOK_ADDED);
+                r.writeInt(id);
+                r.writeUTF(name);
+                r.writeUTF(author);
+                r.writeBoolean(category != null);
+                if (category != null) {
+                    r.writeUTF(category);
+                }
+            });
+        }
+
+        @Override
+        public void categoryAssigned(int id, String category) {
+            write(r -> {
+                r.writeByte(CATEGORY_ASSIGNED);
+                r.writeInt(id);
+                r.writeUTF(category);
+            });
+        }
+
+        @Override
+        public void bookIssued(int id, String issuedTo, long returnEpochDay, long issuedOnEpochDay) {
+            write(r -> {
+                r.writeByte(BOOK_ISSUED);
+                r.writeInt(id);
+                r.writeUTF(issuedTo);
+                r.writeLong(returnEpochDay);
+                r.writeLong(issuedOnEpochDay);
+            });
+        }
+
+        @Override
+        public void bookReturned(int id) {
+            write(r -> {
+                r.writeByte(BOOK_RETURNED);
+                r.writeInt(id);
+            });
+        }
+
+        @Override
+        public void bookRemoved(int id) {
+            write(r -> {
+                r.writeByte(BOOK_REMOVED);
+                r.writeInt(id);
+            });
+        }
+
+        @Override
+        public void loansCounted(YearMonth month, long loans) {
+            write(r -> {
+                r.writeByte(LOANS_COUNTED);
+                r.writeInt(month.getYear());
+                r.writeByte(month.getMonthValue());
+                r.writeLong(loans);
+            });
+        }
+
+        @Override
+        public void lastIdAssigned(int id) {
+            write(r -> {
+                r.writeByte(LAST_ID);
+                r.writeInt(id);
+            });
+        }
+
+        private void write(RecordBody body) {
+            synchronized (CatalogStore.this) {
+                try {
+                    // Header placeholder, filled in once the payload length is known
+                    buffer.reset();
+                    record.writeLong(0);
+                    body.writeTo(record);
+                    byte[] bytes = buffer.toByteArray();
+                    int length = bytes.length - 8;
+                    CRC32 crc = new CRC32();
+                    crc.update(bytes, 8, length);
+                    writeInt(bytes, 0, length);
+                    writeInt(bytes, 4, (int) crc.getValue());
+                    out.write(bytes);
+                    if (journalWriter) {
+                        if (syncChannel != null) {
+                            syncChannel.force(false);
+                        }
+                        journalRecords++;
+                    }
+                } catch (IOException e) {
+                    throw new LibraryException("Failed to write catalog record: " + e.getMessage(), e);
+                }
+            }
+        }
+
+        private static void writeInt(byte[] bytes, int offset, int value) {
+            bytes[offset] = (byte) (value >>> 24);
+            bytes[offset + 1] = (byte) (value >>> 16);
+            bytes[offset + 2] = (byte) (value >>> 8);
+            bytes[offset + 3] = (byte) value;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordBody {
+        void writeTo(DataOutputStream record) throws IOException;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A book category. {@link #of} hands out one shared instance per name, so loaded books reference
+ * a handful of category objects instead of carrying a copy of the name each.
+ */
+public record Category(String name) {
+    // Categories are a short, slowly growing list, so the shared instances are never evicted
+    private static final Map<String, Category> SHARED = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared category called {@code name}, or {@code null} for a book without one.
+     */
+    public static Category of(String name) {
+        if (name == null) {
+            return null;
+        }
+        Category category = SHARED.get(name);
+        return category != null ? category : SHARED.computeIfAbsent(name, Category::new);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
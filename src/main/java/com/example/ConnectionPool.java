@@ -0,0 +1,566 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import java.time.Duration;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small bounded JDBC connection pool. Connections handed out by {@link #getConnection()} go back
+ * to the pool when closed, so callers use them with try-with-resources exactly like a plain
+ * {@code DriverManager} connection.
+ * <p>
+ * Each physical connection also keeps an LRU cache of prepared statements keyed by SQL. Closing
+ * a cached statement resets it and leaves it open for the next caller that prepares the same SQL.
+ * Executions of every prepared statement are timed in {@link #getStatementStats()}.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(ConnectionPool.class);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    // Connections returned this recently are trusted without a validation round trip
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutNanos;
+    private final long leakThresholdNanos;
+    private final int statementCacheSize;
+    private final StatementStats statementStats = new StatementStats();
+
+    private final Semaphore permits;
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalBorrowNanos = new LongAdder();
+    private final LongAdder returnCount = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+    // Set by LibraryMetrics; null unless metrics are enabled
+    private volatile LatencyHistogram waitHistogram;
+
+    public ConnectionPool(String url, String user, String password, int maxSize, Duration borrowTimeout,
+            Duration idleTimeout, Duration leakThreshold) {
+        this(url, user, password, maxSize, borrowTimeout, idleTimeout, leakThreshold, 0);
+    }
+
+    public ConnectionPool(String url, String user, String password, int maxSize, Duration borrowTimeout,
+            Duration idleTimeout, Duration leakThreshold, int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeout.toMillis();
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.leakThresholdNanos = leakThreshold.toNanos();
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = Math.max(1000, Math.min(idleTimeout.toMillis(), leakThreshold.toMillis()) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled = takeValidIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(DriverManager.getConnection(url, user, password), statementCacheSize);
+                createdCount.increment();
+            }
+            long now = System.nanoTime();
+            record(totalWaitNanos, maxWaitNanos, now - waitStart);
+            LatencyHistogram histogram = waitHistogram;
+            if (histogram != null) {
+                histogram.record(now - waitStart);
+            }
+            pooled.borrowedAt = now;
+            pooled.borrowSite = leakThresholdNanos > 0 ? new Throwable("Connection borrowed here") : null;
+            pooled.leakReported = false;
+            borrowed.add(pooled);
+            borrowCount.increment();
+            return new Lease(pooled).proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeValidIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.nanoTime() - pooled.lastUsed < VALIDATION_BYPASS_NANOS || isValid(pooled.physical)) {
+                return pooled;
+            }
+            validationFailures.increment();
+            closeQuietly(pooled);
+        }
+        return null;
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        long now = System.nanoTime();
+        record(totalBorrowNanos, maxBorrowNanos, now - pooled.borrowedAt);
+        returnCount.increment();
+        try {
+            if (closed || pooled.physical.isClosed()) {
+                closeQuietly(pooled);
+                return;
+            }
+            if (!pooled.physical.getAutoCommit()) {
+                // Never hand out a connection with a half-finished transaction
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.lastUsed = now;
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            logger.warn("Discarding connection that failed to reset: {}", e.getMessage());
+            closeQuietly(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep() {
+        long now = System.nanoTime();
+        // Idle connections are reused LIFO, so the stalest ones sit at the tail
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.lastUsed > idleTimeoutNanos && idle.remove(pooled)) {
+                evictedCount.increment();
+                closeQuietly(pooled);
+            }
+        }
+
+        if (leakThresholdNanos > 0) {
+            for (PooledConnection pooled : borrowed) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdNanos) {
+                    pooled.leakReported = true;
+                    leakCount.increment();
+                    logger.warn("Possible connection leak: connection held for {} ms",
+                            TimeUnit.NANOSECONDS.toMillis(now - pooled.borrowedAt), pooled.borrowSite);
+                }
+            }
+        }
+    }
+
+    private static void record(LongAdder total, AtomicLong max, long nanos) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void closeQuietly(PooledConnection pooled) {
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing pooled connection: {}", e.getMessage());
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public StatementStats getStatementStats() {
+        return statementStats;
+    }
+
+    /**
+     * Also records every wait for a connection, including opening a new one, in {@code histogram};
+     * {@code null} stops recording.
+     */
+    public void setWaitHistogram(LatencyHistogram histogram) {
+        this.waitHistogram = histogram;
+    }
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.sum();
+    }
+
+    public long getValidationFailureCount() {
+        return validationFailures.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    public long getLeakCount() {
+        return leakCount.sum();
+    }
+
+    public double getAverageWaitMillis() {
+        long count = borrowCount.sum();
+        return count == 0 ? 0 : totalWaitNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public double getAverageBorrowMillis() {
+        long count = returnCount.sum();
+        return count == 0 ? 0 : totalBorrowNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMaxBorrowMillis() {
+        return maxBorrowNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled);
+        }
+        logger.info("Connection pool closed ({} borrows, avg wait {} ms, avg hold {} ms, {} leaks)",
+                getBorrowCount(), String.format("%.3f", getAverageWaitMillis()),
+                String.format("%.3f", getAverageBorrowMillis()), getLeakCount());
+        statementStats.logReport();
+    }
+
+    private static final class PooledConnection {
+        private final Connection physical;
+        // Only touched by the current borrower, so no locking is needed
+        private final Map<String, CachedStatement> statements;
+        private volatile long borrowedAt;
+        private volatile long lastUsed;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+
+        PooledConnection(Connection physical, int statementCacheSize) {
+            this.physical = physical;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                    if (size() <= statementCacheSize) {
+                        return false;
+                    }
+                    eldest.getValue().evict();
+                    return true;
+                }
+            };
+        }
+    }
+
+    /**
+     * One borrow of a pooled connection. A fresh proxy per borrow means a caller that holds on to a
+     * closed connection cannot reach the physical connection after someone else has borrowed it.
+     */
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final Connection proxy;
+        private boolean returned;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(), new Class<?>[] { Connection.class }, this);
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.physical;
+                case "unwrap":
+                    // The physical connection must not outlive the lease, so only the proxy is exposed
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    throw new SQLException("Pooled connections cannot be unwrapped to " + args[0]);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "prepareStatement":
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    return prepare(method, args);
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    return invokeOn(pooled.physical, method, args);
+            }
+        }
+
+        private PreparedStatement prepare(Method method, Object[] args) throws Throwable {
+            String sql = (String) args[0];
+            // Plain and generated-keys statements are cached; other variants are rare enough to prepare each time
+            boolean cacheable = statementCacheSize > 0 && (args.length == 1
+                    || (args.length == 2 && method.getParameterTypes()[1] == int.class));
+            if (!cacheable) {
+                return new CachedStatement(sql, (PreparedStatement) invokeOn(pooled.physical, method, args), false)
+                        .checkOut(proxy);
+            }
+            String key = args.length == 1 ? sql : args[1] + ":" + sql;
+            CachedStatement cached = pooled.statements.get(key);
+            if (cached != null && !cached.inUse && !cached.physical.isClosed()) {
+                statementStats.recordCacheHit();
+                return cached.checkOut(proxy);
+            }
+            statementStats.recordCacheMiss();
+            PreparedStatement physical = (PreparedStatement) invokeOn(pooled.physical, method, args);
+            if (cached != null && cached.inUse) {
+                // The same SQL is already open on this connection, e.g. a nested lookup
+                return new CachedStatement(sql, physical, false).checkOut(proxy);
+            }
+            if (cached != null) {
+                cached.evict();
+            }
+            CachedStatement statement = new CachedStatement(sql, physical, true);
+            pooled.statements.put(key, statement);
+            return statement.checkOut(proxy);
+        }
+    }
+
+    /**
+     * A prepared statement handed out through a proxy. Executions are timed, and when the statement
+     * is cached {@code close} resets it for reuse instead of closing it.
+     */
+    private final class CachedStatement implements InvocationHandler {
+        private final String sql;
+        private final PreparedStatement physical;
+        private final boolean cached;
+        private PreparedStatement proxy;
+        private Connection connection;
+        private ResultSet lastResult;
+        private boolean inUse;
+        private boolean evicted;
+        // Driver defaults, captured before the first caller changes a limit; null while untouched
+        private int[] defaultLimits;
+
+        CachedStatement(String sql, PreparedStatement physical, boolean cached) {
+            this.sql = sql;
+            this.physical = physical;
+            this.cached = cached;
+        }
+
+        PreparedStatement checkOut(Connection connection) {
+            inUse = true;
+            this.connection = connection;
+            // A new proxy per checkout so a stale reference cannot reach the next caller's statement
+            proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, this);
+            return proxy;
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closePhysical();
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("toString")) {
+                return "Cached" + physical;
+            } else if (proxy != this.proxy || !inUse) {
+                if (name.equals("close") || name.equals("isClosed")) {
+                    return name.equals("isClosed") ? Boolean.TRUE : null;
+                }
+                throw new SQLException("Statement is closed");
+            }
+            switch (name) {
+                case "close":
+                    checkIn();
+                    return null;
+                case "isClosed":
+                    return physical.isClosed();
+                case "getConnection":
+                    return connection;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    throw new SQLException("Pooled statements cannot be unwrapped to " + args[0]);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                case "setFetchSize":
+                case "setQueryTimeout":
+                    if (cached && defaultLimits == null) {
+                        defaultLimits = new int[] { physical.getMaxRows(), physical.getFetchSize(),
+                                physical.getQueryTimeout() };
+                    }
+                    return invokeOn(physical, method, args);
+                case "execute":
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    long start = System.nanoTime();
+                    try {
+                        Object result = invokeOn(physical, method, args);
+                        if (result instanceof ResultSet resultSet) {
+                            lastResult = resultSet;
+                        }
+                        return result;
+                    } finally {
+                        statementStats.record(sql, System.nanoTime() - start);
+                    }
+                default:
+                    return invokeOn(physical, method, args);
+            }
+        }
+
+        private void checkIn() throws SQLException {
+            inUse = false;
+            connection = null;
+            if (!cached || evicted || physical.isClosed()) {
+                closePhysical();
+                return;
+            }
+            try {
+                // Callers do not always close their result sets; the statement close used to do it
+                if (lastResult != null) {
+                    lastResult.close();
+                    lastResult = null;
+                }
+                physical.clearParameters();
+                physical.clearBatch();
+                physical.clearWarnings();
+                if (defaultLimits != null) {
+                    physical.setMaxRows(defaultLimits[0]);
+                    physical.setFetchSize(defaultLimits[1]);
+                    physical.setQueryTimeout(defaultLimits[2]);
+                    defaultLimits = null;
+                }
+            } catch (SQLException e) {
+                evicted = true;
+                closePhysical();
+                throw e;
+            }
+        }
+
+        private void closePhysical() {
+            lastResult = null;
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                logger.debug("Error closing prepared statement: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,20 +1,111 @@
 package com.example;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Properties;
 
 public class DBHelper {
-    private static final String URL = "jdbc:mysql://localhost:3306/library";
+    // Server-side prepared statements pay off now that the pool keeps them open between calls
+    private static final String URL = "jdbc:mysql://localhost:3306/library"
+            + "?useServerPrepStmts=true&cachePrepStmts=true&rewriteBatchedStatements=true";
     private static final String USER = "root";
     private static final String PASSWORD = "root";
+    private static final String DRIVER = "com.mysql.cj.jdbc.Driver";
+
+    // Optional overrides, see application.properties.template
+    private static final Properties PROPERTIES = loadProperties();
 
     public static Connection getConnection() throws SQLException {
+        loadDriver();
+        return DriverManager.getConnection(getProperty("db.url", URL), getProperty("db.username", USER),
+                getProperty("db.password", PASSWORD));
+    }
+
+    public static ConnectionPool createConnectionPool() {
+        loadDriver();
+        return createConnectionPool(getProperty("db.url", URL), getProperty("db.username", USER),
+                getProperty("db.password", PASSWORD));
+    }
+
+    // Pool settings come from the db.pool.* keys whichever database the pool points at
+    public static ConnectionPool createConnectionPool(String url, String user, String password) {
+        return new ConnectionPool(url, user, password,
+                getIntProperty("db.pool.maxSize", 10),
+                Duration.ofMillis(getIntProperty("db.pool.borrowTimeoutMs", 5000)),
+                Duration.ofMillis(getIntProperty("db.pool.idleTimeoutMs", 600000)),
+                Duration.ofMillis(getIntProperty("db.pool.leakThresholdMs", 30000)),
+                getIntProperty("db.pool.statementCacheSize", 64));
+    }
+
+    /**
+     * Opens the storage backend selected by {@code library.storage}: {@code mysql} (the default),
+     * {@code embedded} or {@code memory}.
+     */
+    public static LibraryRepository createRepository() {
+        String storage = getProperty("library.storage", "mysql").trim();
+        if (storage.equalsIgnoreCase("mysql")) {
+            return new MyLibrary();
+        } else if (storage.equalsIgnoreCase("embedded")) {
+            return new EmbeddedLibrary();
+        } else if (storage.equalsIgnoreCase("memory")) {
+            return InMemoryLibrary.open();
+        }
+        throw new LibraryException("Unknown library.storage: " + storage);
+    }
+
+    public static String getProperty(String key, String defaultValue) {
+        return System.getProperty(key, PROPERTIES.getProperty(key, defaultValue));
+    }
+
+    public static int getIntProperty(String key, int defaultValue) {
+        String value = getProperty(key, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            return DriverManager.getConnection(URL, USER, PASSWORD);
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new LibraryException("Invalid number for " + key + ": " + value);
+        }
+    }
+
+    public static double getDoubleProperty(String key, double defaultValue) {
+        String value = getProperty(key, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new LibraryException("Invalid number for " + key + ": " + value);
+        }
+    }
+
+    private static void loadDriver() {
+        String driver = getProperty("db.driver", DRIVER);
+        if (driver.isBlank()) {
+            return;
+        }
+        try {
+            Class.forName(driver);
         } catch (ClassNotFoundException e) {
-            throw new LibraryException("MySQL JDBC Driver not found", e);
+            throw new LibraryException("JDBC Driver not found: " + driver, e);
+        }
+    }
+
+    private static Properties loadProperties() {
+        Properties properties = new Properties();
+        try (InputStream in = DBHelper.class.getResourceAsStream("/application.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new LibraryException("Failed to read application.properties", e);
         }
+        return properties;
     }
 }
@@ -0,0 +1,126 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The library stored in an embedded H2 database file, for kiosks without a MySQL server. H2 runs
+ * in MySQL mode, so all of {@link MyLibrary}'s SQL works unchanged; the schema is created the
+ * first time the file is opened and files from older versions are upgraded.
+ */
+public class EmbeddedLibrary extends MyLibrary {
+    private static final Logger logger = LogManager.getLogger(EmbeddedLibrary.class);
+    private static final String DRIVER = "org.h2.Driver";
+    private static final String SCHEMA = "/db/schema-h2.sql";
+    private static final String LOWERCASE_KEYS_UPGRADE = "/db/upgrade-h2-lowercase-keys.sql";
+    private static final String FINE_HISTORY_UPGRADE = "/db/upgrade-h2-fine-history.sql";
+    private static final String FINE_HISTORY_KEEP_UPGRADE = "/db/upgrade-h2-fine-history-keep.sql";
+    private static final String LOAN_EVENTS_UPGRADE = "/db/upgrade-h2-loan-events.sql";
+    private static final String LOAN_EVENTS_DUE_DATE_UPGRADE = "/db/upgrade-h2-loan-events-due-date.sql";
+
+    public EmbeddedLibrary() throws LibraryException {
+        this(Path.of(DBHelper.getProperty("library.embedded.path", "library-data/library")));
+    }
+
+    /**
+     * Opens or creates the database at {@code databaseFile}; H2 appends {@code .mv.db} to the name.
+     */
+    public EmbeddedLibrary(Path databaseFile) throws LibraryException {
+        super(openPool(url(databaseFile)));
+    }
+
+    public static String url(Path databaseFile) {
+        return "jdbc:h2:file:" + databaseFile.toAbsolutePath() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+    }
+
+    private static ConnectionPool openPool(String url) {
+        try {
+            Class.forName(DRIVER);
+        } catch (ClassNotFoundException e) {
+            throw new LibraryException("JDBC Driver not found: " + DRIVER, e);
+        }
+        ConnectionPool pool = DBHelper.createConnectionPool(url, "sa", "");
+        try (Connection connection = pool.getConnection()) {
+            if (!hasTable(connection, "books")) {
+                createSchema(connection);
+                logger.info("Created library schema in {}", url);
+            } else {
+                if (!hasColumn(connection, "books", "name_key")) {
+                    runScript(connection, LOWERCASE_KEYS_UPGRADE);
+                    logger.info("Added lower-cased key columns to {}", url);
+                }
+                if (!hasTable(connection, "fine_history")) {
+                    runScript(connection, FINE_HISTORY_UPGRADE);
+                    logger.info("Added fine_history table to {}", url);
+                } else if (!isNullable(connection, "fine_history", "book_id")) {
+                    runScript(connection, FINE_HISTORY_KEEP_UPGRADE);
+                    logger.info("Kept fines of removed books in {}", url);
+                }
+                if (!hasTable(connection, "loan_events")) {
+                    runScript(connection, LOAN_EVENTS_UPGRADE);
+                    logger.info("Added loan_events table to {}", url);
+                } else if (!isNullable(connection, "loan_events", "due_date")) {
+                    runScript(connection, LOAN_EVENTS_DUE_DATE_UPGRADE);
+                    logger.info("Made loan_events.due_date nullable in {}", url);
+                }
+            }
+        } catch (SQLException e) {
+            pool.close();
+            throw new LibraryException("Failed to open embedded database: " + e.getMessage());
+        }
+        return pool;
+    }
+
+    private static boolean hasTable(Connection connection, String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(null, null, table, null)) {
+            return tables.next();
+        }
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(null, null, table, column)) {
+            return columns.next();
+        }
+    }
+
+    private static boolean isNullable(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(null, null, table, column)) {
+            return columns.next() && columns.getInt("NULLABLE") == DatabaseMetaData.columnNullable;
+        }
+    }
+
+    /**
+     * Runs the bundled H2 schema script on an empty database.
+     */
+    public static void createSchema(Connection connection) throws SQLException {
+        runScript(connection, SCHEMA);
+    }
+
+    private static void runScript(Connection connection, String resource) throws SQLException {
+        String script;
+        try (InputStream in = EmbeddedLibrary.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new LibraryException("Schema script not found: " + resource);
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new LibraryException("Failed to read " + resource, e);
+        }
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : script.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (!sql.isBlank()) {
+                    stmt.execute(sql);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assesses fines for every overdue loan and records them in {@code fine_history}. Loans are read
+ * in chunks of consecutive book IDs, and each chunk is written as one batch and committed, so a run
+ * holds a pooled connection only for one chunk at a time and a failed run keeps the chunks it
+ * finished. There is one row per loan; a later run updates it until it is paid, so running twice on
+ * the same day leaves the same rows. Fines outlive the book: removing it only clears the row's
+ * {@code book_id}.
+ */
+public class FineEngine implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(FineEngine.class);
+    private static final long PROGRESS_INTERVAL = 100_000;
+
+    private final ConnectionPool connectionPool;
+    private final FinePolicy policy;
+    private final int chunkSize;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fine-engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile RunResult lastRun;
+
+    public FineEngine(ConnectionPool connectionPool, FinePolicy policy, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.connectionPool = connectionPool;
+        this.policy = policy;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Assesses every loan due before {@code assessedOn}, counting days overdue up to that date.
+     */
+    public synchronized RunResult run(LocalDate assessedOn) {
+        long start = System.nanoTime();
+        long loansScanned = 0;
+        long finesWritten = 0;
+        long chunks = 0;
+        long nextProgress = PROGRESS_INTERVAL;
+        Date assessedDate = Date.valueOf(assessedOn);
+
+        int[] bookIds = new int[chunkSize];
+        String[] borrowers = new String[chunkSize];
+        Date[] dueDates = new Date[chunkSize];
+        int maxId = maxBookId();
+        // Each chunk covers chunkSize IDs, so it never holds more than chunkSize loans
+        for (int afterId = 0; afterId < maxId; afterId += chunkSize) {
+            int count = 0;
+            try (Connection connection = connectionPool.getConnection()) {
+                connection.setAutoCommit(false);
+                try (PreparedStatement stmt = LibraryQuery.OVERDUE_LOANS_IN_RANGE.prepare(connection)) {
+                    stmt.setInt(1, afterId);
+                    stmt.setInt(2, afterId + chunkSize);
+                    stmt.setDate(3, assessedDate);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            bookIds[count] = rs.getInt("id");
+                            borrowers[count] = rs.getString("issued_to");
+                            dueDates[count] = rs.getDate("return_date");
+                            count++;
+                        }
+                    }
+                }
+                if (count > 0) {
+                    finesWritten += writeFines(connection, bookIds, borrowers, dueDates, count, assessedOn,
+                            assessedDate);
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                throw new LibraryException("Fine run failed after " + finesWritten + " committed fines: "
+                        + e.getMessage(), e);
+            }
+            loansScanned += count;
+            chunks++;
+            if (loansScanned >= nextProgress) {
+                logger.info("Fine run progress: {} loans scanned, up to book ID {} of {}, {} loans/s", loansScanned,
+                        Math.min(afterId + chunkSize, maxId), maxId,
+                        (long) BookImporter.ImportResult.rate(loansScanned, System.nanoTime() - start));
+                nextProgress += PROGRESS_INTERVAL;
+            }
+        }
+
+        RunResult result = new RunResult(assessedOn, loansScanned, finesWritten, chunks, System.nanoTime() - start);
+        lastRun = result;
+        logger.info("Assessed fines for {}: {}", assessedOn, result);
+        return result;
+    }
+
+    private int maxBookId() {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement stmt = LibraryQuery.MAX_BOOK_ID.prepare(connection);
+                ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt("max_id") : 0;
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to start fine run: " + e.getMessage(), e);
+        }
+    }
+
+    private int writeFines(Connection connection, int[] bookIds, String[] borrowers, Date[] dueDates, int count,
+            LocalDate assessedOn, Date assessedDate) throws SQLException {
+        int written = 0;
+        try (PreparedStatement stmt = LibraryQuery.UPSERT_FINE.prepare(connection)) {
+            for (int i = 0; i < count; i++) {
+                long daysOverdue = ChronoUnit.DAYS.between(dueDates[i].toLocalDate(), assessedOn);
+                double fine = policy.fineFor(daysOverdue);
+                // Still inside the grace period
+                if (fine <= 0) {
+                    continue;
+                }
+                stmt.setInt(1, bookIds[i]);
+                stmt.setString(2, borrowers[i]);
+                stmt.setDate(3, dueDates[i]);
+                stmt.setInt(4, (int) daysOverdue);
+                stmt.setBigDecimal(5, BigDecimal.valueOf(fine).setScale(2, RoundingMode.HALF_UP));
+                stmt.setDate(6, assessedDate);
+                stmt.addBatch();
+                written++;
+            }
+            if (written > 0) {
+                stmt.executeBatch();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Runs {@link #run} for the current date every day at {@code runAt}, local time. A failed run
+     * is logged and the next one is still scheduled.
+     */
+    public void scheduleDaily(LocalTime runAt) {
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime next = now.with(runAt);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        scheduler.schedule(() -> runScheduled(runAt), Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Next fine run at {}", next);
+    }
+
+    private void runScheduled(LocalTime runAt) {
+        try {
+            run(LocalDate.now());
+        } catch (LibraryException e) {
+            logger.error("Scheduled fine run failed", e);
+        } finally {
+            if (!scheduler.isShutdown()) {
+                scheduleDaily(runAt);
+            }
+        }
+    }
+
+    /**
+     * Returns the result of the most recent completed run, or {@code null} before the first one.
+     */
+    public RunResult getLastRun() {
+        return lastRun;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    public static class RunResult {
+        private final LocalDate assessedOn;
+        private final long loansScanned;
+        private final long finesWritten;
+        private final long chunks;
+        private final long elapsedNanos;
+
+        public RunResult(LocalDate assessedOn, long loansScanned, long finesWritten, long chunks, long elapsedNanos) {
+            this.assessedOn = assessedOn;
+            this.loansScanned = loansScanned;
+            this.finesWritten = finesWritten;
+            this.chunks = chunks;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public LocalDate getAssessedOn() {
+            return assessedOn;
+        }
+
+        public long getLoansScanned() {
+            return loansScanned;
+        }
+
+        public long getFinesWritten() {
+            return finesWritten;
+        }
+
+        public long getChunks() {
+            return chunks;
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1_000_000_000.0;
+        }
+
+        public double getLoansPerSecond() {
+            return BookImporter.ImportResult.rate(loansScanned, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d overdue loans scanned, %d fines written in %d chunks in %.2f s (%.0f loans/s)",
+                    loansScanned, finesWritten, chunks, getElapsedSeconds(), getLoansPerSecond());
+        }
+    }
+}
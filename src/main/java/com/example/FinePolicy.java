@@ -0,0 +1,36 @@
+package com.example;
+
+/**
+ * Turns the number of days a loan is overdue into the fine owed for it.
+ */
+@FunctionalInterface
+public interface FinePolicy {
+    double fineFor(long daysOverdue);
+
+    /**
+     * Charges {@code ratePerDay} for every day after the first {@code graceDays}, up to
+     * {@code maxFine} per loan (0 for no limit).
+     */
+    static FinePolicy perDay(double ratePerDay, int graceDays, double maxFine) {
+        if (ratePerDay < 0 || graceDays < 0 || maxFine < 0) {
+            throw new IllegalArgumentException("Fine rate, grace days and limit must not be negative");
+        }
+        return daysOverdue -> {
+            long chargedDays = daysOverdue - graceDays;
+            if (chargedDays <= 0) {
+                return 0;
+            }
+            double fine = chargedDays * ratePerDay;
+            return maxFine > 0 ? Math.min(fine, maxFine) : fine;
+        };
+    }
+
+    /**
+     * The policy set by the {@code library.fine.*} keys; 1.5 per day from the first day by default.
+     */
+    static FinePolicy fromConfig() {
+        return perDay(DBHelper.getDoubleProperty("library.fine.ratePerDay", 1.5),
+                DBHelper.getIntProperty("library.fine.graceDays", 0),
+                DBHelper.getDoubleProperty("library.fine.maxFine", 0));
+    }
+}
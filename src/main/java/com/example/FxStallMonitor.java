@@ -0,0 +1,98 @@
+package com.example;
+
+import javafx.application.Platform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how long the JavaFX application thread takes to pick up a posted task. A healthy UI
+ * answers within a frame or two; anything longer means the thread was blocked, usually on I/O.
+ * Only one probe is in flight at a time: the next is posted an interval after the last one ran,
+ * so a long stall is counted once, with its full length, rather than once per queued probe.
+ */
+public class FxStallMonitor implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(FxStallMonitor.class);
+
+    private final long probeIntervalMillis;
+    private final long stallThresholdNanos;
+    private final Executor fxThread;
+    private final ScheduledExecutorService probe = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fx-stall-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder probeCount = new LongAdder();
+    private final LongAdder stallCount = new LongAdder();
+    private final LongAdder totalStallNanos = new LongAdder();
+    private final AtomicLong maxDelayNanos = new AtomicLong();
+
+    public FxStallMonitor(long probeIntervalMillis, long stallThresholdMillis) {
+        this(probeIntervalMillis, stallThresholdMillis, Platform::runLater);
+    }
+
+    // fxThread stands in for Platform.runLater
+    FxStallMonitor(long probeIntervalMillis, long stallThresholdMillis, Executor fxThread) {
+        this.probeIntervalMillis = probeIntervalMillis;
+        this.stallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(stallThresholdMillis);
+        this.fxThread = fxThread;
+        scheduleProbe();
+    }
+
+    private void scheduleProbe() {
+        try {
+            probe.schedule(this::postProbe, probeIntervalMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Closed while the last probe was queued
+        }
+    }
+
+    private void postProbe() {
+        long posted = System.nanoTime();
+        fxThread.execute(() -> {
+            record(System.nanoTime() - posted);
+            scheduleProbe();
+        });
+    }
+
+    private void record(long delayNanos) {
+        probeCount.increment();
+        maxDelayNanos.accumulateAndGet(delayNanos, Math::max);
+        if (delayNanos > stallThresholdNanos) {
+            stallCount.increment();
+            totalStallNanos.add(delayNanos);
+            logger.warn("FX application thread stalled for {} ms", TimeUnit.NANOSECONDS.toMillis(delayNanos));
+        }
+    }
+
+    public long getProbeCount() {
+        return probeCount.sum();
+    }
+
+    public long getStallCount() {
+        return stallCount.sum();
+    }
+
+    public double getTotalStallMillis() {
+        return totalStallNanos.sum() / 1_000_000.0;
+    }
+
+    public double getMaxDelayMillis() {
+        return maxDelayNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public void close() {
+        probe.shutdownNow();
+        logger.info("FX thread: {} probes, {} stalls, {} ms stalled in total, worst delay {} ms",
+                getProbeCount(), getStallCount(), String.format("%.1f", getTotalStallMillis()),
+                String.format("%.1f", getMaxDelayMillis()));
+    }
+}
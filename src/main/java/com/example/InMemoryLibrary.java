@@ -0,0 +1,871 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the whole catalog in memory for kiosks that run without a database server. Books live in
+ * int-keyed open-addressing maps split across lock stripes by book ID, with secondary indexes on
+ * (name, author), category and borrower that hold the IDs unboxed. Every change is appended to a
+ * journal under {@code library.memory.dir}, and the journal is folded into a snapshot on open, on
+ * close and whenever it grows past {@code library.memory.compactAfterRecords} records.
+ * <p>
+ * Book IDs are never reused or renumbered; {@link BookRemovalMode#RESEQUENCE} is not supported.
+ */
+public class InMemoryLibrary implements LibraryRepository {
+    private static final Logger logger = LogManager.getLogger(InMemoryLibrary.class);
+    private static final int STRIPES = 64;
+    private static final int DEFAULT_COMPACT_AFTER_RECORDS = 100_000;
+    private static final List<String> DEFAULT_CATEGORIES = List.of("Fiction", "Non-Fiction", "Science",
+            "Technology", "History", "Biography", "Romance", "Mystery", "Fantasy", "Science Fiction");
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger lastId = new AtomicInteger();
+    // Lower-cased name and author (BookImporter.bookKey) to book ID
+    private final IdIndex idsByTitle = new IdIndex();
+    // Lower-cased borrower to the ID of the book they hold
+    private final IdIndex idsByBorrower = new IdIndex();
+    // Lower-cased category to book IDs; each set is guarded by itself
+    private final Map<String, IntSet> idsByCategory = new ConcurrentHashMap<>();
+    // Lower-cased category to its display name
+    private final Map<String, String> categories = new ConcurrentHashMap<>();
+    // Loans started per month; guarded by itself so each new total reaches the journal in order
+    private final SortedMap<YearMonth, Long> loansPerMonth = new TreeMap<>();
+    private final List<LibraryListener> listeners = new CopyOnWriteArrayList<>();
+    private final CatalogStore store;
+    private final long compactAfterRecords;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final FinePolicy finePolicy = FinePolicy.fromConfig();
+
+    public static InMemoryLibrary open() {
+        return open(Path.of(DBHelper.getProperty("library.memory.dir", "library-data/memory")),
+                Boolean.parseBoolean(DBHelper.getProperty("library.memory.syncWrites", "false")),
+                DBHelper.getIntProperty("library.memory.compactAfterRecords", DEFAULT_COMPACT_AFTER_RECORDS));
+    }
+
+    public static InMemoryLibrary open(Path directory, boolean syncWrites) {
+        return open(directory, syncWrites, DEFAULT_COMPACT_AFTER_RECORDS);
+    }
+
+    /**
+     * Loads the catalog from {@code directory}, creating an empty one with the default categories
+     * if there is none. With {@code syncWrites} every change is forced to disk before it returns.
+     * Once the journal holds {@code compactAfterRecords} records it is folded into a new snapshot;
+     * 0 leaves that to open and close.
+     */
+    public static InMemoryLibrary open(Path directory, boolean syncWrites, int compactAfterRecords) {
+        if (DBHelper.getProperty("library.removal.mode", "STABLE_IDS").equalsIgnoreCase("RESEQUENCE")) {
+            logger.warn("The in-memory catalog keeps book IDs stable; library.removal.mode=RESEQUENCE is ignored");
+        }
+        long start = System.nanoTime();
+        InMemoryLibrary library = new InMemoryLibrary(directory, syncWrites, compactAfterRecords);
+        library.load();
+        logger.info("Loaded {} books from {} in {} ms", library.size(), directory,
+                (System.nanoTime() - start) / 1_000_000);
+        return library;
+    }
+
+    private InMemoryLibrary(Path directory, boolean syncWrites, int compactAfterRecords) {
+        this.compactAfterRecords = compactAfterRecords;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        store = new CatalogStore(directory, syncWrites);
+    }
+
+    // Runs once the library is fully built, since replay and the first snapshot call back into it
+    private void load() {
+        store.load(new Replay());
+        rebuildIndexes();
+        if (categories.isEmpty()) {
+            DEFAULT_CATEGORIES.forEach(this::addBookCategory);
+        }
+        snapshot();
+    }
+
+    @Override
+    public List<Book> getAvailableBooks() {
+        List<Book> books = new ArrayList<>();
+        forEachAvailableBook(books::add);
+        return books;
+    }
+
+    @Override
+    public List<IssuedBook> getIssuedBooks() {
+        List<IssuedBook> issuedBooks = new ArrayList<>();
+        forEachIssuedBook(issuedBooks::add);
+        return issuedBooks;
+    }
+
+    @Override
+    public Page<Book> getAvailableBooksPage(int afterId, int pageSize) {
+        List<Book> books = new ArrayList<>(pageSize + 1);
+        scan(afterId, entry -> !entry.isIssued(), entry -> books.add(entry.toBook()), pageSize + 1);
+        return Page.of(books, pageSize, afterId, Book::id);
+    }
+
+    @Override
+    public Page<IssuedBook> getIssuedBooksPage(int afterId, int pageSize) {
+        List<IssuedBook> issuedBooks = new ArrayList<>(pageSize + 1);
+        scan(afterId, Entry::isIssued, entry -> issuedBooks.add(entry.toIssuedBook()), pageSize + 1);
+        return Page.of(issuedBooks, pageSize, afterId, IssuedBook::id);
+    }
+
+    @Override
+    public void forEachAvailableBook(Consumer<? super Book> action) {
+        scan(0, entry -> !entry.isIssued(), entry -> action.accept(entry.toBook()), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void forEachIssuedBook(Consumer<? super IssuedBook> action) {
+        scan(0, Entry::isIssued, entry -> action.accept(entry.toIssuedBook()), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the books in the given category in ID order.
+     */
+    public List<Book> getBooksByCategory(String category) {
+        IntSet ids = idsByCategory.get(category.toLowerCase(Locale.ROOT));
+        if (ids == null) {
+            return List.of();
+        }
+        int[] sorted;
+        synchronized (ids) {
+            sorted = ids.toSortedArray();
+        }
+        List<Book> books = new ArrayList<>(sorted.length);
+        for (int id : sorted) {
+            Entry entry = read(id);
+            if (entry != null) {
+                books.add(entry.toBook());
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Returns the book currently issued to {@code borrower}, or null if they hold none.
+     */
+    public IssuedBook getBookIssuedTo(String borrower) {
+        int id = idsByBorrower.get(borrower.toLowerCase(Locale.ROOT));
+        Entry entry = id == ObjectIntMap.MISSING ? null : read(id);
+        return entry != null && entry.isIssued() ? entry.toIssuedBook() : null;
+    }
+
+    public int size() {
+        return idsByTitle.size();
+    }
+
+    @Override
+    public void addBookCategory(String category) {
+        String key = category.toLowerCase(Locale.ROOT);
+        // Categories belong to no book; any one stripe's write lock keeps a snapshot out
+        Stripe stripe = stripeFor(key.hashCode());
+        stripe.lock.writeLock().lock();
+        try {
+            if (categories.putIfAbsent(key, category) != null) {
+                throw new LibraryException("Category already exists");
+            }
+            try {
+                store.journal().categoryAdded(category);
+            } catch (LibraryException e) {
+                categories.remove(key);
+                throw e;
+            }
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+        logger.info("Added new category: {}", category);
+        compactIfDue();
+        fireEvent(LibraryListener::categoriesChanged);
+    }
+
+    @Override
+    public List<String> getCategories() {
+        List<String> names = new ArrayList<>(categories.values());
+        Collections.sort(names);
+        return names;
+    }
+
+    @Override
+    public void assignBookCategory(int bookId, String category) {
+        String name = categories.get(category.toLowerCase(Locale.ROOT));
+        Stripe stripe = stripeFor(bookId);
+        Entry previous;
+        stripe.lock.writeLock().lock();
+        try {
+            previous = stripe.books.get(bookId);
+            if (previous == null || name == null) {
+                throw new LibraryException("Book or category not found");
+            }
+            store.journal().categoryAssigned(bookId, name);
+            stripe.books.put(bookId, previous.withCategory(name));
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+        unindexCategory(previous);
+        indexCategory(bookId, name);
+        logger.info("Assigned category {} to book ID {}", name, bookId);
+        compactIfDue();
+        fireEvent(listener -> listener.bookUpdated(bookId));
+    }
+
+    @Override
+    public boolean addBook(String name, String author, String category) throws LibraryException {
+        Entry entry = add(name, author, category);
+        logger.info("Book added successfully: {} by {}", name, author);
+        Book book = entry.toBook();
+        fireEvent(listener -> listener.bookAdded(book));
+        return true;
+    }
+
+    private Entry add(String name, String author, String category) {
+        String categoryName = categories.get(category.toLowerCase(Locale.ROOT));
+        if (categoryName == null) {
+            throw new LibraryException("Category does not exist");
+        }
+        String key = BookImporter.bookKey(name, author);
+        if (idsByTitle.get(key) != ObjectIntMap.MISSING) {
+            throw new LibraryException("Book already exists in the library");
+        }
+        int id = lastId.incrementAndGet();
+        if (!idsByTitle.putIfAbsent(key, id)) {
+            throw new LibraryException("Book already exists in the library");
+        }
+        Entry entry = new Entry(id, name, author, categoryName, null, 0, 0);
+        Stripe stripe = stripeFor(id);
+        stripe.lock.writeLock().lock();
+        try {
+            store.journal().bookAdded(id, name, author, categoryName);
+            stripe.books.put(id, entry);
+        } catch (LibraryException e) {
+            idsByTitle.remove(key, id);
+            throw e;
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+        indexCategory(id, categoryName);
+        compactIfDue();
+        return entry;
+    }
+
+    /**
+     * Loads books from a CSV/TSV file in the format {@link BookImporter} reads; rejected rows go
+     * to {@code rejectFile} with the reason appended.
+     */
+    @Override
+    public BookImporter.ImportResult importBooks(Path source, Path rejectFile) {
+        int before = size();
+        try {
+            return BookImporter.readRows(source, rejectFile, (name, author, category) -> {
+                try {
+                    add(name, author, category);
+                    return null;
+                } catch (LibraryException e) {
+                    return e.getMessage();
+                }
+            });
+        } catch (IOException e) {
+            throw new LibraryException("Import failed after " + (size() - before) + " rows: " + e.getMessage(), e);
+        } finally {
+            fireEvent(LibraryListener::catalogReloaded);
+        }
+    }
+
+    @Override
+    public double calculateFine(int bookId) {
+        Entry entry = read(bookId);
+        if (entry == null || !entry.isIssued()) {
+            return 0;
+        }
+        long daysOverdue = LocalDate.now().toEpochDay() - entry.returnEpochDay;
+        double fine = daysOverdue > 0 ? finePolicy.fineFor(daysOverdue) : 0;
+        if (fine > 0) {
+            logger.debug("Fine calculated for book ID {}: Rs.{} ({} days overdue)", bookId, fine, daysOverdue);
+        }
+        return fine;
+    }
+
+    @Override
+    public Book searchBook(int bookId) throws LibraryException {
+        Entry entry = read(bookId);
+        if (entry != null && !entry.isIssued()) {
+            Book book = entry.toBook();
+            logger.debug("Found book with ID {}: {} by {}", bookId, book.name(), book.author());
+            return book;
+        }
+        logger.debug("No available book found with ID: {}", bookId);
+        return null;
+    }
+
+    @Override
+    public boolean issueBook(String name, String author, String issuedTo, String returnDate, String issuedOn) {
+        LocalDate due;
+        LocalDate issued;
+        try {
+            due = LocalDate.parse(returnDate);
+            issued = LocalDate.parse(issuedOn);
+        } catch (DateTimeParseException e) {
+            throw new LibraryException("Invalid date, expected yyyy-MM-dd: " + e.getMessage());
+        }
+        int id = idsByTitle.get(BookImporter.bookKey(name, author));
+        if (id == ObjectIntMap.MISSING) {
+            throw new LibraryException("Book not available for issue");
+        }
+        IssuedBook issuedBook = issue(id, issuedTo, due, issued).toIssuedBook();
+        logger.info("Book issued successfully: {} to {}", name, issuedTo);
+        fireEvent(listener -> listener.bookIssued(issuedBook));
+        return true;
+    }
+
+    // Issues one book or throws with the same messages as the database backends
+    private Entry issue(int bookId, String issuedTo, LocalDate returnDate, LocalDate issuedOn) {
+        String borrower = issuedTo.toLowerCase(Locale.ROOT);
+        Stripe stripe = stripeFor(bookId);
+        Entry issued;
+        stripe.lock.writeLock().lock();
+        try {
+            Entry entry = stripe.books.get(bookId);
+            if (entry == null || entry.isIssued()) {
+                throw new LibraryException("Book not available for issue");
+            }
+            if (!idsByBorrower.putIfAbsent(borrower, bookId)) {
+                throw new LibraryException("User has already issued a book");
+            }
+            issued = entry.withLoan(issuedTo, returnDate.toEpochDay(), issuedOn.toEpochDay());
+            try {
+                store.journal().bookIssued(bookId, issuedTo, issued.returnEpochDay, issued.issuedOnEpochDay);
+            } catch (LibraryException e) {
+                idsByBorrower.remove(borrower, bookId);
+                throw e;
+            }
+            stripe.books.put(bookId, issued);
+            countLoan(YearMonth.from(issuedOn));
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+        compactIfDue();
+        return issued;
+    }
+
+    private void countLoan(YearMonth month) {
+        synchronized (loansPerMonth) {
+            long loans = loansPerMonth.merge(month, 1L, Long::sum);
+            try {
+                store.journal().loansCounted(month, loans);
+            } catch (LibraryException e) {
+                // The loan itself is journaled; only the history total is at risk
+                logger.warn("Failed to record loan count for {}: {}", month, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean returnBook(String name, String author) {
+        int id = idsByTitle.get(BookImporter.bookKey(name, author));
+        Entry returned = id == ObjectIntMap.MISSING ? null : giveBack(id);
+        if (returned == null) {
+            return false;
+        }
+        Book book = returned.toBook();
+        fireEvent(listener -> listener.bookReturned(book));
+        return true;
+    }
+
+    // Returns the book's new state, or null if it was not issued
+    private Entry giveBack(int bookId) {
+        Stripe stripe = stripeFor(bookId);
+        Entry returned;
+        stripe.lock.writeLock().lock();
+        try {
+            Entry entry = stripe.books.get(bookId);
+            if (entry == null || !entry.isIssued()) {
+                return null;
+            }
+            store.journal().bookReturned(bookId);
+            returned = entry.withoutLoan();
+            stripe.books.put(bookId, returned);
+            idsByBorrower.remove(entry.issuedTo.toLowerCase(Locale.ROOT), bookId);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+        compactIfDue();
+        return returned;
+    }
+
+    /**
+     * Issues several books. Each request is applied on its own; failures are reported in the
+     * result and do not stop the others.
+     */
+    @Override
+    public List<BatchItemResult> issueBooks(List<IssueRequest> requests) {
+        List<BatchItemResult> results = new ArrayList<>(requests.size());
+        int issued = 0;
+        for (IssueRequest request : requests) {
+            int bookId = request.getBookId();
+            try {
+                IssuedBook issuedBook = issue(bookId, request.getIssuedTo(), request.getReturnDate(),
+                        request.getIssuedOn()).toIssuedBook();
+                results.add(BatchItemResult.ok(bookId));
+                issued++;
+                fireEvent(listener -> listener.bookIssued(issuedBook));
+            } catch (LibraryException e) {
+                results.add(BatchItemResult.failed(bookId, read(bookId) == null ? "Book not found" : e.getMessage()));
+            }
+        }
+        logger.info("Batch issue: {} of {} books issued", issued, requests.size());
+        return results;
+    }
+
+    @Override
+    public List<BatchItemResult> returnBooks(List<Integer> bookIds) {
+        List<BatchItemResult> results = new ArrayList<>(bookIds.size());
+        int returned = 0;
+        for (int bookId : bookIds) {
+            Entry entry = giveBack(bookId);
+            if (entry == null) {
+                results.add(BatchItemResult.failed(bookId, read(bookId) == null ? "Book not found" : "Book is not issued"));
+                continue;
+            }
+            results.add(BatchItemResult.ok(bookId));
+            returned++;
+            Book book = entry.toBook();
+            fireEvent(listener -> listener.bookReturned(book));
+        }
+        logger.info("Batch return: {} of {} books returned", returned, bookIds.size());
+        return results;
+    }
+
+    @Override
+    public boolean isBookExistsInLibrary(String name, String author) {
+        return idsByTitle.get(BookImporter.bookKey(name, author)) != ObjectIntMap.MISSING;
+    }
+
+    @Override
+    public boolean isBookInLibrary(String name, String author) {
+        return isBookExistsInLibrary(name, author);
+    }
+
+    @Override
+    public boolean removeBook(String name, String author) {
+        String key = BookImporter.bookKey(name, author);
+        int id = idsByTitle.get(key);
+        if (id == ObjectIntMap.MISSING) {
+            throw new LibraryException("Book not found");
+        }
+        Stripe stripe = stripeFor(id);
+        Entry removed;
+        stripe.lock.writeLock().lock();
+        try {
+            removed = stripe.books.get(id);
+            if (removed == null) {
+                throw new LibraryException("Book not found");
+            }
+            if (removed.isIssued()) {
+                throw new LibraryException("Cannot remove book as it is currently issued");
+            }
+            store.journal().bookRemoved(id);
+            stripe.books.remove(id);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+        idsByTitle.remove(key, id);
+        unindexCategory(removed);
+        logger.info("Book removed: {} by {} (ID {})", name, author, id);
+        compactIfDue();
+        Book book = removed.toBook();
+        fireEvent(listener -> listener.bookRemoved(book));
+        return true;
+    }
+
+    @Override
+    public boolean isBookIssued(String name, String author) {
+        int id = idsByTitle.get(BookImporter.bookKey(name, author));
+        Entry entry = id == ObjectIntMap.MISSING ? null : read(id);
+        return entry != null && entry.isIssued();
+    }
+
+    @Override
+    public Book getBookById(int id) {
+        Entry entry = read(id);
+        return entry == null ? null : entry.toBook();
+    }
+
+    @Override
+    public SortedMap<YearMonth, Long> getLoansPerMonth(YearMonth from, YearMonth to) {
+        SortedMap<YearMonth, Long> loans = new TreeMap<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            loans.put(month, 0L);
+        }
+        synchronized (loansPerMonth) {
+            loans.putAll(loansPerMonth.subMap(from, to.plusMonths(1)));
+        }
+        return loans;
+    }
+
+    @Override
+    public void addLibraryListener(LibraryListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeLibraryListener(LibraryListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Folds the journal into a new snapshot. Changes wait until the snapshot is written.
+     */
+    public void snapshot() {
+        lockAll();
+        try {
+            long start = System.nanoTime();
+            store.compact(out -> {
+                out.lastIdAssigned(lastId.get());
+                categories.values().forEach(out::categoryAdded);
+                for (Stripe stripe : stripes) {
+                    stripe.books.forEachValue(entry -> {
+                        out.bookAdded(entry.id, entry.name, entry.author, entry.category);
+                        if (entry.isIssued()) {
+                            out.bookIssued(entry.id, entry.issuedTo, entry.returnEpochDay, entry.issuedOnEpochDay);
+                        }
+                    });
+                }
+                synchronized (loansPerMonth) {
+                    loansPerMonth.forEach(out::loansCounted);
+                }
+            });
+            logger.debug("Catalog snapshot written in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    long getJournalRecords() {
+        return store.getJournalRecords();
+    }
+
+    // Called after a change, outside its stripe lock; one caller compacts while the rest carry on
+    private void compactIfDue() {
+        if (compactAfterRecords > 0 && store.getJournalRecords() >= compactAfterRecords
+                && compacting.compareAndSet(false, true)) {
+            try {
+                snapshot();
+            } catch (LibraryException e) {
+                // The change that got us here is journaled; the next one tries again
+                logger.warn("Failed to compact catalog journal: {}", e.getMessage());
+            } finally {
+                compacting.set(false);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        snapshot();
+        store.close();
+        logger.info("In-memory catalog saved");
+    }
+
+    private Stripe stripeFor(int id) {
+        return stripes[id & (STRIPES - 1)];
+    }
+
+    private Entry read(int id) {
+        Stripe stripe = stripeFor(id);
+        Lock lock = stripe.lock.readLock();
+        lock.lock();
+        try {
+            return stripe.books.get(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // IDs are dense and only grow, so walking the range visits books in ID order
+    private void scan(int afterId, Predicate<Entry> filter, Consumer<Entry> action, int limit) {
+        int last = lastId.get();
+        int found = 0;
+        for (int id = Math.max(afterId, 0) + 1; id <= last && found < limit; id++) {
+            Entry entry = read(id);
+            if (entry != null && filter.test(entry)) {
+                action.accept(entry);
+                found++;
+            }
+        }
+    }
+
+    private void indexCategory(int id, String category) {
+        if (category != null) {
+            IntSet ids = idsByCategory.computeIfAbsent(category.toLowerCase(Locale.ROOT), k -> new IntSet(1024));
+            synchronized (ids) {
+                ids.add(id);
+            }
+        }
+    }
+
+    private void unindexCategory(Entry entry) {
+        if (entry.category != null) {
+            IntSet ids = idsByCategory.get(entry.category.toLowerCase(Locale.ROOT));
+            if (ids != null) {
+                synchronized (ids) {
+                    ids.remove(entry.id);
+                }
+            }
+        }
+    }
+
+    private void rebuildIndexes() {
+        // Catalogs saved before loans were counted start from the loans open now
+        boolean countLoans = loansPerMonth.isEmpty();
+        for (Stripe stripe : stripes) {
+            stripe.books.forEachValue(entry -> {
+                idsByTitle.put(BookImporter.bookKey(entry.name, entry.author), entry.id);
+                indexCategory(entry.id, entry.category);
+                if (entry.isIssued()) {
+                    idsByBorrower.put(entry.issuedTo.toLowerCase(Locale.ROOT), entry.id);
+                    if (countLoans) {
+                        loansPerMonth.merge(YearMonth.from(LocalDate.ofEpochDay(entry.issuedOnEpochDay)), 1L, Long::sum);
+                    }
+                }
+            });
+        }
+    }
+
+    private void lockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    private void fireEvent(Consumer<LibraryListener> event) {
+        for (LibraryListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                logger.error("Library listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Lower-cased keys to book IDs without boxing the IDs. Split into segments by key hash, like
+     * the books are by ID, so lookups of different keys rarely share a lock.
+     */
+    private static final class IdIndex {
+        private final Segment[] segments = new Segment[STRIPES];
+
+        IdIndex() {
+            for (int i = 0; i < STRIPES; i++) {
+                segments[i] = new Segment();
+            }
+        }
+
+        // Returns ObjectIntMap.MISSING if the key has no book
+        int get(String key) {
+            Segment segment = segmentFor(key);
+            segment.lock.readLock().lock();
+            try {
+                return segment.ids.get(key);
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+
+        // Returns false, leaving the index unchanged, if the key already has a book
+        boolean putIfAbsent(String key, int id) {
+            Segment segment = segmentFor(key);
+            segment.lock.writeLock().lock();
+            try {
+                if (segment.ids.get(key) != ObjectIntMap.MISSING) {
+                    return false;
+                }
+                segment.ids.put(key, id);
+                return true;
+            } finally {
+                segment.lock.writeLock().unlock();
+            }
+        }
+
+        void put(String key, int id) {
+            Segment segment = segmentFor(key);
+            segment.lock.writeLock().lock();
+            try {
+                segment.ids.put(key, id);
+            } finally {
+                segment.lock.writeLock().unlock();
+            }
+        }
+
+        // Removes the key only while it still maps to id
+        void remove(String key, int id) {
+            Segment segment = segmentFor(key);
+            segment.lock.writeLock().lock();
+            try {
+                if (segment.ids.get(key) == id) {
+                    segment.ids.remove(key);
+                }
+            } finally {
+                segment.lock.writeLock().unlock();
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (Segment segment : segments) {
+                segment.lock.readLock().lock();
+                try {
+                    size += segment.ids.size();
+                } finally {
+                    segment.lock.readLock().unlock();
+                }
+            }
+            return size;
+        }
+
+        private Segment segmentFor(String key) {
+            int hash = key.hashCode();
+            return segments[(hash ^ hash >>> 16) & (STRIPES - 1)];
+        }
+
+        private static final class Segment {
+            private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+            private final ObjectIntMap<String> ids = new ObjectIntMap<>(256);
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final IntObjectMap<Entry> books = new IntObjectMap<>(1024);
+    }
+
+    /**
+     * One book. Immutable, so readers can use an entry after releasing the stripe lock.
+     */
+    private static final class Entry {
+        private final int id;
+        private final String name;
+        private final String author;
+        private final String category;
+        private final String issuedTo;
+        private final long returnEpochDay;
+        private final long issuedOnEpochDay;
+
+        Entry(int id, String name, String author, String category, String issuedTo, long returnEpochDay,
+                long issuedOnEpochDay) {
+            this.id = id;
+            this.name = name;
+            this.author = author;
+            this.category = category;
+            this.issuedTo = issuedTo;
+            this.returnEpochDay = returnEpochDay;
+            this.issuedOnEpochDay = issuedOnEpochDay;
+        }
+
+        boolean isIssued() {
+            return issuedTo != null;
+        }
+
+        Entry withLoan(String borrower, long returnDay, long issuedOnDay) {
+            return new Entry(id, name, author, category, borrower, returnDay, issuedOnDay);
+        }
+
+        Entry withoutLoan() {
+            return new Entry(id, name, author, category, null, 0, 0);
+        }
+
+        Entry withCategory(String newCategory) {
+            return new Entry(id, name, author, newCategory, issuedTo, returnEpochDay, issuedOnEpochDay);
+        }
+
+        Book toBook() {
+            return new Book(id, name, author, category);
+        }
+
+        IssuedBook toIssuedBook() {
+            return new IssuedBook(toBook(), issuedTo, (int) returnEpochDay, (int) issuedOnEpochDay);
+        }
+    }
+
+    /**
+     * Applies snapshot and journal records while loading. Records only set state; the secondary
+     * indexes are rebuilt once everything has been read.
+     */
+    private final class Replay implements CatalogStore.Changes {
+        @Override
+        public void categoryAdded(String category) {
+            categories.putIfAbsent(category.toLowerCase(Locale.ROOT), category);
+        }
+
+        @Override
+        public void bookAdded(int id, String name, String author, String category) {
+            stripeFor(id).books.put(id, new Entry(id, name, author, category, null, 0, 0));
+            lastId.accumulateAndGet(id, Math::max);
+        }
+
+        @Override
+        public void categoryAssigned(int id, String category) {
+            Entry entry = stripeFor(id).books.get(id);
+            if (entry != null) {
+                stripeFor(id).books.put(id, entry.withCategory(category));
+            }
+        }
+
+        @Override
+        public void bookIssued(int id, String issuedTo, long returnEpochDay, long issuedOnEpochDay) {
+            Entry entry = stripeFor(id).books.get(id);
+            if (entry != null) {
+                stripeFor(id).books.put(id, entry.withLoan(issuedTo, returnEpochDay, issuedOnEpochDay));
+            }
+        }
+
+        @Override
+        public void bookReturned(int id) {
+            Entry entry = stripeFor(id).books.get(id);
+            if (entry != null) {
+                stripeFor(id).books.put(id, entry.withoutLoan());
+            }
+        }
+
+        @Override
+        public void bookRemoved(int id) {
+            stripeFor(id).books.remove(id);
+        }
+
+        @Override
+        public void loansCounted(YearMonth month, long loans) {
+            loansPerMonth.put(month, loans);
+        }
+
+        @Override
+        public void lastIdAssigned(int id) {
+            lastId.accumulateAndGet(id, Math::max);
+        }
+    }
+}
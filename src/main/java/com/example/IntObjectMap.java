@@ -0,0 +1,126 @@
+package com.example;
+
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash map from positive {@code int} keys to objects, without boxing the keys.
+ * Linear probing with backward-shift deletion, so there are no tombstones. Not thread-safe.
+ */
+final class IntObjectMap<V> {
+    private static final int EMPTY = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int resizeAt;
+
+    IntObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) {
+                return (V) values[i];
+            } else if (k == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(int key, V value) {
+        if (key <= EMPTY) {
+            throw new IllegalArgumentException("Keys must be positive: " + key);
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(int key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) {
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+        V previous = (V) values[i];
+        // Pull later entries of the same probe run back into the hole
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+        size--;
+        return previous;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEachValue(Consumer<? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept((V) values[i]);
+            }
+        }
+    }
+
+    private static int slot(int key, int mask) {
+        // Fibonacci hashing spreads sequential IDs across the table
+        int hash = key * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
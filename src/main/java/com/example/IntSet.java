@@ -0,0 +1,115 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of positive {@code int}s, without boxing. Linear probing with
+ * backward-shift deletion like {@link IntObjectMap}. Not thread-safe.
+ */
+final class IntSet {
+    private static final int EMPTY = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private int size;
+    private int resizeAt;
+
+    IntSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    boolean contains(int key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) {
+                return true;
+            } else if (k == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    boolean add(int key) {
+        if (key <= EMPTY) {
+            throw new IllegalArgumentException("Keys must be positive: " + key);
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return false;
+            }
+        }
+        keys[i] = key;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    boolean remove(int key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        // Pull later entries of the same probe run back into the hole
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] toSortedArray() {
+        int[] sorted = new int[size];
+        int n = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                sorted[n++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int slot(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int key : oldKeys) {
+            if (key != EMPTY) {
+                int i = slot(key, mask);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example;
+
+import java.time.LocalDate;
+
+public class IssueRequest {
+    private final int bookId;
+    private final String issuedTo;
+    private final LocalDate returnDate;
+    private final LocalDate issuedOn;
+
+    public IssueRequest(int bookId, String issuedTo, LocalDate returnDate, LocalDate issuedOn) {
+        this.bookId = bookId;
+        this.issuedTo = issuedTo;
+        this.returnDate = returnDate;
+        this.issuedOn = issuedOn;
+    }
+
+    public int getBookId() {
+        return bookId;
+    }
+
+    public String getIssuedTo() {
+        return issuedTo;
+    }
+
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+
+    public LocalDate getIssuedOn() {
+        return issuedOn;
+    }
+}
@@ -1,79 +1,56 @@
 package com.example;
 
-public class IssuedBook {
-    private int id;
-    private String name;
-    private String author;
-    private String category;
-    private String issuedTo;
-    private String returnDate;
-    private String issuedOn;
+import java.time.LocalDate;
 
-    public IssuedBook(int id, String name, String author, String category, String issuedTo, String returnDate,
-            String issuedOn) {
-        this.id = id;
-        this.name = name;
-        this.author = author;
-        this.category = category;
-        this.issuedTo = issuedTo;
-        this.returnDate = returnDate;
-        this.issuedOn = issuedOn;
-    }
-
-    // Getters and setters for each field
-    public int getId() {
-        return id;
-    }
-
-    public void setId(int id) {
-        this.id = id;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public void setName(String name) {
-        this.name = name;
-    }
-
-    public String getAuthor() {
-        return author;
-    }
+/**
+ * A book on loan. Refers to its {@link Book} instead of copying the catalog fields, and keeps the
+ * dates as epoch days; {@link #returnDate()} and {@link #issuedOn()} build a {@link LocalDate} only
+ * when asked.
+ */
+public record IssuedBook(Book book, String issuedTo, int returnEpochDay, int issuedOnEpochDay) {
+    // Stands in for a missing date on loans recorded before issued_on existed
+    public static final int NO_DATE = Integer.MIN_VALUE;
 
-    public void setAuthor(String author) {
-        this.author = author;
+    public IssuedBook(Book book, String issuedTo, LocalDate returnDate, LocalDate issuedOn) {
+        this(book, issuedTo, epochDay(returnDate), epochDay(issuedOn));
     }
 
-    public String getCategory() {
-        return category;
+    public IssuedBook(int id, String name, String author, String category, String issuedTo, LocalDate returnDate,
+            LocalDate issuedOn) {
+        this(new Book(id, name, author, category), issuedTo, returnDate, issuedOn);
     }
 
-    public void setCategory(String category) {
-        this.category = category;
+    public int id() {
+        return book.id();
     }
 
-    public String getIssuedTo() {
-        return issuedTo;
+    public String name() {
+        return book.name();
     }
 
-    public void setIssuedTo(String issuedTo) {
-        this.issuedTo = issuedTo;
+    public String author() {
+        return book.author();
     }
 
-    public String getReturnDate() {
-        return returnDate;
+    public String categoryName() {
+        return book.categoryName();
     }
 
-    public void setReturnDate(String returnDate) {
-        this.returnDate = returnDate;
+    /**
+     * Returns the due date, or {@code null} if none was recorded.
+     */
+    public LocalDate returnDate() {
+        return returnEpochDay != NO_DATE ? LocalDate.ofEpochDay(returnEpochDay) : null;
     }
 
-    public String getIssuedOn() {
-        return issuedOn;
+    /**
+     * Returns the issue date, or {@code null} if none was recorded.
+     */
+    public LocalDate issuedOn() {
+        return issuedOnEpochDay != NO_DATE ? LocalDate.ofEpochDay(issuedOnEpochDay) : null;
     }
 
-    public void setIssuedOn(String issuedOn) {
-        this.issuedOn = issuedOn;
+    private static int epochDay(LocalDate date) {
+        return date != null ? Math.toIntExact(date.toEpochDay()) : NO_DATE;
     }
-}
\ No newline at end of file
+}
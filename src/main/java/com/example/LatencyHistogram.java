@@ -0,0 +1,100 @@
+package com.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size log-linear histogram of nanosecond durations, in the style of HdrHistogram: each
+ * power of two is split into {@value #SUB_BUCKETS} equal buckets, so percentiles are within about
+ * 3% of the recorded value at any magnitude. Recording is lock-free and allocation-free.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int FULL = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKETS = FULL / 2;
+    // Values below FULL map to themselves; each higher power of two adds SUB_BUCKETS buckets
+    private static final int BUCKETS = FULL + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        totalNanos.add(value);
+        if (value > maxNanos.get()) {
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < FULL) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return FULL + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // The largest value that falls into the bucket
+    static long highestValueIn(int bucket) {
+        if (bucket < FULL) {
+            return bucket;
+        }
+        int shift = (bucket - FULL) / SUB_BUCKETS + 1;
+        long top = (bucket - FULL) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) totalNanos.sum() / n;
+    }
+
+    /**
+     * Returns the value below which {@code percentile} percent of the recordings fall, or 0 when
+     * nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+}
@@ -1,41 +1,100 @@
 package com.example;
 
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
-import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
 //import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 //import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.Stage;
+import javafx.util.Callback;
+import javafx.util.Duration;
 import javafx.util.StringConverter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import java.io.File;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 public class LibraryApp extends Application {
     private TableView<Book> bookTable;
     private TableView<IssuedBook> issuedBookTable;
-    private MyLibrary library;
+    private AsyncLibrary library;
+    private FxStallMonitor stallMonitor;
+    private FineEngine fineEngine;
+    private ReportEngine reportEngine;
+    private LibraryMetrics metrics;
+    private LibraryStatistics statistics;
+    private OverdueTracker overdueTracker;
+    private Timeline dashboardRefresh;
     private Tab booksTab;
     private static final Logger logger = LogManager.getLogger(LibraryApp.class);
     private ObservableList<Book> booksList;
     private FilteredList<Book> filteredBooks;
     private ObservableList<IssuedBook> issuedBooksList;
     private FilteredList<IssuedBook> filteredIssuedBooks;
+    private ComboBox<String> categoryComboBox;
+
+    // Tables are filled one keyset page at a time as the user scrolls
+    private static final int PAGE_SIZE = 200;
+    private static final int SEARCH_LIMIT = 50;
+    private static final DateTimeFormatter DISPLAY_DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter DISPLAY_TIME =
+            DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss").withZone(ZoneId.systemDefault());
+    private int booksCursor;
+    private boolean moreBooks;
+    private boolean loadingBooks;
+    private int booksGeneration;
+    private int issuedBooksCursor;
+    private boolean moreIssuedBooks;
+    private boolean loadingIssuedBooks;
+    private int issuedBooksGeneration;
 
     @Override
     public void start(Stage primaryStage) {
         try {
-            library = new MyLibrary();
+            LibraryRepository repository = DBHelper.createRepository();
+            String fineRunAt = DBHelper.getProperty("library.fine.runAt", "02:00");
+            if (repository instanceof MyLibrary && !fineRunAt.isBlank()) {
+                fineEngine = ((MyLibrary) repository).createFineEngine();
+                fineEngine.scheduleDaily(LocalTime.parse(fineRunAt.trim()));
+            }
+            if (repository instanceof MyLibrary) {
+                reportEngine = ((MyLibrary) repository).createReportEngine();
+            }
+            metrics = LibraryMetrics.fromConfig();
+            if (metrics != null) {
+                repository = metrics.instrument(repository);
+            }
+            library = new AsyncLibrary(repository, CatalogCache.create(repository), SearchIndex.create(repository));
+            statistics = LibraryStatistics.start(repository);
+            overdueTracker = OverdueTracker.start(repository);
+            String reminderRunAt = DBHelper.getProperty("library.reminders.runAt", "");
+            if (!reminderRunAt.isBlank()) {
+                overdueTracker.scheduleDaily(LocalTime.parse(reminderRunAt.trim()));
+            }
+            stallMonitor = new FxStallMonitor(100, 50);
 
             TabPane tabPane = new TabPane();
             tabPane.setTabMinWidth(100);
@@ -44,10 +103,14 @@ public class LibraryApp extends Application {
             booksTab = new Tab("Books");
             Tab issueTab = new Tab("Issue Book");
             Tab issuedBooksTab = new Tab("Issued Books");
+            Tab searchTab = new Tab("Search");
+            Tab dashboardTab = new Tab("Dashboard");
 
             booksTab.setContent(createBooksTab());
             issueTab.setContent(createIssueTab());
             issuedBooksTab.setContent(createIssuedBooksTab());
+            searchTab.setContent(createSearchTab());
+            dashboardTab.setContent(createDashboardTab(dashboardTab));
 
             Label booksLabel = new Label("Books");
             booksLabel.setGraphic(new Text("📚"));
@@ -64,7 +127,18 @@ public class LibraryApp extends Application {
             issuedBooksTab.setGraphic(issuedBooksLabel);
             issuedBooksTab.setClosable(false);
 
-            tabPane.getTabs().addAll(booksTab, issueTab, issuedBooksTab);
+            Label searchLabel = new Label("Search");
+            searchLabel.setGraphic(new Text("🔍"));
+            searchTab.setGraphic(searchLabel);
+            searchTab.setClosable(false);
+
+            Label dashboardLabel = new Label("Dashboard");
+            dashboardLabel.setGraphic(new Text("📊"));
+            dashboardTab.setGraphic(dashboardLabel);
+            dashboardTab.setClosable(false);
+
+            tabPane.getTabs().addAll(booksTab, issueTab, issuedBooksTab, searchTab, dashboardTab);
+            library.getLibrary().addLibraryListener(new TableUpdater());
 
             Scene scene = new Scene(tabPane, 900, 700);
             scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
@@ -100,13 +174,8 @@ public class LibraryApp extends Application {
         Label authorLabel = new Label("Author:");
         TextField authorField = new TextField();
         Label categoryLabel = new Label("Category:");
-        ComboBox<String> categoryComboBox = new ComboBox<>();
-
-        try {
-            categoryComboBox.getItems().addAll(library.getCategories());
-        } catch (LibraryException e) {
-            showError("Error loading categories", e.getMessage());
-        }
+        categoryComboBox = new ComboBox<>();
+        loadCategories();
 
         Button addButton = new Button("Add Book");
         addButton.setOnAction(e -> {
@@ -119,17 +188,18 @@ public class LibraryApp extends Application {
                 return;
             }
 
-            try {
-                if (library.addBook(name, author, category)) {
+            addButton.setDisable(true);
+            library.addBook(name, author, category).whenCompleteAsync((added, error) -> {
+                addButton.setDisable(false);
+                if (error != null) {
+                    showFailure("Error", error);
+                } else if (added) {
                     showSuccess("Success", "Book added successfully");
                     nameField.clear();
                     authorField.clear();
                     categoryComboBox.setValue(null);
-                    refreshBookTable();
                 }
-            } catch (LibraryException ex) {
-                showError("Error", ex.getMessage());
-            }
+            }, AsyncLibrary.FX_THREAD);
         });
 
         addBookGrid.add(nameLabel, 0, 0);
@@ -153,17 +223,18 @@ public class LibraryApp extends Application {
         bookTable = new TableView<>();
         bookTable.getStyleClass().add("table-view");
         setupBookTableColumns();
+        loadMoreOnScroll(bookTable, this::loadMoreBooks);
 
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            filteredBooks.setPredicate(book -> {
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
-                }
-                String lowerCaseFilter = newValue.toLowerCase();
-                return book.getName().toLowerCase().contains(lowerCaseFilter) ||
-                        book.getAuthor().toLowerCase().contains(lowerCaseFilter) ||
-                        book.getCategory().toLowerCase().contains(lowerCaseFilter);
-            });
+            if (newValue == null || newValue.isEmpty()) {
+                filteredBooks.setPredicate(null);
+                return;
+            }
+            String lowerCaseFilter = newValue.toLowerCase();
+            filteredBooks.setPredicate(book -> book.name().toLowerCase().contains(lowerCaseFilter) ||
+                    book.author().toLowerCase().contains(lowerCaseFilter) ||
+                    book.categoryName().toLowerCase().contains(lowerCaseFilter));
+            fillBooksFilter();
         });
 
         Button removeButton = new Button("Remove Selected Book");
@@ -181,14 +252,13 @@ public class LibraryApp extends Application {
                 return;
             }
 
-            try {
-                if (library.removeBook(selectedBook.getName(), selectedBook.getAuthor())) {
+            library.removeBook(selectedBook.name(), selectedBook.author()).whenCompleteAsync((removed, error) -> {
+                if (error != null) {
+                    showFailure("Error", error);
+                } else if (removed) {
                     showSuccess("Success", "Book removed successfully");
-                    refreshBookTable();
                 }
-            } catch (LibraryException ex) {
-                showError("Error", ex.getMessage());
-            }
+            }, AsyncLibrary.FX_THREAD);
         });
 
         booksListContainer.getChildren().addAll(searchField, bookTable, removeButton);
@@ -200,6 +270,19 @@ public class LibraryApp extends Application {
         return booksLayout;
     }
 
+    private void loadCategories() {
+        library.getCategories().whenCompleteAsync((categories, error) -> {
+            if (error != null) {
+                showFailure("Error loading categories", error);
+                return;
+            }
+            // Keep the user's choice if it survived the change
+            String selected = categoryComboBox.getValue();
+            categoryComboBox.getItems().setAll(categories);
+            categoryComboBox.setValue(categories.contains(selected) ? selected : null);
+        }, AsyncLibrary.FX_THREAD);
+    }
+
     private VBox createIssueTab() {
         VBox mainContainer = new VBox(20);
         mainContainer.setPadding(new Insets(20));
@@ -259,27 +342,30 @@ public class LibraryApp extends Application {
         });
 
         bookIdField.textProperty().addListener((observable, oldValue, newValue) -> {
-            if (!newValue.trim().isEmpty()) {
-                try {
-                    int bookId = Integer.parseInt(newValue);
-                    Book book = library.searchBook(bookId);
-                    if (book != null) {
-                        bookNameField.setText(book.getName());
-                        authorField.setText(book.getAuthor());
-                    } else {
-                        bookNameField.clear();
-                        authorField.clear();
-                    }
-                } catch (NumberFormatException e) {
-                    bookNameField.clear();
-                    authorField.clear();
-                } catch (LibraryException e) {
-                    showError("Error", e.getMessage());
-                }
-            } else {
+            int bookId;
+            try {
+                bookId = Integer.parseInt(newValue.trim());
+            } catch (NumberFormatException e) {
+                library.cancelPendingLookup();
                 bookNameField.clear();
                 authorField.clear();
+                return;
             }
+            // Each keystroke supersedes the previous lookup
+            library.searchBookLatest(bookId).whenCompleteAsync((book, error) -> {
+                if (error instanceof CancellationException) {
+                    return;
+                }
+                if (error != null) {
+                    showFailure("Error", error);
+                } else if (book != null) {
+                    bookNameField.setText(book.name());
+                    authorField.setText(book.author());
+                } else {
+                    bookNameField.clear();
+                    authorField.clear();
+                }
+            }, AsyncLibrary.FX_THREAD);
         });
 
         Button issueButton = new Button("Issue Book");
@@ -294,24 +380,25 @@ public class LibraryApp extends Application {
                 return;
             }
 
-            try {
-                // Convert to database format (yyyy-MM-dd)
-                String formattedReturnDate = returnDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                String formattedIssuedDate = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-
-                if (library.issueBook(bookName, author, issuedTo, formattedReturnDate, formattedIssuedDate)) {
-                    showSuccess("Success", "Book issued successfully");
-                    bookIdField.clear();
-                    bookNameField.clear();
-                    authorField.clear();
-                    issuedToField.clear();
-                    returnDatePicker.setValue(LocalDate.now().plusDays(1));
-                    refreshIssuedBooksTable();
-                    refreshBookTable();
-                }
-            } catch (LibraryException ex) {
-                showError("Error", ex.getMessage());
-            }
+            // Convert to database format (yyyy-MM-dd)
+            String formattedReturnDate = returnDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+            String formattedIssuedDate = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+
+            issueButton.setDisable(true);
+            library.issueBook(bookName, author, issuedTo, formattedReturnDate, formattedIssuedDate)
+                    .whenCompleteAsync((issued, error) -> {
+                        issueButton.setDisable(false);
+                        if (error != null) {
+                            showFailure("Error", error);
+                        } else if (issued) {
+                            showSuccess("Success", "Book issued successfully");
+                            bookIdField.clear();
+                            bookNameField.clear();
+                            authorField.clear();
+                            issuedToField.clear();
+                            returnDatePicker.setValue(LocalDate.now().plusDays(1));
+                        }
+                    }, AsyncLibrary.FX_THREAD);
         });
 
         formContainer.getChildren().addAll(
@@ -337,42 +424,61 @@ public class LibraryApp extends Application {
         issuedBookTable = new TableView<>();
         issuedBookTable.getStyleClass().add("table-view");
         setupIssuedBookTableColumns();
+        loadMoreOnScroll(issuedBookTable, this::loadMoreIssuedBooks);
 
         issuedBooksList = FXCollections.observableArrayList();
         filteredIssuedBooks = new FilteredList<>(issuedBooksList);
         issuedBookTable.setItems(filteredIssuedBooks);
 
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            filteredIssuedBooks.setPredicate(book -> {
-                if (newValue == null || newValue.isEmpty()) {
-                    return true;
-                }
-                String lowerCaseFilter = newValue.toLowerCase();
-                return book.getName().toLowerCase().contains(lowerCaseFilter) ||
-                        book.getAuthor().toLowerCase().contains(lowerCaseFilter) ||
-                        book.getCategory().toLowerCase().contains(lowerCaseFilter) ||
-                        book.getIssuedTo().toLowerCase().contains(lowerCaseFilter);
-            });
+            if (newValue == null || newValue.isEmpty()) {
+                filteredIssuedBooks.setPredicate(null);
+                return;
+            }
+            String lowerCaseFilter = newValue.toLowerCase();
+            filteredIssuedBooks.setPredicate(book -> book.name().toLowerCase().contains(lowerCaseFilter) ||
+                    book.author().toLowerCase().contains(lowerCaseFilter) ||
+                    book.categoryName().toLowerCase().contains(lowerCaseFilter) ||
+                    book.issuedTo().toLowerCase().contains(lowerCaseFilter));
+            fillIssuedBooksFilter();
         });
 
-        Button returnButton = new Button("Return Selected Book");
+        Button returnButton = new Button("Return Selected Books");
         returnButton.getStyleClass().add("action-button");
 
+        // Several books can be returned at once (shift/ctrl-click)
+        issuedBookTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
         returnButton.setOnAction(e -> {
-            IssuedBook selectedBook = issuedBookTable.getSelectionModel().getSelectedItem();
-            if (selectedBook == null) {
+            List<Integer> bookIds = issuedBookTable.getSelectionModel().getSelectedItems().stream()
+                    .map(IssuedBook::id)
+                    .toList();
+            if (bookIds.isEmpty()) {
                 showError("Error", "Please select a book to return");
                 return;
             }
-            try {
-                if (library.returnBook(selectedBook.getName(), selectedBook.getAuthor())) {
-                    showSuccess("Success", "Book returned successfully");
-                    refreshIssuedBooksTable();
-                    refreshBookTable();
+            returnButton.setDisable(true);
+            library.returnBooks(bookIds).whenCompleteAsync((results, error) -> {
+                returnButton.setDisable(false);
+                if (error != null) {
+                    showFailure("Error", error);
+                    return;
                 }
-            } catch (LibraryException ex) {
-                showError("Error", ex.getMessage());
-            }
+                List<BatchItemResult> failures = results.stream().filter(result -> !result.isSuccess()).toList();
+                if (failures.isEmpty()) {
+                    showSuccess("Success", results.size() == 1 ? "Book returned successfully"
+                            : results.size() + " books returned successfully");
+                } else {
+                    StringBuilder message = new StringBuilder()
+                            .append(results.size() - failures.size()).append(" of ").append(results.size())
+                            .append(" books returned.");
+                    for (BatchItemResult failure : failures) {
+                        message.append("\nBook ID ").append(failure.getBookId()).append(": ")
+                                .append(failure.getMessage());
+                    }
+                    showError("Some books were not returned", message.toString());
+                }
+            }, AsyncLibrary.FX_THREAD);
         });
 
         VBox tableContainer = new VBox(5);
@@ -388,68 +494,210 @@ public class LibraryApp extends Application {
         return issuedBooksLayout;
     }
 
+    private VBox createSearchTab() {
+        VBox searchLayout = new VBox(10);
+        searchLayout.setPadding(new Insets(10));
+
+        TextField queryField = new TextField();
+        queryField.setPromptText("Indexing catalog...");
+        queryField.setDisable(true);
+        Label resultLabel = new Label();
+
+        TableView<SearchIndex.Hit> resultTable = new TableView<>();
+        resultTable.getStyleClass().add("table-view");
+        TableColumn<SearchIndex.Hit, Integer> idColumn = new TableColumn<>("ID");
+        idColumn.setCellValueFactory(cellValue(SearchIndex.Hit::getId));
+        TableColumn<SearchIndex.Hit, String> nameColumn = new TableColumn<>("Name");
+        nameColumn.setCellValueFactory(cellValue(SearchIndex.Hit::getName));
+        TableColumn<SearchIndex.Hit, String> authorColumn = new TableColumn<>("Author");
+        authorColumn.setCellValueFactory(cellValue(SearchIndex.Hit::getAuthor));
+        TableColumn<SearchIndex.Hit, String> categoryColumn = new TableColumn<>("Category");
+        categoryColumn.setCellValueFactory(cellValue(SearchIndex.Hit::getCategory));
+        TableColumn<SearchIndex.Hit, String> statusColumn = new TableColumn<>("Status");
+        statusColumn.setCellValueFactory(cellValue(SearchIndex.Hit::getStatus));
+        resultTable.getColumns().add(idColumn);
+        resultTable.getColumns().add(nameColumn);
+        resultTable.getColumns().add(authorColumn);
+        resultTable.getColumns().add(categoryColumn);
+        resultTable.getColumns().add(statusColumn);
+        ObservableList<SearchIndex.Hit> results = FXCollections.observableArrayList();
+        resultTable.setItems(results);
+
+        queryField.textProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue == null || newValue.isBlank()) {
+                library.cancelPendingSearch();
+                results.clear();
+                resultLabel.setText("");
+                return;
+            }
+            // Each keystroke supersedes the previous search
+            library.searchLatest(newValue, SEARCH_LIMIT).whenCompleteAsync((hits, error) -> {
+                if (error instanceof CancellationException) {
+                    return;
+                }
+                if (error != null) {
+                    showFailure("Search failed", error);
+                    return;
+                }
+                results.setAll(hits);
+                resultLabel.setText(hits.size() == SEARCH_LIMIT ? "Showing the best " + SEARCH_LIMIT + " matches"
+                        : hits.size() + " matches");
+            }, AsyncLibrary.FX_THREAD);
+        });
+
+        library.rebuildSearchIndex().whenCompleteAsync((ignored, error) -> {
+            if (error != null) {
+                showFailure("Failed to index the catalog", error);
+                return;
+            }
+            queryField.setDisable(false);
+            queryField.setPromptText("Search by title or author...");
+        }, AsyncLibrary.FX_THREAD);
+
+        searchLayout.getChildren().addAll(queryField, resultLabel, resultTable);
+        return searchLayout;
+    }
+
+    // Reads the maintained counters, so refreshing costs the same at any catalog size
+    private VBox createDashboardTab(Tab dashboardTab) {
+        VBox dashboardLayout = new VBox(10);
+        dashboardLayout.setPadding(new Insets(10));
+
+        Label availableValue = new Label();
+        Label issuedValue = new Label();
+        Label overdueValue = new Label();
+        Label recountedValue = new Label();
+        GridPane totalsGrid = new GridPane();
+        totalsGrid.setHgap(10);
+        totalsGrid.setVgap(10);
+        totalsGrid.addRow(0, new Label("Available:"), availableValue);
+        totalsGrid.addRow(1, new Label("Issued:"), issuedValue);
+        totalsGrid.addRow(2, new Label("Overdue:"), overdueValue);
+        totalsGrid.addRow(3, new Label("Last recount:"), recountedValue);
+
+        TitledPane totalsPane = new TitledPane();
+        totalsPane.setText("Catalog");
+        totalsPane.setContent(totalsGrid);
+        totalsPane.setCollapsible(false);
+
+        TableView<LibraryStatistics.CategoryCounts> categoryTable = new TableView<>();
+        categoryTable.getStyleClass().add("table-view");
+        TableColumn<LibraryStatistics.CategoryCounts, String> categoryColumn = new TableColumn<>("Category");
+        categoryColumn.setCellValueFactory(cellValue(LibraryStatistics.CategoryCounts::category));
+        TableColumn<LibraryStatistics.CategoryCounts, Long> availableColumn = new TableColumn<>("Available");
+        availableColumn.setCellValueFactory(cellValue(LibraryStatistics.CategoryCounts::available));
+        TableColumn<LibraryStatistics.CategoryCounts, Long> issuedColumn = new TableColumn<>("Issued");
+        issuedColumn.setCellValueFactory(cellValue(LibraryStatistics.CategoryCounts::issued));
+        categoryTable.getColumns().add(categoryColumn);
+        categoryTable.getColumns().add(availableColumn);
+        categoryTable.getColumns().add(issuedColumn);
+        ObservableList<LibraryStatistics.CategoryCounts> categoryRows = FXCollections.observableArrayList();
+        categoryTable.setItems(categoryRows);
+
+        Runnable refresh = () -> {
+            LibraryStatistics.Snapshot snapshot = statistics.snapshot();
+            if (snapshot.reconciledAt() == null) {
+                recountedValue.setText("Counting...");
+                return;
+            }
+            availableValue.setText(String.valueOf(snapshot.available()));
+            issuedValue.setText(String.valueOf(snapshot.issued()));
+            overdueValue.setText(String.valueOf(snapshot.overdue()));
+            recountedValue.setText(DISPLAY_TIME.format(snapshot.reconciledAt()));
+            categoryRows.setAll(snapshot.categories().values());
+        };
+        dashboardRefresh = new Timeline(new KeyFrame(Duration.seconds(2), event -> {
+            if (dashboardTab.isSelected()) {
+                refresh.run();
+            }
+        }));
+        dashboardRefresh.setCycleCount(Timeline.INDEFINITE);
+        dashboardRefresh.play();
+        dashboardTab.setOnSelectionChanged(event -> {
+            if (dashboardTab.isSelected()) {
+                refresh.run();
+            }
+        });
+
+        Button exportButton = new Button("Export Report...");
+        // Reports are built with SQL, so the in-memory catalog has none
+        exportButton.setDisable(reportEngine == null);
+        exportButton.setOnAction(e -> {
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Export Report");
+            File directory = chooser.showDialog(exportButton.getScene().getWindow());
+            if (directory == null) {
+                return;
+            }
+            exportButton.setDisable(true);
+            reportEngine.export(LocalDate.now(), directory.toPath()).whenCompleteAsync((report, error) -> {
+                exportButton.setDisable(false);
+                if (error != null) {
+                    showFailure("Error exporting report", error);
+                } else {
+                    showSuccess("Report Exported", "Report written to " + directory + " in "
+                            + String.format("%.1f", report.getElapsedSeconds()) + " s");
+                }
+            }, AsyncLibrary.FX_THREAD);
+        });
+
+        dashboardLayout.getChildren().addAll(totalsPane, categoryTable, exportButton);
+        return dashboardLayout;
+    }
+
     private void setupBookTableColumns() {
         TableColumn<Book, Integer> idColumn = new TableColumn<>("ID");
-        idColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
-        idColumn.setSortType(TableColumn.SortType.ASCENDING);
+        idColumn.setCellValueFactory(cellValue(Book::id));
 
         TableColumn<Book, String> nameColumn = new TableColumn<>("Name");
-        nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
-        nameColumn.setSortType(TableColumn.SortType.ASCENDING);
+        nameColumn.setCellValueFactory(cellValue(Book::name));
 
         TableColumn<Book, String> authorColumn = new TableColumn<>("Author");
-        authorColumn.setCellValueFactory(new PropertyValueFactory<>("author"));
-        authorColumn.setSortType(TableColumn.SortType.ASCENDING);
+        authorColumn.setCellValueFactory(cellValue(Book::author));
 
         TableColumn<Book, String> categoryColumn = new TableColumn<>("Category");
-        categoryColumn.setCellValueFactory(new PropertyValueFactory<>("category"));
-        categoryColumn.setSortType(TableColumn.SortType.ASCENDING);
+        categoryColumn.setCellValueFactory(cellValue(Book::categoryName));
 
         bookTable.getColumns().add(idColumn);
         bookTable.getColumns().add(nameColumn);
         bookTable.getColumns().add(authorColumn);
         bookTable.getColumns().add(categoryColumn);
 
-        SortedList<Book> sortedData = new SortedList<>(filteredBooks);
-        sortedData.comparatorProperty().bind(bookTable.comparatorProperty());
-        bookTable.setItems(sortedData);
+        // Rows arrive a page at a time in ID order, so sorting would only reorder the loaded pages
+        bookTable.getColumns().forEach(column -> column.setSortable(false));
+        bookTable.setItems(filteredBooks);
     }
 
     private void setupIssuedBookTableColumns() {
         TableColumn<IssuedBook, Integer> idColumn = new TableColumn<>("ID");
-        idColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
+        idColumn.setCellValueFactory(cellValue(IssuedBook::id));
         idColumn.setPrefWidth(50);
-        idColumn.setSortType(TableColumn.SortType.ASCENDING);
 
         TableColumn<IssuedBook, String> nameColumn = new TableColumn<>("Book Name");
-        nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
+        nameColumn.setCellValueFactory(cellValue(IssuedBook::name));
         nameColumn.setPrefWidth(200);
-        nameColumn.setSortType(TableColumn.SortType.ASCENDING);
 
         TableColumn<IssuedBook, String> authorColumn = new TableColumn<>("Author");
-        authorColumn.setCellValueFactory(new PropertyValueFactory<>("author"));
+        authorColumn.setCellValueFactory(cellValue(IssuedBook::author));
         authorColumn.setPrefWidth(150);
-        authorColumn.setSortType(TableColumn.SortType.ASCENDING);
 
         TableColumn<IssuedBook, String> categoryColumn = new TableColumn<>("Category");
-        categoryColumn.setCellValueFactory(new PropertyValueFactory<>("category"));
+        categoryColumn.setCellValueFactory(cellValue(IssuedBook::categoryName));
         categoryColumn.setPrefWidth(100);
-        categoryColumn.setSortType(TableColumn.SortType.ASCENDING);
 
         TableColumn<IssuedBook, String> issuedToColumn = new TableColumn<>("Issued To");
-        issuedToColumn.setCellValueFactory(new PropertyValueFactory<>("issuedTo"));
+        issuedToColumn.setCellValueFactory(cellValue(IssuedBook::issuedTo));
         issuedToColumn.setPrefWidth(150);
-        issuedToColumn.setSortType(TableColumn.SortType.ASCENDING);
 
-        TableColumn<IssuedBook, String> issuedOnColumn = new TableColumn<>("Issued On");
-        issuedOnColumn.setCellValueFactory(new PropertyValueFactory<>("issuedOn"));
+        TableColumn<IssuedBook, LocalDate> issuedOnColumn = new TableColumn<>("Issued On");
+        issuedOnColumn.setCellValueFactory(cellValue(IssuedBook::issuedOn));
+        issuedOnColumn.setCellFactory(column -> new LoanDateCell());
         issuedOnColumn.setPrefWidth(100);
-        issuedOnColumn.setSortType(TableColumn.SortType.ASCENDING);
 
-        TableColumn<IssuedBook, String> returnDateColumn = new TableColumn<>("Return Date");
-        returnDateColumn.setCellValueFactory(new PropertyValueFactory<>("returnDate"));
+        TableColumn<IssuedBook, LocalDate> returnDateColumn = new TableColumn<>("Return Date");
+        returnDateColumn.setCellValueFactory(cellValue(IssuedBook::returnDate));
+        returnDateColumn.setCellFactory(column -> new LoanDateCell());
         returnDateColumn.setPrefWidth(100);
-        returnDateColumn.setSortType(TableColumn.SortType.ASCENDING);
 
         issuedBookTable.getColumns().add(idColumn);
         issuedBookTable.getColumns().add(nameColumn);
@@ -458,26 +706,250 @@ public class LibraryApp extends Application {
         issuedBookTable.getColumns().add(issuedToColumn);
         issuedBookTable.getColumns().add(issuedOnColumn);
         issuedBookTable.getColumns().add(returnDateColumn);
+        issuedBookTable.getColumns().forEach(column -> column.setSortable(false));
 
         // Enable column resizing
         issuedBookTable.setColumnResizePolicy(TableView.UNCONSTRAINED_RESIZE_POLICY);
     }
 
     private void refreshBookTable() {
-        try {
-            booksList.clear();
-            booksList.addAll(library.getAvailableBooks());
-        } catch (LibraryException e) {
-            showError("Error", "Failed to refresh books list: " + e.getMessage());
+        booksGeneration++;
+        booksList.clear();
+        booksCursor = 0;
+        moreBooks = true;
+        loadingBooks = false;
+        loadMoreBooks();
+    }
+
+    private void loadMoreBooks() {
+        if (!moreBooks || loadingBooks) {
+            return;
+        }
+        loadingBooks = true;
+        int generation = booksGeneration;
+        library.getAvailableBooksPage(booksCursor, PAGE_SIZE).whenCompleteAsync((page, error) -> {
+            if (generation != booksGeneration) {
+                return; // the table was refreshed while this page was loading
+            }
+            loadingBooks = false;
+            if (error != null) {
+                moreBooks = false;
+                showFailure("Failed to refresh books list", error);
+                return;
+            }
+            booksList.addAll(page.getItems());
+            booksCursor = page.getNextCursor();
+            moreBooks = page.hasMore();
+            fillBooksFilter();
+        }, AsyncLibrary.FX_THREAD);
+    }
+
+    /**
+     * Scrolling only loads more rows once there is a scroll bar, which a filter with few matches in
+     * the loaded pages never shows. Keep fetching until the filter has a page of rows or the
+     * catalog runs out.
+     */
+    private void fillBooksFilter() {
+        if (filteredBooks.getPredicate() != null && filteredBooks.size() < PAGE_SIZE) {
+            loadMoreBooks();
         }
     }
 
     private void refreshIssuedBooksTable() {
-        try {
-            issuedBooksList.clear();
-            issuedBooksList.addAll(library.getIssuedBooks());
-        } catch (LibraryException e) {
-            showError("Error", "Failed to refresh issued books list: " + e.getMessage());
+        issuedBooksGeneration++;
+        issuedBooksList.clear();
+        issuedBooksCursor = 0;
+        moreIssuedBooks = true;
+        loadingIssuedBooks = false;
+        loadMoreIssuedBooks();
+    }
+
+    private void loadMoreIssuedBooks() {
+        if (!moreIssuedBooks || loadingIssuedBooks) {
+            return;
+        }
+        loadingIssuedBooks = true;
+        int generation = issuedBooksGeneration;
+        library.getIssuedBooksPage(issuedBooksCursor, PAGE_SIZE).whenCompleteAsync((page, error) -> {
+            if (generation != issuedBooksGeneration) {
+                return;
+            }
+            loadingIssuedBooks = false;
+            if (error != null) {
+                moreIssuedBooks = false;
+                showFailure("Failed to refresh issued books list", error);
+                return;
+            }
+            issuedBooksList.addAll(page.getItems());
+            issuedBooksCursor = page.getNextCursor();
+            moreIssuedBooks = page.hasMore();
+            fillIssuedBooksFilter();
+        }, AsyncLibrary.FX_THREAD);
+    }
+
+    private void fillIssuedBooksFilter() {
+        if (filteredIssuedBooks.getPredicate() != null && filteredIssuedBooks.size() < PAGE_SIZE) {
+            loadMoreIssuedBooks();
+        }
+    }
+
+    // Fetches the next page when the table's vertical scroll bar nears the bottom
+    private void loadMoreOnScroll(TableView<?> table, Runnable loadMore) {
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> Platform.runLater(() -> {
+            for (Node node : table.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar scrollBar && scrollBar.getOrientation() == Orientation.VERTICAL) {
+                    scrollBar.valueProperty().addListener((o, oldValue, newValue) -> {
+                        if (newValue.doubleValue() >= scrollBar.getMax() * 0.9) {
+                            loadMore.run();
+                        }
+                    });
+                }
+            }
+        }));
+    }
+
+    // Patches the loaded rows in place when the library changes instead of re-querying both tables
+    private class TableUpdater implements LibraryListener {
+        @Override
+        public void bookAdded(Book book) {
+            onFxThread(() -> insertAvailableBook(book));
+        }
+
+        @Override
+        public void bookRemoved(Book book) {
+            onFxThread(() -> removeById(booksList, book.id(), Book::id));
+        }
+
+        @Override
+        public void bookIssued(IssuedBook issuedBook) {
+            onFxThread(() -> {
+                removeById(booksList, issuedBook.id(), Book::id);
+                insertIssuedBook(issuedBook);
+            });
+        }
+
+        @Override
+        public void bookReturned(Book book) {
+            onFxThread(() -> {
+                removeById(issuedBooksList, book.id(), IssuedBook::id);
+                insertAvailableBook(book);
+            });
+        }
+
+        @Override
+        public void bookUpdated(int bookId) {
+            onFxThread(() -> replaceBook(bookId));
+        }
+
+        @Override
+        public void categoriesChanged() {
+            onFxThread(LibraryApp.this::loadCategories);
+        }
+
+        @Override
+        public void catalogReloaded() {
+            onFxThread(() -> {
+                refreshBookTable();
+                refreshIssuedBooksTable();
+            });
+        }
+    }
+
+    private void insertAvailableBook(Book book) {
+        // Rows beyond the loaded pages arrive with a later page
+        if (moreBooks && book.id() > booksCursor) {
+            return;
+        }
+        int index = indexOfId(booksList, book.id(), Book::id);
+        if (index < 0) {
+            booksList.add(-index - 1, book);
+        }
+        booksCursor = Math.max(booksCursor, book.id());
+    }
+
+    private void insertIssuedBook(IssuedBook issuedBook) {
+        if (moreIssuedBooks && issuedBook.id() > issuedBooksCursor) {
+            return;
+        }
+        int index = indexOfId(issuedBooksList, issuedBook.id(), IssuedBook::id);
+        if (index < 0) {
+            issuedBooksList.add(-index - 1, issuedBook);
+        }
+        issuedBooksCursor = Math.max(issuedBooksCursor, issuedBook.id());
+    }
+
+    // Re-reads an updated book and swaps it into whichever table has it loaded
+    private void replaceBook(int bookId) {
+        if (indexOfId(booksList, bookId, Book::id) < 0 && indexOfId(issuedBooksList, bookId, IssuedBook::id) < 0) {
+            return;
+        }
+        library.getBookById(bookId).whenCompleteAsync((book, error) -> {
+            if (error != null) {
+                logger.warn("Failed to reload book {}: {}", bookId, error.getMessage());
+                return;
+            }
+            if (book == null) {
+                return; // removed meanwhile; bookRemoved takes the row out
+            }
+            // Looked up again because rows may have moved while the book was loading
+            int index = indexOfId(booksList, bookId, Book::id);
+            if (index >= 0) {
+                booksList.set(index, book);
+            }
+            index = indexOfId(issuedBooksList, bookId, IssuedBook::id);
+            if (index >= 0) {
+                IssuedBook loan = issuedBooksList.get(index);
+                issuedBooksList.set(index,
+                        new IssuedBook(book, loan.issuedTo(), loan.returnEpochDay(), loan.issuedOnEpochDay()));
+            }
+        }, AsyncLibrary.FX_THREAD);
+    }
+
+    // Cells call this only for rows on screen, so nothing per row is built until it is shown
+    private static <S, T> Callback<TableColumn.CellDataFeatures<S, T>, ObservableValue<T>> cellValue(
+            Function<S, T> accessor) {
+        return cell -> new ReadOnlyObjectWrapper<>(accessor.apply(cell.getValue()));
+    }
+
+    // Dates are formatted only for the rows on screen
+    private static final class LoanDateCell extends TableCell<IssuedBook, LocalDate> {
+        @Override
+        protected void updateItem(LocalDate date, boolean empty) {
+            super.updateItem(date, empty);
+            setText(empty || date == null ? null : DISPLAY_DATE.format(date));
+        }
+    }
+
+    private static <T> void removeById(List<T> rows, int id, ToIntFunction<T> idOf) {
+        int index = indexOfId(rows, id, idOf);
+        if (index >= 0) {
+            rows.remove(index);
+        }
+    }
+
+    // Binary search over rows kept in ID order; same contract as Collections.binarySearch
+    private static <T> int indexOfId(List<T> rows, int id, ToIntFunction<T> idOf) {
+        int low = 0;
+        int high = rows.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = idOf.applyAsInt(rows.get(mid));
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static void onFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
         }
     }
 
@@ -486,6 +958,11 @@ public class LibraryApp extends Application {
         logger.info("{}: {}", title, message);
     }
 
+    private void showFailure(String title, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        showError(title, cause.getMessage());
+    }
+
     private void showError(String title, String message) {
         showAlert(Alert.AlertType.ERROR, title, message);
         logger.error("{}: {}", title, message);
@@ -502,9 +979,30 @@ public class LibraryApp extends Application {
     @Override
     public void stop() {
         try {
+            if (stallMonitor != null) {
+                stallMonitor.close();
+            }
+            if (dashboardRefresh != null) {
+                dashboardRefresh.stop();
+            }
+            if (statistics != null) {
+                statistics.close();
+            }
+            if (overdueTracker != null) {
+                overdueTracker.close();
+            }
+            if (fineEngine != null) {
+                fineEngine.close();
+            }
+            if (reportEngine != null) {
+                reportEngine.close();
+            }
             if (library != null) {
                 library.close();
             }
+            if (metrics != null) {
+                metrics.close();
+            }
         } catch (LibraryException e) {
             logger.error("Error closing library", e);
         }
@@ -0,0 +1,30 @@
+package com.example;
+
+/**
+ * Receives a notification after a {@link LibraryRepository} change has been committed. Callbacks
+ * run on the thread that made the change, so UI listeners must hop to their own thread.
+ */
+public interface LibraryListener {
+    default void bookAdded(Book book) {
+    }
+
+    default void bookRemoved(Book book) {
+    }
+
+    default void bookIssued(IssuedBook issuedBook) {
+    }
+
+    default void bookReturned(Book book) {
+    }
+
+    // A book's details changed, for example its category was reassigned
+    default void bookUpdated(int bookId) {
+    }
+
+    default void categoriesChanged() {
+    }
+
+    // Many rows changed at once (for example IDs were resequenced); cached views should reload
+    default void catalogReloaded() {
+    }
+}
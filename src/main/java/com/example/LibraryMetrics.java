@@ -0,0 +1,345 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Call counts, error counts, rows returned and latency percentiles for every
+ * {@link LibraryRepository} operation, plus the time spent waiting for a pooled connection.
+ * {@link #instrument} wraps a repository in a proxy that records each call; with
+ * {@code library.metrics.enabled=false} (the default) nothing is wrapped, so there is no cost at
+ * all. Each operation is published as an MXBean under {@code com.example:type=LibraryOperation}
+ * and can be reported periodically to the log or a CSV file.
+ */
+public class LibraryMetrics implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(LibraryMetrics.class);
+    private static final String CONNECTION_WAIT = "connectionWait";
+    private static final String CSV_HEADER = "timestamp,operation,count,errors,rows,mean_ms,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+
+    private final Map<String, Operation> operations = new TreeMap<>();
+    private final Map<Method, Operation> byMethod = new HashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private ScheduledExecutorService reporter;
+
+    public LibraryMetrics() {
+        for (Method method : LibraryRepository.class.getMethods()) {
+            if (!method.isDefault() && !method.getName().equals("close")) {
+                byMethod.put(method, operations.computeIfAbsent(method.getName(), Operation::new));
+            }
+        }
+        operations.put(CONNECTION_WAIT, new Operation(CONNECTION_WAIT));
+    }
+
+    /**
+     * Returns metrics set up from the {@code library.metrics.*} keys, already published over JMX
+     * and reporting if an interval is set, or {@code null} when metrics are disabled.
+     */
+    public static LibraryMetrics fromConfig() {
+        if (!Boolean.parseBoolean(DBHelper.getProperty("library.metrics.enabled", "false").trim())) {
+            return null;
+        }
+        LibraryMetrics metrics = new LibraryMetrics();
+        metrics.registerMBeans();
+        int intervalSeconds = DBHelper.getIntProperty("library.metrics.reportIntervalSeconds", 60);
+        if (intervalSeconds > 0) {
+            String csv = DBHelper.getProperty("library.metrics.csvFile", "").trim();
+            metrics.startReporter(intervalSeconds, csv.isEmpty() ? null : Path.of(csv));
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns {@code repository} behind a proxy that records every call here. Connection waits are
+     * recorded too when the repository is a {@link MyLibrary}.
+     */
+    public LibraryRepository instrument(LibraryRepository repository) {
+        if (repository instanceof MyLibrary) {
+            ((MyLibrary) repository).getConnectionPool().setWaitHistogram(operations.get(CONNECTION_WAIT).latency);
+        }
+        InvocationHandler handler = (proxy, method, args) -> invoke(repository, method, args);
+        return (LibraryRepository) Proxy.newProxyInstance(LibraryRepository.class.getClassLoader(),
+                new Class<?>[] { LibraryRepository.class }, handler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object invoke(LibraryRepository target, Method method, Object[] args) throws Throwable {
+        Operation operation = byMethod.get(method);
+        if (operation == null) {
+            return invokeTarget(target, method, args);
+        }
+        long[] streamed = null;
+        if (args != null && args.length == 1 && args[0] instanceof Consumer) {
+            // forEach* hand rows to a callback, so count them on the way through
+            Consumer<Object> action = (Consumer<Object>) args[0];
+            long[] rows = new long[1];
+            args = new Object[] { (Consumer<Object>) row -> {
+                rows[0]++;
+                action.accept(row);
+            } };
+            streamed = rows;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        Object result = null;
+        try {
+            result = invokeTarget(target, method, args);
+            failed = false;
+            return result;
+        } finally {
+            long rows = streamed != null ? streamed[0] : rowsIn(result);
+            operation.record(System.nanoTime() - start, rows, failed);
+        }
+    }
+
+    private static Object invokeTarget(LibraryRepository target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long rowsIn(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        } else if (result instanceof Page) {
+            return ((Page<?>) result).getItems().size();
+        } else if (result instanceof Book || result instanceof IssuedBook) {
+            return 1;
+        }
+        return 0;
+    }
+
+    public Operation getOperation(String name) {
+        return operations.get(name);
+    }
+
+    public Collection<Operation> getOperations() {
+        return operations.values();
+    }
+
+    public void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (Operation operation : operations.values()) {
+                ObjectName name = new ObjectName("com.example:type=LibraryOperation,name=" + operation.getName());
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(operation, name);
+                    registered.add(name);
+                }
+            }
+        } catch (JMException e) {
+            throw new LibraryException("Failed to register library metrics MBeans", e);
+        }
+    }
+
+    /**
+     * Reports every operation that has been called every {@code intervalSeconds}, appending to
+     * {@code csvFile} or, when it is {@code null}, writing to the log. Figures are cumulative.
+     */
+    public synchronized void startReporter(int intervalSeconds, Path csvFile) {
+        if (reporter != null) {
+            throw new IllegalStateException("Reporter already started");
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "library-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runnable report = csvFile != null ? () -> appendCsv(csvFile) : this::logReport;
+        reporter.scheduleAtFixedRate(report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void logReport() {
+        for (Operation operation : operations.values()) {
+            if (operation.getCount() > 0) {
+                logger.info("{}", operation);
+            }
+        }
+    }
+
+    private void appendCsv(Path csvFile) {
+        String timestamp = Instant.now().toString();
+        try {
+            boolean newFile = !Files.exists(csvFile) || Files.size(csvFile) == 0;
+            try (BufferedWriter out = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (newFile) {
+                    out.write(CSV_HEADER);
+                    out.newLine();
+                }
+                for (Operation operation : operations.values()) {
+                    if (operation.getCount() > 0) {
+                        out.write(String.format("%s,%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f", timestamp,
+                                operation.getName(), operation.getCount(), operation.getErrors(), operation.getRows(),
+                                operation.getMeanMillis(), operation.getP50Millis(), operation.getP90Millis(),
+                                operation.getP99Millis(), operation.getP999Millis(), operation.getMaxMillis()));
+                        out.newLine();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write metrics to {}: {}", csvFile, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                logger.debug("Failed to unregister {}", name, e);
+            }
+        }
+        registered.clear();
+        logReport();
+    }
+
+    /**
+     * The JMX view of one operation; times are in milliseconds.
+     */
+    public interface OperationMXBean {
+        String getName();
+
+        long getCount();
+
+        long getErrors();
+
+        long getRows();
+
+        double getMeanMillis();
+
+        double getP50Millis();
+
+        double getP90Millis();
+
+        double getP99Millis();
+
+        double getP999Millis();
+
+        double getMaxMillis();
+
+        void reset();
+    }
+
+    public static class Operation implements OperationMXBean {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, long rowCount, boolean failed) {
+            latency.record(nanos);
+            if (failed) {
+                errors.increment();
+            }
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        @Override
+        public long getRows() {
+            return rows.sum();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return latency.getMeanNanos() / 1_000_000.0;
+        }
+
+        @Override
+        public double getP50Millis() {
+            return latency.getValueAtPercentile(50) / 1_000_000.0;
+        }
+
+        @Override
+        public double getP90Millis() {
+            return latency.getValueAtPercentile(90) / 1_000_000.0;
+        }
+
+        @Override
+        public double getP99Millis() {
+            return latency.getValueAtPercentile(99) / 1_000_000.0;
+        }
+
+        @Override
+        public double getP999Millis() {
+            return latency.getValueAtPercentile(99.9) / 1_000_000.0;
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return latency.getMaxNanos() / 1_000_000.0;
+        }
+
+        @Override
+        public void reset() {
+            latency.reset();
+            errors.reset();
+            rows.reset();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d calls, %d errors, %d rows, mean %.3f ms, p50 %.3f ms, p99 %.3f ms, "
+                    + "p99.9 %.3f ms, max %.3f ms", name, getCount(), getErrors(), getRows(), getMeanMillis(),
+                    getP50Millis(), getP99Millis(), getP999Millis(), getMaxMillis());
+        }
+    }
+}
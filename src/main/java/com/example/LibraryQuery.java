@@ -0,0 +1,152 @@
+package com.example;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Named SQL for every fixed statement {@link MyLibrary} runs. Each query is one constant string,
+ * so the pool's statement cache sees the same key on every call and execution statistics are
+ * reported under the query name instead of the SQL text.
+ */
+public enum LibraryQuery {
+    AVAILABLE_BOOKS_PAGE(Sql.AVAILABLE_BOOKS + " AND b.id > ? ORDER BY b.id LIMIT ?"),
+    ISSUED_BOOKS_PAGE(Sql.ISSUED_BOOKS + " AND b.id > ? ORDER BY b.id LIMIT ?"),
+    AVAILABLE_BOOKS_ALL(Sql.AVAILABLE_BOOKS + " ORDER BY b.id"),
+    ISSUED_BOOKS_ALL(Sql.ISSUED_BOOKS + " ORDER BY b.id"),
+    COUNT_CATEGORY("SELECT COUNT(*) FROM book_categories WHERE category_key = LOWER(?)"),
+    INSERT_CATEGORY("INSERT INTO book_categories (category_name) VALUES (?)"),
+    ALL_CATEGORIES("SELECT category_name FROM book_categories ORDER BY category_name"),
+    ASSIGN_CATEGORY("UPDATE books SET category_id = "
+            + "(SELECT id FROM book_categories WHERE category_name = ?) WHERE id = ?"),
+    // The *_key columns are generated LOWER() copies with their own indexes
+    COUNT_BOOK_IGNORE_CASE("SELECT COUNT(*) FROM books WHERE name_key = LOWER(?) AND author_key = LOWER(?)"),
+    FIND_CATEGORY("SELECT id, category_name FROM book_categories WHERE category_key = LOWER(?)"),
+    INSERT_BOOK("INSERT INTO books (name, author, category_id) VALUES (?, ?, ?)", true),
+    ISSUED_RETURN_DATE("SELECT b.return_date FROM books b WHERE b.id = ? AND b.is_issued = true"),
+    SEARCH_AVAILABLE_BOOK(Sql.AVAILABLE_BOOKS + " AND b.id = ?"),
+    ISSUE_BOOK_BY_NAME("UPDATE books SET is_issued = true, issued_to = ?, return_date = ?, issued_on = ? "
+            + "WHERE name = ? AND author = ? AND is_issued = false"),
+    ISSUE_BOOK_BY_ID("UPDATE books SET is_issued = true, issued_to = ?, return_date = ?, issued_on = ? "
+            + "WHERE id = ? AND is_issued = false"),
+    RETURN_BOOK_BY_ID("UPDATE books SET is_issued = false, issued_to = NULL, "
+            + "return_date = NULL, issued_on = NULL WHERE id = ? AND is_issued = true"),
+    FIND_BOOK(Sql.BOOK_COLUMNS + " WHERE b.name = ? AND b.author = ?"),
+    FIND_BOOK_FOR_UPDATE("SELECT b.id, b.name, b.author, " + Sql.CATEGORY_SUBQUERY
+            + " FROM books b WHERE b.name = ? AND b.author = ? AND b.is_issued = ? FOR UPDATE"),
+    COUNT_BOOK("SELECT COUNT(*) as count FROM books WHERE name = ? AND author = ?"),
+    IS_BOOK_ISSUED("SELECT is_issued FROM books WHERE name = ? AND author = ?"),
+    DELETE_BOOK("DELETE FROM books WHERE id = ?"),
+    // UPDATE ... ORDER BY is MySQL syntax; H2 accepts it in MySQL mode
+    SHIFT_BOOK_IDS("UPDATE books SET id = id - 1 WHERE id > ? ORDER BY id"),
+    MAX_BOOK_ID("SELECT COALESCE(MAX(id), 0) AS max_id FROM books"),
+    BOOK_BY_ID(Sql.BOOK_COLUMNS + " WHERE b.id = ?"),
+    // A fixed ID window rather than LIMIT, so each chunk reads only its own range of idx_books_issued
+    OVERDUE_LOANS_IN_RANGE("SELECT b.id, b.issued_to, b.return_date FROM books b "
+            + "WHERE b.is_issued = true AND b.id > ? AND b.id <= ? AND b.return_date < ? ORDER BY b.id"),
+    // One row per loan (book and due date), so a second run on the same day rewrites the same rows.
+    // A paid row keeps the amount that was paid; paid is not assigned, so every CASE sees the old value
+    UPSERT_FINE("INSERT INTO fine_history (book_id, user_name, due_date, days_overdue, fine_amount, assessed_on) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "user_name = CASE WHEN paid THEN user_name ELSE VALUES(user_name) END, "
+            + "days_overdue = CASE WHEN paid THEN days_overdue ELSE VALUES(days_overdue) END, "
+            + "fine_amount = CASE WHEN paid THEN fine_amount ELSE VALUES(fine_amount) END, "
+            + "assessed_on = CASE WHEN paid THEN assessed_on ELSE VALUES(assessed_on) END"),
+    // loan_events rows copy the loan from the locked books row: after the update for an issue,
+    // before it for a return
+    RECORD_ISSUE_BY_NAME(Sql.INSERT_LOAN_EVENT + "SELECT id, 'ISSUE', issued_to, issued_on, return_date "
+            + "FROM books WHERE name = ? AND author = ? AND is_issued = true"),
+    RECORD_ISSUE_BY_ID(Sql.INSERT_LOAN_EVENT + "SELECT id, 'ISSUE', issued_to, issued_on, return_date "
+            + "FROM books WHERE id = ? AND is_issued = true"),
+    RECORD_RETURN_BY_ID(Sql.INSERT_LOAN_EVENT + "SELECT id, 'RETURN', issued_to, ?, return_date "
+            + "FROM books WHERE id = ? AND is_issued = true"),
+    LOANS_PER_MONTH("SELECT YEAR(event_date) AS loan_year, MONTH(event_date) AS loan_month, COUNT(*) AS loans "
+            + "FROM loan_events WHERE event_type = 'ISSUE' AND event_date >= ? AND event_date < ? "
+            + "GROUP BY YEAR(event_date), MONTH(event_date)"),
+    // ReportEngine partitions: each aggregates one fixed ID window, like OVERDUE_LOANS_IN_RANGE, by
+    // category ID; names are looked up once afterwards instead of joined on every row
+    REPORT_CIRCULATION_IN_RANGE("SELECT b.category_id, b.is_issued, COUNT(*) AS books FROM books b "
+            + "WHERE b.id > ? AND b.id <= ? GROUP BY b.category_id, b.is_issued"),
+    REPORT_OVERDUE_IN_RANGE("SELECT b.category_id, b.return_date, COUNT(*) AS loans FROM books b "
+            + "WHERE b.is_issued = true AND b.id > ? AND b.id <= ? AND b.return_date < ? "
+            + "GROUP BY b.category_id, b.return_date"),
+    REPORT_FINES_IN_RANGE("SELECT b.category_id, COUNT(*) AS fines, SUM(f.fine_amount) AS total, "
+            + "SUM(CASE WHEN f.paid THEN f.fine_amount ELSE 0 END) AS paid FROM fine_history f "
+            + "JOIN books b ON f.book_id = b.id WHERE f.book_id > ? AND f.book_id <= ? GROUP BY b.category_id"),
+    // Fines of removed books, whose book_id was cleared; their category went with the book
+    REPORT_FINES_REMOVED_BOOKS("SELECT COUNT(*) AS fines, COALESCE(SUM(f.fine_amount), 0) AS total, "
+            + "COALESCE(SUM(CASE WHEN f.paid THEN f.fine_amount ELSE 0 END), 0) AS paid FROM fine_history f "
+            + "WHERE f.book_id IS NULL"),
+    CATEGORY_NAMES_BY_ID("SELECT id, category_name FROM book_categories"),
+    // Grouped in the database so only the top rows reach the report, however many authors there are
+    REPORT_TOP_AUTHORS("SELECT MIN(b.author) AS author, COUNT(*) AS books, "
+            + "SUM(CASE WHEN b.is_issued THEN 1 ELSE 0 END) AS issued FROM books b GROUP BY b.author_key "
+            + "ORDER BY issued DESC, books DESC, author LIMIT ?"),
+    // CatalogSnapshot reads and writes rows with their IDs, so loans and fines keep pointing at them
+    SNAPSHOT_BOOKS("SELECT id, name, author, category_id, is_issued, issued_to, return_date, issued_on "
+            + "FROM books ORDER BY id"),
+    SNAPSHOT_INSERT_CATEGORY("INSERT INTO book_categories (id, category_name) VALUES (?, ?)"),
+    SNAPSHOT_INSERT_BOOK("INSERT INTO books (id, name, author, category_id, is_issued, issued_to, return_date, "
+            + "issued_on) VALUES (?, ?, ?, ?, ?, ?, ?, ?)"),
+    DELETE_ALL_CATEGORIES("DELETE FROM book_categories"),
+    // As the loan_events upgrade does for loans that predate the table
+    RECORD_OPEN_LOANS(Sql.INSERT_LOAN_EVENT + "SELECT id, 'ISSUE', issued_to, COALESCE(issued_on, CURRENT_DATE), "
+            + "return_date FROM books WHERE is_issued = true");
+
+    private static final Map<String, LibraryQuery> BY_SQL = new HashMap<>();
+
+    static {
+        for (LibraryQuery query : values()) {
+            BY_SQL.put(query.sql, query);
+        }
+    }
+
+    private final String sql;
+    private final boolean returnsGeneratedKeys;
+
+    LibraryQuery(String sql) {
+        this(sql, false);
+    }
+
+    LibraryQuery(String sql, boolean returnsGeneratedKeys) {
+        this.sql = sql;
+        this.returnsGeneratedKeys = returnsGeneratedKeys;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public PreparedStatement prepare(Connection connection) throws SQLException {
+        return returnsGeneratedKeys
+                ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : connection.prepareStatement(sql);
+    }
+
+    /**
+     * Returns the query name for the given SQL, or the SQL itself for statements built at run
+     * time such as the IN (...) lookups.
+     */
+    public static String nameOf(String sql) {
+        LibraryQuery query = BY_SQL.get(sql);
+        return query != null ? query.name() : sql;
+    }
+
+    // Shared fragments; a nested class because enum constants cannot refer to the enum's own statics
+    private static final class Sql {
+        static final String BOOK_COLUMNS = "SELECT b.id, b.name, b.author, bc.category_name "
+                + "FROM books b LEFT JOIN book_categories bc ON b.category_id = bc.id";
+        static final String AVAILABLE_BOOKS = BOOK_COLUMNS + " WHERE b.is_issued = false";
+        // MyLibrary.mapIssuedBook reads these columns by position
+        static final String ISSUED_BOOKS =
+                "SELECT b.id, b.name, b.author, bc.category_name, b.issued_to, b.return_date, b.issued_on "
+                + "FROM books b LEFT JOIN book_categories bc ON b.category_id = bc.id WHERE b.is_issued = true";
+        static final String INSERT_LOAN_EVENT =
+                "INSERT INTO loan_events (book_id, event_type, borrower, event_date, due_date) ";
+        static final String CATEGORY_SUBQUERY =
+                "(SELECT bc.category_name FROM book_categories bc WHERE bc.id = b.category_id) AS category_name";
+    }
+}
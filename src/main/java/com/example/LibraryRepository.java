@@ -0,0 +1,84 @@
+package com.example;
+
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.function.Consumer;
+
+/**
+ * Storage operations behind the library UI. {@link MyLibrary} implements them over JDBC against
+ * MySQL, {@link EmbeddedLibrary} against an embedded H2 database and {@link InMemoryLibrary} with
+ * no database at all; failures are reported as {@link LibraryException}.
+ */
+public interface LibraryRepository extends AutoCloseable {
+
+    List<Book> getAvailableBooks();
+
+    List<IssuedBook> getIssuedBooks();
+
+    /**
+     * Returns up to {@code pageSize} available books with an ID greater than {@code afterId}.
+     */
+    Page<Book> getAvailableBooksPage(int afterId, int pageSize);
+
+    Page<IssuedBook> getIssuedBooksPage(int afterId, int pageSize);
+
+    /**
+     * Streams every available book to {@code action} in ID order without building a list.
+     */
+    void forEachAvailableBook(Consumer<? super Book> action);
+
+    void forEachIssuedBook(Consumer<? super IssuedBook> action);
+
+    void addBookCategory(String category);
+
+    List<String> getCategories();
+
+    void assignBookCategory(int bookId, String category);
+
+    boolean addBook(String name, String author, String category);
+
+    BookImporter.ImportResult importBooks(Path source, Path rejectFile);
+
+    double calculateFine(int bookId);
+
+    /**
+     * Returns the available book with the given ID, or null if it is issued or does not exist.
+     */
+    Book searchBook(int bookId);
+
+    /**
+     * Issues a book; dates are ISO {@code yyyy-MM-dd} strings.
+     */
+    boolean issueBook(String name, String author, String issuedTo, String returnDate, String issuedOn);
+
+    boolean returnBook(String name, String author);
+
+    List<BatchItemResult> issueBooks(List<IssueRequest> requests);
+
+    List<BatchItemResult> returnBooks(List<Integer> bookIds);
+
+    boolean isBookExistsInLibrary(String name, String author);
+
+    boolean isBookInLibrary(String name, String author);
+
+    boolean removeBook(String name, String author);
+
+    boolean isBookIssued(String name, String author);
+
+    Book getBookById(int id);
+
+    /**
+     * Returns the number of loans started in each month from {@code from} to {@code to} inclusive,
+     * with a zero for months without loans.
+     */
+    SortedMap<YearMonth, Long> getLoansPerMonth(YearMonth from, YearMonth to);
+
+    void addLibraryListener(LibraryListener listener);
+
+    void removeLibraryListener(LibraryListener listener);
+
+    @Override
+    void close();
+}
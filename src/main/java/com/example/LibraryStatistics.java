@@ -0,0 +1,239 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Available, issued and overdue counts, in total and per category, kept up to date from the
+ * library's change events so the dashboard can read them without touching the catalog. A
+ * reconciliation recounts everything by streaming the catalog once at start, every
+ * {@code library.stats.reconcileMinutes} and after bulk changes; a change committed while a
+ * recount is streaming may be off by one until the next one.
+ * <p>
+ * A loan is overdue from the day after its return date, as for {@link FineEngine}. Each issued
+ * book's return date is remembered so a return can be taken off the right count.
+ */
+public class LibraryStatistics implements LibraryListener, AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(LibraryStatistics.class);
+    static final String UNCATEGORIZED = "(none)";
+
+    private final LibraryRepository library;
+    private final Clock clock;
+    private final ScheduledExecutorService reconciler;
+    private Tally tally;
+    private Instant reconciledAt;
+
+    public static LibraryStatistics start(LibraryRepository library) {
+        return start(library, DBHelper.getIntProperty("library.stats.reconcileMinutes", 15), Clock.systemDefaultZone());
+    }
+
+    /**
+     * Registers for the library's events and starts the first recount in the background. With
+     * {@code reconcileMinutes} of 0 the counts are only recounted after bulk changes.
+     */
+    public static LibraryStatistics start(LibraryRepository library, int reconcileMinutes, Clock clock) {
+        LibraryStatistics statistics = new LibraryStatistics(library, clock);
+        library.addLibraryListener(statistics);
+        if (reconcileMinutes > 0) {
+            statistics.reconciler.scheduleWithFixedDelay(statistics::reconcileQuietly, 0, reconcileMinutes,
+                    TimeUnit.MINUTES);
+        } else {
+            statistics.reconciler.execute(statistics::reconcileQuietly);
+        }
+        return statistics;
+    }
+
+    private LibraryStatistics(LibraryRepository library, Clock clock) {
+        this.library = library;
+        this.clock = clock;
+        this.tally = new Tally(LocalDate.now(clock));
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "library-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The current counts. Cost depends only on the number of categories.
+     */
+    public synchronized Snapshot snapshot() {
+        tally.rollTo(LocalDate.now(clock));
+        Map<String, CategoryCounts> categories = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        tally.byCategory.forEach((name, counts) -> categories.put(name, new CategoryCounts(name, counts[0], counts[1])));
+        return new Snapshot(tally.available, tally.issued, tally.overdue, Collections.unmodifiableMap(categories),
+                reconciledAt);
+    }
+
+    /**
+     * Recounts from the catalog and replaces the maintained counts, logging any drift it corrects.
+     */
+    public void reconcile() {
+        long start = System.nanoTime();
+        Tally fresh = new Tally(LocalDate.now(clock));
+        library.getCategories().forEach(fresh::category);
+        library.forEachAvailableBook(book -> fresh.shelve(book.categoryName(), 1));
+        library.forEachIssuedBook(fresh::issue);
+        synchronized (this) {
+            tally.rollTo(fresh.today);
+            if (reconciledAt != null && (tally.available != fresh.available || tally.issued != fresh.issued
+                    || tally.overdue != fresh.overdue)) {
+                logger.info("Statistics corrected: available {} -> {}, issued {} -> {}, overdue {} -> {}",
+                        tally.available, fresh.available, tally.issued, fresh.issued, tally.overdue, fresh.overdue);
+            }
+            tally = fresh;
+            reconciledAt = Instant.now(clock);
+        }
+        logger.debug("Statistics recounted in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (LibraryException e) {
+            logger.warn("Failed to recount library statistics: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void bookAdded(Book book) {
+        tally.shelve(book.categoryName(), 1);
+    }
+
+    @Override
+    public synchronized void bookRemoved(Book book) {
+        // Only books on the shelf can be removed
+        tally.shelve(book.categoryName(), -1);
+    }
+
+    @Override
+    public synchronized void bookIssued(IssuedBook issuedBook) {
+        tally.rollTo(LocalDate.now(clock));
+        tally.shelve(issuedBook.categoryName(), -1);
+        tally.issue(issuedBook);
+    }
+
+    @Override
+    public synchronized void bookReturned(Book book) {
+        tally.rollTo(LocalDate.now(clock));
+        tally.shelve(book.categoryName(), 1);
+        tally.category(book.categoryName())[1]--;
+        tally.issued--;
+        Integer returnDay = tally.returnDayById.remove(book.id());
+        if (returnDay == null) {
+            // Issued before the last recount saw it; the next one settles the overdue count
+            return;
+        }
+        if (returnDay < tally.today.toEpochDay()) {
+            tally.overdue--;
+        } else {
+            tally.returnsByDay.merge(returnDay, -1, (loans, change) -> loans + change == 0 ? null : loans + change);
+        }
+    }
+
+    @Override
+    public void bookUpdated(int bookId) {
+        // Only the category can change, and the event does not say which it was
+        requestReconcile();
+    }
+
+    @Override
+    public void catalogReloaded() {
+        requestReconcile();
+    }
+
+    @Override
+    public void categoriesChanged() {
+        List<String> categories = library.getCategories();
+        synchronized (this) {
+            categories.forEach(tally::category);
+        }
+    }
+
+    private void requestReconcile() {
+        if (!reconciler.isShutdown()) {
+            reconciler.execute(this::reconcileQuietly);
+        }
+    }
+
+    @Override
+    public void close() {
+        library.removeLibraryListener(this);
+        reconciler.shutdownNow();
+    }
+
+    /**
+     * Totals and per-category counts at one point in time; {@code reconciledAt} is null until the
+     * first recount has finished.
+     */
+    public record Snapshot(long available, long issued, long overdue, Map<String, CategoryCounts> categories,
+            Instant reconciledAt) {
+    }
+
+    public record CategoryCounts(String category, long available, long issued) {
+    }
+
+    // The mutable counts; guarded by the enclosing LibraryStatistics
+    private static final class Tally {
+        // Category name to {available, issued}
+        private final Map<String, long[]> byCategory = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final IntObjectMap<Integer> returnDayById = new IntObjectMap<>(1024);
+        // Loans not yet overdue, counted by return date (epoch day)
+        private final NavigableMap<Integer, Integer> returnsByDay = new TreeMap<>();
+        private LocalDate today;
+        private long available;
+        private long issued;
+        private long overdue;
+
+        Tally(LocalDate today) {
+            this.today = today;
+        }
+
+        long[] category(String name) {
+            return byCategory.computeIfAbsent(name == null ? UNCATEGORIZED : name, k -> new long[2]);
+        }
+
+        void shelve(String name, int books) {
+            category(name)[0] += books;
+            available += books;
+        }
+
+        void issue(IssuedBook issuedBook) {
+            category(issuedBook.categoryName())[1]++;
+            issued++;
+            if (issuedBook.returnEpochDay() == IssuedBook.NO_DATE) {
+                return;
+            }
+            returnDayById.put(issuedBook.id(), issuedBook.returnEpochDay());
+            if (issuedBook.returnEpochDay() < today.toEpochDay()) {
+                overdue++;
+            } else {
+                returnsByDay.merge(issuedBook.returnEpochDay(), 1, Integer::sum);
+            }
+        }
+
+        // Moves loans whose return date has passed since the last call onto the overdue count
+        void rollTo(LocalDate date) {
+            if (!date.isAfter(today)) {
+                return;
+            }
+            Map<Integer, Integer> due = returnsByDay.headMap((int) date.toEpochDay(), false);
+            for (int loans : due.values()) {
+                overdue += loans;
+            }
+            due.clear();
+            today = date;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded least-recently-used cache with hit, miss, eviction and expiry counters. With a time to
+ * live, an entry older than that is reloaded on its next read, which bounds how long changes made
+ * elsewhere stay invisible. All methods are thread-safe; loaders run outside the lock so a slow
+ * database read does not block other readers.
+ */
+public class LruCache<K, V> {
+    private final int maxEntries;
+    // 0 when entries never expire
+    private final long timeToLiveNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    // Bumped by every write so a load that raced with an invalidation is not cached
+    private long writeCount;
+
+    public LruCache(int maxEntries) {
+        this(maxEntries, Duration.ZERO);
+    }
+
+    /**
+     * With a zero {@code timeToLive} entries stay until they are evicted or invalidated.
+     */
+    public LruCache(int maxEntries, Duration timeToLive) {
+        this(maxEntries, timeToLive, System::nanoTime);
+    }
+
+    // The clock reads nanoseconds like System.nanoTime
+    LruCache(int maxEntries, Duration timeToLive, LongSupplier clock) {
+        if (timeToLive.isNegative()) {
+            throw new IllegalArgumentException("Time to live must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V getOrLoad(K key, Function<? super K, ? extends V> loader) {
+        long stamp;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (!isExpired(entry)) {
+                    hits++;
+                    return entry.value();
+                }
+                entries.remove(key);
+                expirations++;
+            }
+            misses++;
+            stamp = writeCount;
+        }
+        V loaded = loader.apply(key);
+        synchronized (this) {
+            if (loaded != null && stamp == writeCount) {
+                entries.put(key, new Entry<>(loaded, clock.getAsLong()));
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void put(K key, V value) {
+        writeCount++;
+        entries.put(key, new Entry<>(value, clock.getAsLong()));
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return timeToLiveNanos > 0 && clock.getAsLong() - entry.storedAt() >= timeToLiveNanos;
+    }
+
+    public synchronized void invalidate(K key) {
+        writeCount++;
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        writeCount++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized long getExpirationCount() {
+        return expirations;
+    }
+
+    public synchronized double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("size=%d/%d hits=%d misses=%d evictions=%d expirations=%d hitRatio=%.2f",
+                entries.size(), maxEntries, hits, misses, evictions, expirations, getHitRatio());
+    }
+
+    private record Entry<V>(V value, long storedAt) {
+    }
+}
@@ -2,98 +2,202 @@ package com.example;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import java.nio.file.Path;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.Statement;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-
-public class MyLibrary {
-    private Connection connection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+public class MyLibrary implements LibraryRepository {
+    private final ConnectionPool connectionPool;
+    private final BookRemovalMode removalMode;
+    private final List<LibraryListener> listeners = new CopyOnWriteArrayList<>();
+    private final int streamFetchSize = DBHelper.getIntProperty("library.stream.fetchSize", 1000);
+    private final FinePolicy finePolicy = FinePolicy.fromConfig();
     private static final Logger logger = LogManager.getLogger(MyLibrary.class);
+    // Keeps IN (...) lists well below driver and server parameter limits
+    private static final int IN_LIST_CHUNK = 500;
 
     public MyLibrary() throws LibraryException {
-        try {
-            connection = DBHelper.getConnection();
+        this(DBHelper.createConnectionPool());
+    }
+
+    /**
+     * Every operation borrows its own connection from the pool, so one instance can be shared by
+     * several threads.
+     */
+    public MyLibrary(ConnectionPool connectionPool) throws LibraryException {
+        this(connectionPool, BookRemovalMode.valueOf(
+                DBHelper.getProperty("library.removal.mode", BookRemovalMode.STABLE_IDS.name())));
+    }
+
+    public MyLibrary(ConnectionPool connectionPool, BookRemovalMode removalMode) throws LibraryException {
+        this.connectionPool = connectionPool;
+        this.removalMode = removalMode;
+        // Fail fast on bad credentials instead of on the first operation
+        try (Connection connection = connectionPool.getConnection()) {
+            logger.debug("Connected to {}", connection.getMetaData().getURL());
         } catch (SQLException e) {
+            connectionPool.close();
             throw new LibraryException("Failed to establish database connection: " + e.getMessage());
         }
     }
 
+    @Override
     public List<Book> getAvailableBooks() {
         List<Book> books = new ArrayList<>();
-        String query = "SELECT b.id, b.name, b.author, bc.category_name " +
-                "FROM books b " +
-                "LEFT JOIN book_categories bc ON b.category_id = bc.id " +
-                "WHERE b.is_issued = false " +
-                "ORDER BY b.id";
-
-        try (Statement stmt = connection.createStatement();
-                ResultSet rs = stmt.executeQuery(query)) {
-            while (rs.next()) {
-                books.add(new Book(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("author"),
-                        rs.getString("category_name")));
+        forEachAvailableBook(books::add);
+        logger.debug("Retrieved {} available books", books.size());
+        return books;
+    }
+
+    @Override
+    public List<IssuedBook> getIssuedBooks() {
+        List<IssuedBook> issuedBooks = new ArrayList<>();
+        forEachIssuedBook(issuedBooks::add);
+        return issuedBooks;
+    }
+
+    /**
+     * Returns up to {@code pageSize} available books with an ID greater than {@code afterId}.
+     * Pass 0 for the first page and {@link Page#getNextCursor()} for the following ones.
+     */
+    @Override
+    public Page<Book> getAvailableBooksPage(int afterId, int pageSize) {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement stmt = LibraryQuery.AVAILABLE_BOOKS_PAGE.prepare(connection)) {
+            stmt.setInt(1, afterId);
+            // One extra row tells us whether another page exists
+            stmt.setInt(2, pageSize + 1);
+            List<Book> books = new ArrayList<>(pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    books.add(mapBook(rs));
+                }
+            }
+            return Page.of(books, pageSize, afterId, Book::id);
+        } catch (SQLException e) {
+            logger.error("Error retrieving available books page after ID {}", afterId, e);
+            throw new LibraryException("Failed to retrieve available books: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Page<IssuedBook> getIssuedBooksPage(int afterId, int pageSize) {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement stmt = LibraryQuery.ISSUED_BOOKS_PAGE.prepare(connection)) {
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, pageSize + 1);
+            List<IssuedBook> issuedBooks = new ArrayList<>(pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    issuedBooks.add(mapIssuedBook(rs, null));
+                }
+            }
+            return Page.of(issuedBooks, pageSize, afterId, IssuedBook::id);
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to retrieve issued books: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams every available book to {@code action} in ID order without building a list.
+     * Rows are fetched in chunks of {@code library.stream.fetchSize}; with MySQL this needs
+     * {@code useCursorFetch=true} on the JDBC URL, otherwise the driver buffers the whole result.
+     */
+    @Override
+    public void forEachAvailableBook(Consumer<? super Book> action) {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement stmt = LibraryQuery.AVAILABLE_BOOKS_ALL.prepare(connection)) {
+            stmt.setFetchSize(streamFetchSize);
+            Map<String, String> authors = new HashMap<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapBook(rs, authors));
+                }
             }
-            logger.info("Retrieved {} available books", books.size());
         } catch (SQLException e) {
             logger.error("Error retrieving available books", e);
             throw new LibraryException("Failed to retrieve available books: " + e.getMessage());
         }
-        return books;
     }
 
-    public List<IssuedBook> getIssuedBooks() {
-        List<IssuedBook> issuedBooks = new ArrayList<>();
-        String query = "SELECT b.id, b.name, b.author, bc.category_name, b.issued_to, b.return_date, b.issued_on " +
-                "FROM books b " +
-                "LEFT JOIN book_categories bc ON b.category_id = bc.id " +
-                "WHERE b.is_issued = true " +
-                "ORDER BY b.id";
-
-        try (Statement statement = connection.createStatement();
-                ResultSet resultSet = statement.executeQuery(query)) {
-            while (resultSet.next()) {
-                DateTimeFormatter dbFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                DateTimeFormatter displayFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-
-                String returnDate = resultSet.getDate("return_date") != null
-                        ? LocalDate.parse(resultSet.getDate("return_date").toString(), dbFormatter)
-                                .format(displayFormatter)
-                        : "";
-                String issuedOn = resultSet.getDate("issued_on") != null
-                        ? LocalDate.parse(resultSet.getDate("issued_on").toString(), dbFormatter)
-                                .format(displayFormatter)
-                        : "";
-
-                issuedBooks.add(new IssuedBook(
-                        resultSet.getInt("id"),
-                        resultSet.getString("name"),
-                        resultSet.getString("author"),
-                        resultSet.getString("category_name"),
-                        resultSet.getString("issued_to"),
-                        returnDate,
-                        issuedOn));
+    @Override
+    public void forEachIssuedBook(Consumer<? super IssuedBook> action) {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement statement = LibraryQuery.ISSUED_BOOKS_ALL.prepare(connection)) {
+            statement.setFetchSize(streamFetchSize);
+            Map<String, String> authors = new HashMap<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    action.accept(mapIssuedBook(resultSet, authors));
+                }
             }
         } catch (SQLException e) {
             throw new LibraryException("Failed to retrieve issued books: " + e.getMessage());
         }
-        return issuedBooks;
     }
 
-    // Add to MyLibrary.java
+    private Book mapBook(ResultSet rs) throws SQLException {
+        return mapBook(rs, null);
+    }
+
+    /**
+     * Maps one book row. Full scans pass an {@code authors} map so that every book by the same
+     * author shares one String instead of each holding the driver's copy.
+     */
+    private Book mapBook(ResultSet rs, Map<String, String> authors) throws SQLException {
+        return new Book(
+                rs.getInt("id"),
+                rs.getString("name"),
+                share(rs.getString("author"), authors),
+                Category.of(rs.getString("category_name")));
+    }
+
+    // Columns by position in the order of LibraryQuery's ISSUED_BOOKS select list, so no per-row label lookups
+    private IssuedBook mapIssuedBook(ResultSet resultSet, Map<String, String> authors) throws SQLException {
+        Book book = new Book(
+                resultSet.getInt(1),
+                resultSet.getString(2),
+                share(resultSet.getString(3), authors),
+                Category.of(resultSet.getString(4)));
+        return new IssuedBook(book, resultSet.getString(5), resultSet.getObject(6, LocalDate.class),
+                resultSet.getObject(7, LocalDate.class));
+    }
+
+    private static String share(String value, Map<String, String> shared) {
+        if (shared == null || value == null) {
+            return value;
+        }
+        String existing = shared.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    @Override
     public void addBookCategory(String category) {
-        try {
-            String checkQuery = "SELECT COUNT(*) FROM book_categories WHERE LOWER(category_name) = LOWER(?)";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkQuery)) {
+        try (Connection connection = connectionPool.getConnection()) {
+            try (PreparedStatement checkStmt = LibraryQuery.COUNT_CATEGORY.prepare(connection)) {
                 checkStmt.setString(1, category);
                 ResultSet rs = checkStmt.executeQuery();
                 if (rs.next() && rs.getInt(1) > 0) {
@@ -101,22 +205,23 @@ public class MyLibrary {
                 }
             }
 
-            String query = "INSERT INTO book_categories (category_name) VALUES (?)";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            try (PreparedStatement stmt = LibraryQuery.INSERT_CATEGORY.prepare(connection)) {
                 stmt.setString(1, category);
                 stmt.executeUpdate();
                 logger.info("Added new category: {}", category);
+                fireEvent(LibraryListener::categoriesChanged);
             }
         } catch (SQLException e) {
             throw new LibraryException("Failed to add category: " + e.getMessage());
         }
     }
 
+    @Override
     public List<String> getCategories() {
         List<String> categories = new ArrayList<>();
-        String query = "SELECT category_name FROM book_categories ORDER BY category_name";
-        try (Statement stmt = connection.createStatement();
-                ResultSet rs = stmt.executeQuery(query)) {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement stmt = LibraryQuery.ALL_CATEGORIES.prepare(connection);
+                ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 categories.add(rs.getString("category_name"));
             }
@@ -126,45 +231,36 @@ public class MyLibrary {
         }
     }
 
+    @Override
     public void assignBookCategory(int bookId, String category) {
-        try {
+        try (Connection connection = connectionPool.getConnection()) {
             connection.setAutoCommit(false);
-            String query = "UPDATE books SET category_id = " +
-                    "(SELECT id FROM book_categories WHERE category_name = ?) " +
-                    "WHERE id = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            try (PreparedStatement stmt = LibraryQuery.ASSIGN_CATEGORY.prepare(connection)) {
                 stmt.setString(1, category);
                 stmt.setInt(2, bookId);
                 int result = stmt.executeUpdate();
                 if (result > 0) {
                     connection.commit();
                     logger.info("Assigned category {} to book ID {}", category, bookId);
+                    fireEvent(listener -> listener.bookUpdated(bookId));
                 } else {
                     connection.rollback();
                     throw new LibraryException("Book or category not found");
                 }
+            } catch (SQLException e) {
+                rollback(connection);
+                throw e;
             }
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException ex) {
-                logger.error("Failed to rollback transaction", ex);
-            }
             throw new LibraryException("Failed to assign category: " + e.getMessage());
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                logger.error("Failed to reset auto-commit", e);
-            }
         }
     }
 
+    @Override
     public boolean addBook(String name, String author, String category) throws LibraryException {
-        try {
+        try (Connection connection = connectionPool.getConnection()) {
             // Check for duplicate books (case insensitive)
-            String checkQuery = "SELECT COUNT(*) FROM books WHERE LOWER(name) = LOWER(?) AND LOWER(author) = LOWER(?)";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkQuery)) {
+            try (PreparedStatement checkStmt = LibraryQuery.COUNT_BOOK_IGNORE_CASE.prepare(connection)) {
                 checkStmt.setString(1, name);
                 checkStmt.setString(2, author);
                 ResultSet rs = checkStmt.executeQuery();
@@ -174,13 +270,14 @@ public class MyLibrary {
             }
 
             // Get category ID
-            String categoryQuery = "SELECT id FROM book_categories WHERE LOWER(category_name) = LOWER(?)";
             int categoryId;
-            try (PreparedStatement categoryStmt = connection.prepareStatement(categoryQuery)) {
+            String categoryName;
+            try (PreparedStatement categoryStmt = LibraryQuery.FIND_CATEGORY.prepare(connection)) {
                 categoryStmt.setString(1, category);
                 ResultSet categoryRs = categoryStmt.executeQuery();
                 if (categoryRs.next()) {
                     categoryId = categoryRs.getInt("id");
+                    categoryName = categoryRs.getString("category_name");
                 } else {
                     throw new LibraryException("Category does not exist");
                 }
@@ -188,48 +285,116 @@ public class MyLibrary {
 
             // Insert book with category
             connection.setAutoCommit(false);
-            String query = "INSERT INTO books (name, author, category_id) VALUES (?, ?, ?)";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            try (PreparedStatement stmt = LibraryQuery.INSERT_BOOK.prepare(connection)) {
                 stmt.setString(1, name);
                 stmt.setString(2, author);
                 stmt.setInt(3, categoryId);
 
                 int result = stmt.executeUpdate();
+                int bookId = 0;
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        bookId = keys.getInt(1);
+                    }
+                }
                 connection.commit();
                 logger.info("Added new book: {} by {}", name, author);
+                if (result > 0) {
+                    Book book = new Book(bookId, name, author, categoryName);
+                    fireEvent(listener -> listener.bookAdded(book));
+                }
                 return result > 0;
+            } catch (SQLException e) {
+                rollback(connection);
+                throw e;
             }
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                logger.error("Failed to rollback transaction: {}", rollbackEx.getMessage());
-            }
             throw new LibraryException("Failed to add book: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bulk-loads books from a CSV/TSV file; rows that cannot be imported go to {@code rejectFile}.
+     * Batch size and commit interval come from {@code library.import.batchSize} and
+     * {@code library.import.commitInterval}.
+     */
+    @Override
+    public BookImporter.ImportResult importBooks(Path source, Path rejectFile) {
+        BookImporter importer = new BookImporter(connectionPool,
+                DBHelper.getIntProperty("library.import.batchSize", 1000),
+                DBHelper.getIntProperty("library.import.commitInterval", 10000));
+        try {
+            return importer.importFile(source, rejectFile);
         } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                logger.error("Failed to reset auto-commit: {}", e.getMessage());
-            }
+            // Committed chunks are visible even when the import fails part way
+            fireEvent(LibraryListener::catalogReloaded);
         }
     }
 
-    public double calculateFine(int bookId) {
+    /**
+     * Writes the categories and books to a {@link CatalogSnapshot} file, through a direct buffer
+     * of {@code library.snapshot.bufferKB}.
+     */
+    public CatalogSnapshot.Result exportSnapshot(Path file) {
+        return createCatalogSnapshot().export(file);
+    }
+
+    /**
+     * Loads a {@link CatalogSnapshot} file into this library, which must have no books, in
+     * batches set by the {@code library.import.*} keys.
+     */
+    public CatalogSnapshot.Result importSnapshot(Path file) {
         try {
-            String query = "SELECT b.return_date, b.issued_to, " +
-                    "DATEDIFF(CURRENT_DATE, b.return_date) as days_overdue " +
-                    "FROM books b WHERE b.id = ? AND b.is_issued = true";
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            return createCatalogSnapshot().load(file);
+        } finally {
+            // Categories are replaced, and committed batches are visible even when the import fails part way
+            fireEvent(LibraryListener::categoriesChanged);
+            fireEvent(LibraryListener::catalogReloaded);
+        }
+    }
+
+    private CatalogSnapshot createCatalogSnapshot() {
+        return new CatalogSnapshot(connectionPool, DBHelper.getIntProperty("library.snapshot.bufferKB", 1024) * 1024,
+                streamFetchSize, DBHelper.getIntProperty("library.import.batchSize", 1000),
+                DBHelper.getIntProperty("library.import.commitInterval", 10000));
+    }
+
+    ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Returns a fine engine on this library's connection pool, configured by the
+     * {@code library.fine.*} keys. The caller schedules and closes it.
+     */
+    public FineEngine createFineEngine() {
+        return new FineEngine(connectionPool, finePolicy, DBHelper.getIntProperty("library.fine.chunkSize", 5000));
+    }
+
+    /**
+     * Returns a report engine that reads this library's catalog and fine history through its pool.
+     */
+    public ReportEngine createReportEngine() {
+        return new ReportEngine(connectionPool, DBHelper.getIntProperty("library.report.parallelism", 0),
+                DBHelper.getIntProperty("library.report.partitionSize", 50000),
+                DBHelper.getIntProperty("library.report.topAuthors", 20));
+    }
+
+    @Override
+    public double calculateFine(int bookId) {
+        try (Connection connection = connectionPool.getConnection()) {
+            try (PreparedStatement stmt = LibraryQuery.ISSUED_RETURN_DATE.prepare(connection)) {
                 stmt.setInt(1, bookId);
                 try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        int daysOverdue = rs.getInt("days_overdue");
-                        double finePerDay = 1.5; // Can be made configurable
-                        double fine = daysOverdue > 0 ? daysOverdue * finePerDay : 0;
+                    // No fine for loans recorded without a return date, as DATEDIFF gave NULL for them
+                    LocalDate returnDate = rs.next() ? rs.getObject("return_date", LocalDate.class) : null;
+                    if (returnDate != null) {
+                        // Counted here rather than with DATEDIFF, which embedded databases spell differently
+                        long daysOverdue = ChronoUnit.DAYS.between(returnDate, LocalDate.now());
+                        double fine = daysOverdue > 0 ? finePolicy.fineFor(daysOverdue) : 0;
 
                         if (fine > 0) {
-                            logger.info("Fine calculated for book ID {}: Rs.{} ({} days overdue)",
+                            logger.debug("Fine calculated for book ID {}: Rs.{} ({} days overdue)",
                                     bookId, fine, daysOverdue);
                         }
                         return fine;
@@ -242,26 +407,19 @@ public class MyLibrary {
         }
     }
 
+    @Override
     public Book searchBook(int bookId) throws LibraryException {
-        String query = "SELECT b.id, b.name, b.author, bc.category_name " +
-                "FROM books b " +
-                "LEFT JOIN book_categories bc ON b.category_id = bc.id " +
-                "WHERE b.id = ? AND b.is_issued = false";
-
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement stmt = LibraryQuery.SEARCH_AVAILABLE_BOOK.prepare(connection)) {
             stmt.setInt(1, bookId);
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                Book book = new Book(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("author"),
-                        rs.getString("category_name"));
-                logger.info("Found book with ID {}: {} by {}", bookId, book.getName(), book.getAuthor());
+                Book book = mapBook(rs);
+                logger.debug("Found book with ID {}: {} by {}", bookId, book.name(), book.author());
                 return book;
             }
-            logger.info("No available book found with ID: {}", bookId);
+            logger.debug("No available book found with ID: {}", bookId);
             return null;
         } catch (SQLException e) {
             logger.error("Error searching for book with ID {}: {}", bookId, e.getMessage());
@@ -269,99 +427,335 @@ public class MyLibrary {
         }
     }
 
+    /**
+     * Issues a book with a single conditional UPDATE. The {@code is_issued = false} guard makes the
+     * availability check and the update one atomic step, and the unique index on
+     * {@code active_borrower} rejects a second active loan for the same borrower, so concurrent
+     * desks cannot double-issue a book or a borrower. The loan is appended to {@code loan_events}
+     * in the same transaction.
+     */
+    @Override
     public boolean issueBook(String name, String author, String issuedTo, String returnDate, String issuedOn) {
-        try {
-            // Check if user has already issued a book (case insensitive)
-            String checkQuery = "SELECT COUNT(*) FROM books WHERE LOWER(issued_to) = LOWER(?) AND is_issued = true";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkQuery)) {
-                checkStmt.setString(1, issuedTo);
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next() && rs.getInt(1) > 0) {
-                    throw new LibraryException("User has already issued a book");
-                }
-            }
-
-            // Check if book exists and is available
-            String bookQuery = "SELECT id FROM books WHERE name = ? AND author = ? AND is_issued = false";
-            try (PreparedStatement bookStmt = connection.prepareStatement(bookQuery)) {
-                bookStmt.setString(1, name);
-                bookStmt.setString(2, author);
-                ResultSet rs = bookStmt.executeQuery();
-                if (!rs.next()) {
-                    throw new LibraryException("Book not available for issue");
-                }
-            }
-
+        try (Connection connection = connectionPool.getConnection()) {
             connection.setAutoCommit(false);
-            String query = "UPDATE books SET is_issued = true, issued_to = ?, " +
-                    "return_date = STR_TO_DATE(?, '%Y-%m-%d'), " +
-                    "issued_on = STR_TO_DATE(?, '%Y-%m-%d') " +
-                    "WHERE name = ? AND author = ? AND is_issued = false";
-
-            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            try (PreparedStatement stmt = LibraryQuery.ISSUE_BOOK_BY_NAME.prepare(connection)) {
                 stmt.setString(1, issuedTo);
-                stmt.setString(2, returnDate);
-                stmt.setString(3, issuedOn);
+                stmt.setDate(2, java.sql.Date.valueOf(returnDate));
+                stmt.setDate(3, java.sql.Date.valueOf(issuedOn));
                 stmt.setString(4, name);
                 stmt.setString(5, author);
 
-                int result = stmt.executeUpdate();
-                if (result > 0) {
-                    connection.commit();
-                    logger.info("Book issued successfully: {} to {}", name, issuedTo);
-                    return true;
-                } else {
-                    connection.rollback();
-                    return false;
+                if (stmt.executeUpdate() == 0) {
+                    rollback(connection);
+                    throw new LibraryException("Book not available for issue");
+                }
+                try (PreparedStatement record = LibraryQuery.RECORD_ISSUE_BY_NAME.prepare(connection)) {
+                    record.setString(1, name);
+                    record.setString(2, author);
+                    record.executeUpdate();
+                }
+                connection.commit();
+            } catch (SQLIntegrityConstraintViolationException e) {
+                rollback(connection);
+                throw new LibraryException("User has already issued a book");
+            } catch (SQLException e) {
+                rollback(connection);
+                throw e;
+            }
+            logger.info("Book issued successfully: {} to {}", name, issuedTo);
+
+            if (!listeners.isEmpty()) {
+                Book book = findBook(connection, name, author);
+                if (book != null) {
+                    IssuedBook issuedBook = new IssuedBook(book, issuedTo, LocalDate.parse(returnDate),
+                            LocalDate.parse(issuedOn));
+                    fireEvent(listener -> listener.bookIssued(issuedBook));
                 }
             }
+            return true;
+        } catch (IllegalArgumentException e) {
+            throw new LibraryException("Invalid date, expected yyyy-MM-dd: " + e.getMessage());
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException ex) {
-                logger.error("Failed to rollback transaction", ex);
-            }
             throw new LibraryException("Failed to issue book: " + e.getMessage());
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                logger.error("Failed to reset auto-commit", e);
+        }
+    }
+
+    private Book findBook(Connection connection, String name, String author) throws SQLException {
+        try (PreparedStatement stmt = LibraryQuery.FIND_BOOK.prepare(connection)) {
+            stmt.setString(1, name);
+            stmt.setString(2, author);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapBook(rs) : null;
             }
         }
     }
 
+    @Override
     public boolean returnBook(String name, String author) {
-        try {
+        try (Connection connection = connectionPool.getConnection()) {
             connection.setAutoCommit(false);
-            String query = "UPDATE books SET is_issued = false, issued_to = NULL, " +
-                    "return_date = NULL, issued_on = NULL WHERE name = ? AND author = ? AND is_issued = true";
-            try (PreparedStatement statement = connection.prepareStatement(query)) {
-                statement.setString(1, name);
-                statement.setString(2, author);
-                int result = statement.executeUpdate();
+            try {
+                Book book = findBookForUpdate(connection, name, author, true);
+                if (book == null) {
+                    connection.rollback();
+                    return false;
+                }
+                try (PreparedStatement record = LibraryQuery.RECORD_RETURN_BY_ID.prepare(connection)) {
+                    record.setDate(1, java.sql.Date.valueOf(LocalDate.now()));
+                    record.setInt(2, book.id());
+                    record.executeUpdate();
+                }
+                int result;
+                try (PreparedStatement statement = LibraryQuery.RETURN_BOOK_BY_ID.prepare(connection)) {
+                    statement.setInt(1, book.id());
+                    result = statement.executeUpdate();
+                }
                 connection.commit();
+                if (result > 0) {
+                    fireEvent(listener -> listener.bookReturned(book));
+                }
                 return result > 0;
+            } catch (SQLException e) {
+                rollback(connection);
+                throw e;
             }
         } catch (SQLException e) {
+            throw new LibraryException("Failed to return book: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Issues several books in one transaction. Books and borrowers are validated with set-based
+     * queries and the updates go out as one JDBC batch. Requests that fail validation are
+     * reported in the result and do not stop the others.
+     */
+    @Override
+    public List<BatchItemResult> issueBooks(List<IssueRequest> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> bookIds = new ArrayList<>(requests.size());
+        Set<String> borrowers = new HashSet<>();
+        for (IssueRequest request : requests) {
+            bookIds.add(request.getBookId());
+            borrowers.add(request.getIssuedTo().toLowerCase(Locale.ROOT));
+        }
+
+        try (Connection connection = connectionPool.getConnection()) {
+            connection.setAutoCommit(false);
             try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                throw new LibraryException("Failed to rollback transaction: " + rollbackEx.getMessage());
+                Map<Integer, Boolean> issuedById = new HashMap<>();
+                Map<Integer, Book> books = lockBooks(connection, bookIds, issuedById);
+                Set<String> busyBorrowers = findActiveBorrowers(connection, borrowers);
+
+                BatchItemResult[] results = new BatchItemResult[requests.size()];
+                List<Integer> batched = new ArrayList<>();
+                Set<Integer> claimedBooks = new HashSet<>();
+                try (PreparedStatement stmt = LibraryQuery.ISSUE_BOOK_BY_ID.prepare(connection)) {
+                    for (int i = 0; i < requests.size(); i++) {
+                        IssueRequest request = requests.get(i);
+                        int bookId = request.getBookId();
+                        String borrower = request.getIssuedTo().toLowerCase(Locale.ROOT);
+                        if (!books.containsKey(bookId)) {
+                            results[i] = BatchItemResult.failed(bookId, "Book not found");
+                        } else if (issuedById.get(bookId) || !claimedBooks.add(bookId)) {
+                            results[i] = BatchItemResult.failed(bookId, "Book not available for issue");
+                        } else if (!busyBorrowers.add(borrower)) {
+                            // Also catches the same borrower appearing twice in this batch
+                            claimedBooks.remove(bookId);
+                            results[i] = BatchItemResult.failed(bookId, "User has already issued a book");
+                        } else {
+                            stmt.setString(1, request.getIssuedTo());
+                            stmt.setDate(2, java.sql.Date.valueOf(request.getReturnDate()));
+                            stmt.setDate(3, java.sql.Date.valueOf(request.getIssuedOn()));
+                            stmt.setInt(4, bookId);
+                            stmt.addBatch();
+                            batched.add(i);
+                        }
+                    }
+                    applyBatch(stmt, batched, results, bookIds, "Book not available for issue");
+                }
+                List<Integer> issuedIds = new ArrayList<>(batched.size());
+                for (int i : batched) {
+                    if (results[i].isSuccess()) {
+                        issuedIds.add(bookIds.get(i));
+                    }
+                }
+                recordLoanEvents(connection, LibraryQuery.RECORD_ISSUE_BY_ID, issuedIds, null);
+                connection.commit();
+
+                for (int i : batched) {
+                    if (results[i].isSuccess()) {
+                        IssueRequest request = requests.get(i);
+                        Book book = books.get(request.getBookId());
+                        IssuedBook issuedBook = new IssuedBook(book, request.getIssuedTo(), request.getReturnDate(),
+                                request.getIssuedOn());
+                        fireEvent(listener -> listener.bookIssued(issuedBook));
+                    }
+                }
+                logger.info("Batch issue: {} of {} books issued", batched.size(), requests.size());
+                return List.of(results);
+            } catch (SQLException e) {
+                rollback(connection);
+                throw e;
             }
-            throw new LibraryException("Failed to return book: " + e.getMessage());
-        } finally {
+        } catch (BatchUpdateException e) {
+            // A concurrent issue took one of these borrowers after validation; nothing was applied
+            throw new LibraryException("Failed to issue books, please retry: " + e.getMessage());
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to issue books: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns several books in one transaction, identified by book ID.
+     */
+    @Override
+    public List<BatchItemResult> returnBooks(List<Integer> bookIds) {
+        if (bookIds.isEmpty()) {
+            return List.of();
+        }
+        try (Connection connection = connectionPool.getConnection()) {
+            connection.setAutoCommit(false);
             try {
-                connection.setAutoCommit(true);
+                Map<Integer, Boolean> issuedById = new HashMap<>();
+                Map<Integer, Book> books = lockBooks(connection, bookIds, issuedById);
+
+                BatchItemResult[] results = new BatchItemResult[bookIds.size()];
+                List<Integer> batched = new ArrayList<>();
+                Set<Integer> claimedBooks = new HashSet<>();
+                for (int i = 0; i < bookIds.size(); i++) {
+                    int bookId = bookIds.get(i);
+                    if (!books.containsKey(bookId)) {
+                        results[i] = BatchItemResult.failed(bookId, "Book not found");
+                    } else if (!issuedById.get(bookId) || !claimedBooks.add(bookId)) {
+                        results[i] = BatchItemResult.failed(bookId, "Book is not issued");
+                    } else {
+                        batched.add(i);
+                    }
+                }
+                List<Integer> returningIds = new ArrayList<>(batched.size());
+                for (int i : batched) {
+                    returningIds.add(bookIds.get(i));
+                }
+                // Recorded first, while the locked rows still hold the loan
+                recordLoanEvents(connection, LibraryQuery.RECORD_RETURN_BY_ID, returningIds, LocalDate.now());
+                try (PreparedStatement stmt = LibraryQuery.RETURN_BOOK_BY_ID.prepare(connection)) {
+                    for (int bookId : returningIds) {
+                        stmt.setInt(1, bookId);
+                        stmt.addBatch();
+                    }
+                    applyBatch(stmt, batched, results, bookIds, "Book is not issued");
+                }
+                connection.commit();
+
+                for (int i : batched) {
+                    if (results[i].isSuccess()) {
+                        Book book = books.get(bookIds.get(i));
+                        fireEvent(listener -> listener.bookReturned(book));
+                    }
+                }
+                logger.info("Batch return: {} of {} books returned", batched.size(), bookIds.size());
+                return List.of(results);
             } catch (SQLException e) {
-                throw new LibraryException("Failed to reset auto-commit: " + e.getMessage());
+                rollback(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to return books: " + e.getMessage());
+        }
+    }
+
+    // Runs the batch and records a result for every batched item from its update count
+    private void applyBatch(PreparedStatement stmt, List<Integer> batched, BatchItemResult[] results,
+            List<Integer> bookIds, String noRowMessage) throws SQLException {
+        if (batched.isEmpty()) {
+            return;
+        }
+        int[] counts = stmt.executeBatch();
+        for (int j = 0; j < batched.size(); j++) {
+            int i = batched.get(j);
+            int bookId = bookIds.get(i);
+            boolean updated = counts[j] > 0 || counts[j] == Statement.SUCCESS_NO_INFO;
+            results[i] = updated ? BatchItemResult.ok(bookId) : BatchItemResult.failed(bookId, noRowMessage);
+        }
+    }
+
+    // Appends a loan_events row for each book as one JDBC batch; eventDate is bound first when given
+    private void recordLoanEvents(Connection connection, LibraryQuery query, List<Integer> ids, LocalDate eventDate)
+            throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement stmt = query.prepare(connection)) {
+            for (int bookId : ids) {
+                int parameter = 1;
+                if (eventDate != null) {
+                    stmt.setDate(parameter++, java.sql.Date.valueOf(eventDate));
+                }
+                stmt.setInt(parameter, bookId);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    // Locks the given books in one round trip per chunk and records whether each one is issued
+    private Map<Integer, Book> lockBooks(Connection connection, List<Integer> bookIds, Map<Integer, Boolean> issuedById)
+            throws SQLException {
+        Map<Integer, Book> books = new HashMap<>();
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(bookIds));
+        for (int from = 0; from < distinctIds.size(); from += IN_LIST_CHUNK) {
+            List<Integer> chunk = distinctIds.subList(from, Math.min(from + IN_LIST_CHUNK, distinctIds.size()));
+            String query = "SELECT b.id, b.name, b.author, b.is_issued, " +
+                    "(SELECT bc.category_name FROM book_categories bc WHERE bc.id = b.category_id) AS category_name " +
+                    "FROM books b WHERE b.id IN (" + placeholders(chunk.size()) + ") FOR UPDATE";
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Book book = mapBook(rs);
+                        books.put(book.id(), book);
+                        issuedById.put(book.id(), rs.getBoolean("is_issued"));
+                    }
+                }
             }
         }
+        return books;
     }
 
+    // Returns the lower-cased borrowers from the given set who currently hold a book
+    private Set<String> findActiveBorrowers(Connection connection, Set<String> borrowers) throws SQLException {
+        Set<String> active = new HashSet<>();
+        List<String> all = new ArrayList<>(borrowers);
+        for (int from = 0; from < all.size(); from += IN_LIST_CHUNK) {
+            List<String> chunk = all.subList(from, Math.min(from + IN_LIST_CHUNK, all.size()));
+            String query = "SELECT active_borrower FROM books " +
+                    "WHERE active_borrower IN (" + placeholders(chunk.size()) + ")";
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        active.add(rs.getString(1));
+                    }
+                }
+            }
+        }
+        return active;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    @Override
     public boolean isBookExistsInLibrary(String name, String author) {
-        try (PreparedStatement statement = connection.prepareStatement(
-                "SELECT COUNT(*) as count FROM books WHERE name = ? AND author = ?")) {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement statement = LibraryQuery.COUNT_BOOK.prepare(connection)) {
             statement.setString(1, name);
             statement.setString(2, author);
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -372,113 +766,89 @@ public class MyLibrary {
         }
     }
 
+    @Override
     public boolean isBookInLibrary(String name, String author) {
         return isBookExistsInLibrary(name, author);
     }
 
+    @Override
     public boolean removeBook(String name, String author) {
-        try {
+        try (Connection connection = connectionPool.getConnection()) {
             connection.setAutoCommit(false);
 
-            // Get the ID of the book to be removed
-            int bookIdToRemove = -1;
-            String getIdQuery = "SELECT id FROM books WHERE name = ? AND author = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(getIdQuery)) {
-                stmt.setString(1, name);
-                stmt.setString(2, author);
-                ResultSet rs = stmt.executeQuery();
-                if (rs.next()) {
-                    bookIdToRemove = rs.getInt("id");
+            // Lock the row so it cannot be issued between the check and the delete
+            Book book = findBookForUpdate(connection, name, author, false);
+            if (book == null) {
+                if (findBookForUpdate(connection, name, author, true) != null) {
+                    throw new LibraryException("Cannot remove book as it is currently issued");
                 }
-            }
-
-            // Check if book exists
-            if (bookIdToRemove == -1) {
                 throw new LibraryException("Book not found");
             }
+            int bookIdToRemove = book.id();
 
-            // Check for ID conflicts
-            if (isBookIdConflict(bookIdToRemove)) {
-                throw new LibraryException("Cannot remove book as it is currently issued");
-            }
-
-            // Delete the book
-            String deleteQuery = "DELETE FROM books WHERE id = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(deleteQuery)) {
+            try (PreparedStatement stmt = LibraryQuery.DELETE_BOOK.prepare(connection)) {
                 stmt.setInt(1, bookIdToRemove);
                 int result = stmt.executeUpdate();
 
-                if (result > 0) {
-                    // Get all books with higher IDs that are not issued
-                    String getHigherIdsQuery = "SELECT id FROM books WHERE id > ? ORDER BY id";
-                    try (PreparedStatement higherIdsStmt = connection.prepareStatement(getHigherIdsQuery)) {
-                        higherIdsStmt.setInt(1, bookIdToRemove);
-                        ResultSet rs = higherIdsStmt.executeQuery();
-
-                        while (rs.next()) {
-                            int currentId = rs.getInt("id");
-                            // Check if new ID would conflict with an issued book
-                            if (!isBookIdConflict(currentId - 1)) {
-                                // Update ID if no conflict
-                                String updateIdQuery = "UPDATE books SET id = ? WHERE id = ?";
-                                try (PreparedStatement updateStmt = connection.prepareStatement(updateIdQuery)) {
-                                    updateStmt.setInt(1, currentId - 1);
-                                    updateStmt.setInt(2, currentId);
-                                    updateStmt.executeUpdate();
-                                }
-                            }
-                        }
-                    }
-
-                    // Reset auto increment
-                    String maxIdQuery = "SELECT MAX(id) as max_id FROM books";
-                    try (Statement maxStmt = connection.createStatement();
-                            ResultSet rs = maxStmt.executeQuery(maxIdQuery)) {
-                        if (rs.next()) {
-                            int maxId = rs.getInt("max_id");
-                            String resetAutoIncrQuery = "ALTER TABLE books AUTO_INCREMENT = ?";
-                            try (PreparedStatement resetStmt = connection.prepareStatement(resetAutoIncrQuery)) {
-                                resetStmt.setInt(1, maxId + 1);
-                                resetStmt.executeUpdate();
-                            }
-                        }
+                if (result > 0 && removalMode == BookRemovalMode.RESEQUENCE) {
+                    // Close the gap with one set-based statement; ascending order avoids key collisions
+                    try (PreparedStatement shiftStmt = LibraryQuery.SHIFT_BOOK_IDS.prepare(connection)) {
+                        shiftStmt.setInt(1, bookIdToRemove);
+                        shiftStmt.executeUpdate();
                     }
                 }
 
                 connection.commit();
+            } catch (SQLException e) {
+                rollback(connection);
+                throw e;
+            }
+
+            if (removalMode == BookRemovalMode.RESEQUENCE) {
+                // DDL commits implicitly in MySQL, so this runs after the removal transaction
+                resetAutoIncrement(connection);
                 logger.info("Book removed and IDs resequenced successfully");
-                return result > 0;
+                fireEvent(LibraryListener::catalogReloaded);
+            } else {
+                logger.info("Book removed: {} by {} (ID {})", name, author, bookIdToRemove);
+                fireEvent(listener -> listener.bookRemoved(book));
             }
+            return true;
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException ex) {
-                throw new LibraryException("Failed to rollback transaction", ex);
-            }
             throw new LibraryException("Failed to remove book: " + e.getMessage());
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                throw new LibraryException("Failed to reset auto-commit", e);
+        }
+    }
+
+    // Locks and returns the book with the given issue state, or null if there is none
+    private Book findBookForUpdate(Connection connection, String name, String author, boolean issued)
+            throws SQLException {
+        try (PreparedStatement stmt = LibraryQuery.FIND_BOOK_FOR_UPDATE.prepare(connection)) {
+            stmt.setString(1, name);
+            stmt.setString(2, author);
+            stmt.setBoolean(3, issued);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapBook(rs) : null;
             }
         }
     }
 
-    private boolean isBookIdConflict(int id) {
-        String query = "SELECT COUNT(*) FROM books WHERE id = ? AND is_issued = true";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
-        } catch (SQLException e) {
-            throw new LibraryException("Failed to check book ID conflict: " + e.getMessage());
+    private void resetAutoIncrement(Connection connection) throws SQLException {
+        try (PreparedStatement stmt = LibraryQuery.MAX_BOOK_ID.prepare(connection);
+                ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                // DDL cannot take bind parameters; the value is an int read from the table. MySQL
+                // syntax, which H2 also accepts in MySQL mode (EmbeddedLibrary)
+                try (Statement resetStmt = connection.createStatement()) {
+                    resetStmt.executeUpdate("ALTER TABLE books AUTO_INCREMENT = " + (rs.getInt("max_id") + 1));
+                }
+            }
         }
     }
 
+    @Override
     public boolean isBookIssued(String name, String author) {
-        try (PreparedStatement statement = connection.prepareStatement(
-                "SELECT is_issued FROM books WHERE name = ? AND author = ?")) {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement statement = LibraryQuery.IS_BOOK_ISSUED.prepare(connection)) {
             statement.setString(1, name);
             statement.setString(2, author);
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -489,21 +859,14 @@ public class MyLibrary {
         }
     }
 
+    @Override
     public Book getBookById(int id) {
-        String query = "SELECT b.id, b.name, b.author, bc.category_name " +
-                "FROM books b " +
-                "LEFT JOIN book_categories bc ON b.category_id = bc.id " +
-                "WHERE b.id = ?";
-
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement stmt = LibraryQuery.BOOK_BY_ID.prepare(connection)) {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return new Book(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("author"),
-                            rs.getString("category_name"));
+                    return mapBook(rs);
                 }
             }
         } catch (SQLException e) {
@@ -513,14 +876,62 @@ public class MyLibrary {
         return null;
     }
 
-    public void close() {
-        if (connection != null) {
+    /**
+     * Counts ISSUE rows in {@code loan_events} through idx_loan_events_type_date; the catalog is not read.
+     */
+    @Override
+    public SortedMap<YearMonth, Long> getLoansPerMonth(YearMonth from, YearMonth to) {
+        SortedMap<YearMonth, Long> loans = new TreeMap<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            loans.put(month, 0L);
+        }
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement stmt = LibraryQuery.LOANS_PER_MONTH.prepare(connection)) {
+            stmt.setDate(1, java.sql.Date.valueOf(from.atDay(1)));
+            stmt.setDate(2, java.sql.Date.valueOf(to.plusMonths(1).atDay(1)));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    loans.put(YearMonth.of(rs.getInt("loan_year"), rs.getInt("loan_month")), rs.getLong("loans"));
+                }
+            }
+            return loans;
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to count loans per month: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void addLibraryListener(LibraryListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeLibraryListener(LibraryListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireEvent(Consumer<LibraryListener> event) {
+        for (LibraryListener listener : listeners) {
             try {
-                connection.close();
-                logger.info("Database connection closed successfully");
-            } catch (SQLException e) {
-                throw new LibraryException("Failed to close database connection", e);
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                // The change is already committed; a broken listener must not turn it into a failure
+                logger.error("Library listener failed", e);
             }
         }
     }
+
+    private void rollback(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.error("Failed to rollback transaction", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        connectionPool.close();
+        logger.info("Database connection closed successfully");
+    }
 }
\ No newline at end of file
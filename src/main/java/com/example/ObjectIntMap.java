@@ -0,0 +1,112 @@
+package com.example;
+
+/**
+ * Open-addressing hash map from object keys to {@code int} values, without boxing the values.
+ * {@link #get} returns 0 for a missing key, so values must be non-zero. Linear probing with
+ * backward-shift deletion like {@link IntObjectMap}. Not thread-safe.
+ */
+final class ObjectIntMap<K> {
+    static final int MISSING = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private Object[] keys;
+    private int[] values;
+    private int size;
+    private int resizeAt;
+
+    ObjectIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    int get(K key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            Object k = keys[i];
+            if (k == null) {
+                return MISSING;
+            } else if (k.equals(key)) {
+                return values[i];
+            }
+        }
+    }
+
+    int put(K key, int value) {
+        if (value == MISSING) {
+            throw new IllegalArgumentException("Values must be non-zero");
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        for (; keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(key)) {
+                int previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return MISSING;
+    }
+
+    int remove(K key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (!key.equals(keys[i])) {
+            if (keys[i] == null) {
+                return MISSING;
+            }
+            i = (i + 1) & mask;
+        }
+        int previous = values[i];
+        // Pull later entries of the same probe run back into the hole
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = MISSING;
+        size--;
+        return previous;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int slot(Object key, int mask) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new int[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Active loans ordered by return date, kept in memory from the library's change events, so
+ * overdue and soon-due loans are read off the front of the order in time proportional to how many
+ * there are. A sorted set rather than a heap, because returns remove loans from the middle.
+ * <p>
+ * The order is loaded by streaming the issued books when the tracker starts and again after bulk
+ * changes; loans issued or returned while that runs are applied on top of the result. Events only
+ * come from this instance, so loans changed at other desks on a shared database are picked up by
+ * the next reload, and every reminder run reloads first. A reminder run sends DUE reminders for loans
+ * due within {@code daysAhead} days and OVERDUE reminders for the rest to a {@link ReminderSink},
+ * in batches.
+ */
+public class OverdueTracker implements LibraryListener, AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(OverdueTracker.class);
+    private static final Comparator<IssuedBook> BY_RETURN_DATE =
+            Comparator.comparingInt(IssuedBook::returnEpochDay).thenComparingInt(IssuedBook::id);
+
+    private final LibraryRepository library;
+    private final ReminderSink sink;
+    private final int batchSize;
+    private final int daysAhead;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "overdue-tracker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Held for a whole reload so two never interleave their pending changes
+    private final Object reloadLock = new Object();
+    private NavigableSet<IssuedBook> byReturnDate = new TreeSet<>(BY_RETURN_DATE);
+    private Map<Integer, IssuedBook> byBookId = new HashMap<>();
+    // Changes seen while a reload is streaming, as book ID to loan or null for a return
+    private Map<Integer, IssuedBook> pending;
+    private volatile boolean loaded;
+
+    public static OverdueTracker start(LibraryRepository library) {
+        return start(library, ReminderSink.fromConfig(), DBHelper.getIntProperty("library.reminders.batchSize", 500),
+                DBHelper.getIntProperty("library.reminders.daysAhead", 1));
+    }
+
+    /**
+     * Registers for the library's events and starts loading the active loans in the background.
+     */
+    public static OverdueTracker start(LibraryRepository library, ReminderSink sink, int batchSize, int daysAhead) {
+        OverdueTracker tracker = new OverdueTracker(library, sink, batchSize, daysAhead);
+        library.addLibraryListener(tracker);
+        tracker.scheduler.execute(tracker::reloadQuietly);
+        return tracker;
+    }
+
+    private OverdueTracker(LibraryRepository library, ReminderSink sink, int batchSize, int daysAhead) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.library = library;
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.daysAhead = daysAhead;
+    }
+
+    /**
+     * Replaces the tracked loans with the library's issued books.
+     */
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                pending = new HashMap<>();
+            }
+            NavigableSet<IssuedBook> freshOrder = new TreeSet<>(BY_RETURN_DATE);
+            Map<Integer, IssuedBook> freshIds = new HashMap<>();
+            try {
+                library.forEachIssuedBook(loan -> {
+                    if (loan.returnEpochDay() != IssuedBook.NO_DATE) {
+                        freshOrder.add(loan);
+                        freshIds.put(loan.id(), loan);
+                    }
+                });
+            } catch (LibraryException e) {
+                synchronized (this) {
+                    pending = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                Map<Integer, IssuedBook> changes = pending;
+                pending = null;
+                byReturnDate = freshOrder;
+                byBookId = freshIds;
+                changes.forEach((bookId, loan) -> {
+                    if (loan != null) {
+                        track(loan);
+                    } else {
+                        untrack(bookId);
+                    }
+                });
+            }
+        }
+        loaded = true;
+        logger.info("Tracking {} active loans", size());
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (LibraryException e) {
+            logger.error("Failed to load active loans", e);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized int size() {
+        return byBookId.size();
+    }
+
+    /**
+     * Returns the loans due before {@code today}, most overdue first.
+     */
+    public synchronized List<IssuedBook> getOverdueLoans(LocalDate today) {
+        return new ArrayList<>(dueBefore(today.toEpochDay()));
+    }
+
+    /**
+     * Returns the loans due on {@code from} up to and including {@code to}, earliest first.
+     */
+    public synchronized List<IssuedBook> getLoansDueBetween(LocalDate from, LocalDate to) {
+        return new ArrayList<>(byReturnDate.subSet(bound(from.toEpochDay(), Integer.MIN_VALUE), true,
+                bound(to.toEpochDay(), Integer.MAX_VALUE), true));
+    }
+
+    private NavigableSet<IssuedBook> dueBefore(long epochDay) {
+        return byReturnDate.headSet(bound(epochDay, Integer.MIN_VALUE), false);
+    }
+
+    // A probe that sorts before or after every loan due on the given day
+    private static IssuedBook bound(long epochDay, int id) {
+        return new IssuedBook(new Book(id, null, null, (Category) null), null, (int) epochDay, IssuedBook.NO_DATE);
+    }
+
+    /**
+     * Sends reminders for every loan that is overdue or due within {@code daysAhead} days of
+     * {@code today}, {@code batchSize} at a time, and returns how many were sent. A batch the sink
+     * rejects is logged and skipped.
+     */
+    public int sendReminders(LocalDate today) {
+        List<ReminderSink.Reminder> reminders = new ArrayList<>();
+        long todayEpochDay = today.toEpochDay();
+        synchronized (this) {
+            for (IssuedBook loan : dueBefore(todayEpochDay + daysAhead + 1)) {
+                long days = loan.returnEpochDay() - todayEpochDay;
+                reminders.add(days < 0 ? new ReminderSink.Reminder(ReminderSink.Kind.OVERDUE, loan, -days)
+                        : new ReminderSink.Reminder(ReminderSink.Kind.DUE, loan, days));
+            }
+        }
+        int sent = 0;
+        for (int from = 0; from < reminders.size(); from += batchSize) {
+            List<ReminderSink.Reminder> batch = reminders.subList(from, Math.min(from + batchSize, reminders.size()));
+            try {
+                sink.send(batch);
+                sent += batch.size();
+            } catch (LibraryException e) {
+                logger.error("Failed to send {} reminders: {}", batch.size(), e.getMessage());
+            }
+        }
+        logger.info("Sent {} of {} loan reminders for {}", sent, reminders.size(), today);
+        return sent;
+    }
+
+    /**
+     * Reloads the active loans, so loans issued or returned at other desks are included, then
+     * sends the reminders for {@code today}. A failed reload sends nothing.
+     */
+    public int reloadAndSendReminders(LocalDate today) {
+        reload();
+        return sendReminders(today);
+    }
+
+    /**
+     * Runs {@link #reloadAndSendReminders} for the current date every day at {@code runAt}, local
+     * time. Schedule it on one instance per database, or every desk sends the same reminders.
+     */
+    public void scheduleDaily(LocalTime runAt) {
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime next = now.with(runAt);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        scheduler.schedule(() -> runScheduled(runAt), Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Next loan reminders at {}", next);
+    }
+
+    private void runScheduled(LocalTime runAt) {
+        try {
+            reloadAndSendReminders(LocalDate.now());
+        } catch (RuntimeException e) {
+            logger.error("Scheduled loan reminders failed", e);
+        } finally {
+            if (!scheduler.isShutdown()) {
+                scheduleDaily(runAt);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void bookIssued(IssuedBook issuedBook) {
+        if (issuedBook.returnEpochDay() == IssuedBook.NO_DATE) {
+            return;
+        }
+        track(issuedBook);
+        if (pending != null) {
+            pending.put(issuedBook.id(), issuedBook);
+        }
+    }
+
+    @Override
+    public synchronized void bookReturned(Book book) {
+        untrack(book.id());
+        if (pending != null) {
+            pending.put(book.id(), null);
+        }
+    }
+
+    @Override
+    public void catalogReloaded() {
+        if (!scheduler.isShutdown()) {
+            scheduler.execute(this::reloadQuietly);
+        }
+    }
+
+    private void track(IssuedBook loan) {
+        untrack(loan.id());
+        byBookId.put(loan.id(), loan);
+        byReturnDate.add(loan);
+    }
+
+    private void untrack(int bookId) {
+        IssuedBook previous = byBookId.remove(bookId);
+        if (previous != null) {
+            byReturnDate.remove(previous);
+        }
+    }
+
+    @Override
+    public void close() {
+        library.removeLibraryListener(this);
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * One page of a keyset-paginated query. The cursor is the ID of the last row on the page.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final int nextCursor;
+    private final boolean hasMore;
+
+    public Page(List<T> items, int nextCursor, boolean hasMore) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Builds a page from a query that asked for pageSize + 1 rows
+    static <T> Page<T> of(List<T> rows, int pageSize, int afterId, ToIntFunction<T> idOf) {
+        boolean hasMore = rows.size() > pageSize;
+        List<T> items = hasMore ? rows.subList(0, pageSize) : rows;
+        int nextCursor = items.isEmpty() ? afterId : idOf.applyAsInt(items.get(items.size() - 1));
+        return new Page<>(items, nextCursor, hasMore);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
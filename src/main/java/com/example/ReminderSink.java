@@ -0,0 +1,88 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Delivers loan reminders from {@link OverdueTracker}, one batch at a time. Implementations
+ * report delivery failures as {@link LibraryException}; the tracker logs them and carries on
+ * with the next batch.
+ */
+@FunctionalInterface
+public interface ReminderSink {
+
+    void send(List<Reminder> batch);
+
+    /**
+     * Returns the sink named by {@code library.reminders.sink}: {@code log} (the default) or
+     * {@code file}, which appends to {@code library.reminders.file}.
+     */
+    static ReminderSink fromConfig() {
+        String sink = DBHelper.getProperty("library.reminders.sink", "log").trim();
+        if (sink.equalsIgnoreCase("file")) {
+            return toFile(Path.of(DBHelper.getProperty("library.reminders.file", "library-data/reminders.txt").trim()));
+        } else if (sink.equalsIgnoreCase("log")) {
+            return toLog();
+        }
+        throw new LibraryException("Unknown library.reminders.sink: " + sink);
+    }
+
+    /**
+     * Writes each reminder to the log as the message a mailer would send.
+     */
+    static ReminderSink toLog() {
+        Logger logger = LogManager.getLogger(ReminderSink.class);
+        return batch -> batch.forEach(reminder -> logger.info("To {}: {}", reminder.loan().issuedTo(), reminder.message()));
+    }
+
+    /**
+     * Appends one line per reminder to {@code file}, creating it if needed.
+     */
+    static ReminderSink toFile(Path file) {
+        return batch -> {
+            try {
+                Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (Reminder reminder : batch) {
+                        out.write(reminder.kind() + "\t" + reminder.loan().issuedTo() + "\t" + reminder.loan().id()
+                                + "\t" + reminder.loan().returnDate() + "\t" + reminder.message());
+                        out.newLine();
+                    }
+                }
+            } catch (IOException e) {
+                throw new LibraryException("Failed to write reminders to " + file + ": " + e.getMessage(), e);
+            }
+        };
+    }
+
+    enum Kind {
+        DUE, OVERDUE
+    }
+
+    /**
+     * One reminder about one loan; {@code days} is the days left for DUE and the days overdue for
+     * OVERDUE.
+     */
+    record Reminder(Kind kind, IssuedBook loan, long days) {
+        public String message() {
+            if (kind == Kind.OVERDUE) {
+                return String.format("\"%s\" by %s was due back on %s and is %d day%s overdue", loan.name(),
+                        loan.author(), loan.returnDate(), days, days == 1 ? "" : "s");
+            }
+            return days == 0
+                    ? String.format("\"%s\" by %s is due back today", loan.name(), loan.author())
+                    : String.format("\"%s\" by %s is due back on %s", loan.name(), loan.author(), loan.returnDate());
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Builds the library report: circulation by category, top authors, overdue loans by age and fine
+ * totals by category. The book ID range is split into partitions of {@code partitionSize} IDs that
+ * are aggregated on a fork/join pool, each on its own pooled connection, and merged pairwise. A
+ * partition keeps only per-category and per-bucket totals, so memory depends on the number of
+ * categories rather than the size of the catalog; top authors are grouped by the database in one
+ * query that runs alongside the partitions, and category names are looked up once at the end.
+ * <p>
+ * The pool never runs more workers than the connection pool can serve while leaving one
+ * connection for the rest of the application.
+ */
+public class ReportEngine implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(ReportEngine.class);
+    // Upper bounds, in days overdue, of every aging bucket but the last
+    private static final int[] AGING_LIMITS = { 7, 30, 90 };
+    private static final String[] AGING_LABELS = { "1-7 days", "8-30 days", "31-90 days", "over 90 days" };
+    // The fines row for books that have been removed since they were fined
+    static final String REMOVED_BOOKS = "(removed books)";
+
+    private final ConnectionPool connectionPool;
+    private final int partitionSize;
+    private final int topAuthors;
+    private final ForkJoinPool workers;
+
+    /**
+     * With {@code parallelism} of 0 the engine uses one worker per core.
+     */
+    public ReportEngine(ConnectionPool connectionPool, int parallelism, int partitionSize, int topAuthors) {
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("Partition size must be positive");
+        }
+        this.connectionPool = connectionPool;
+        this.partitionSize = partitionSize;
+        this.topAuthors = topAuthors;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        threads = Math.max(1, Math.min(threads, connectionPool.getMaxSize() - 1));
+        // No spare threads for blocked joins: each worker may hold a connection
+        this.workers = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("report-engine-" + thread.getPoolIndex());
+            return thread;
+        }, null, false, threads, threads, 1, pool -> true, 60, TimeUnit.SECONDS);
+    }
+
+    public int getParallelism() {
+        return workers.getParallelism();
+    }
+
+    /**
+     * Builds the report as of {@code asOf}; loans due before that date are overdue.
+     */
+    public Report run(LocalDate asOf) {
+        long start = System.nanoTime();
+        int maxId = maxBookId();
+        ForkJoinTask<List<AuthorCirculation>> authors = workers.submit(this::topAuthors);
+        Partial totals = workers.invoke(new PartitionTask(0, maxId, Date.valueOf(asOf), asOf.toEpochDay()));
+
+        Map<Integer, String> names = categoryNames();
+        List<CategoryCirculation> circulation = new ArrayList<>();
+        totals.circulation.forEach((categoryId, counts) -> circulation.add(
+                new CategoryCirculation(categoryName(names, categoryId), counts[0], counts[1], counts[2])));
+        circulation.sort(Comparator.comparing(CategoryCirculation::category));
+        List<AgingBucket> aging = new ArrayList<>();
+        for (int i = 0; i < AGING_LABELS.length; i++) {
+            aging.add(new AgingBucket(AGING_LABELS[i], totals.aging[i]));
+        }
+        List<CategoryFines> fines = new ArrayList<>();
+        totals.fines.forEach((categoryId, fine) -> fines.add(
+                new CategoryFines(categoryName(names, categoryId), fine.count, fine.total, fine.paid)));
+        CategoryFines removed = removedBookFines();
+        if (removed.fines() > 0) {
+            fines.add(removed);
+        }
+        fines.sort(Comparator.comparing(CategoryFines::category));
+
+        Report report = new Report(asOf, circulation, authors.join(), aging, fines, totals.partitions,
+                workers.getParallelism(), System.nanoTime() - start);
+        logger.info("Built report for {}: {}", asOf, report);
+        return report;
+    }
+
+    /**
+     * Builds the report on the engine's workers and writes it to {@code directory} as one CSV file
+     * per section and {@code report.json}.
+     */
+    public CompletableFuture<Report> export(LocalDate asOf, Path directory) {
+        return CompletableFuture.supplyAsync(() -> {
+            Report report = run(asOf);
+            report.writeCsv(directory);
+            report.writeJson(directory.resolve("report.json"));
+            return report;
+        }, workers);
+    }
+
+    private int maxBookId() {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement stmt = LibraryQuery.MAX_BOOK_ID.prepare(connection);
+                ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt("max_id") : 0;
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to start report: " + e.getMessage(), e);
+        }
+    }
+
+    private Map<Integer, String> categoryNames() {
+        Map<Integer, String> names = new HashMap<>();
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement stmt = LibraryQuery.CATEGORY_NAMES_BY_ID.prepare(connection);
+                ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                names.put(rs.getInt("id"), rs.getString("category_name"));
+            }
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to read categories for report: " + e.getMessage(), e);
+        }
+        return names;
+    }
+
+    private CategoryFines removedBookFines() {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement stmt = LibraryQuery.REPORT_FINES_REMOVED_BOOKS.prepare(connection);
+                ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return new CategoryFines(REMOVED_BOOKS, rs.getLong("fines"), rs.getBigDecimal("total"),
+                    rs.getBigDecimal("paid"));
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to report fines of removed books: " + e.getMessage(), e);
+        }
+    }
+
+    private static String categoryName(Map<Integer, String> names, int categoryId) {
+        return names.getOrDefault(categoryId, LibraryStatistics.UNCATEGORIZED);
+    }
+
+    private List<AuthorCirculation> topAuthors() {
+        List<AuthorCirculation> authors = new ArrayList<>();
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement stmt = LibraryQuery.REPORT_TOP_AUTHORS.prepare(connection)) {
+            stmt.setInt(1, topAuthors);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    authors.add(new AuthorCirculation(rs.getString("author"), rs.getLong("books"),
+                            rs.getLong("issued")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to report top authors: " + e.getMessage(), e);
+        }
+        return authors;
+    }
+
+    // Aggregates book IDs afterId + 1 to toId on one connection
+    private Partial scan(int afterId, int toId, Date asOfDate, long asOfDay) {
+        Partial partial = new Partial();
+        partial.partitions = 1;
+        try (Connection connection = connectionPool.getConnection()) {
+            try (PreparedStatement stmt = LibraryQuery.REPORT_CIRCULATION_IN_RANGE.prepare(connection)) {
+                stmt.setInt(1, afterId);
+                stmt.setInt(2, toId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        long[] counts = partial.circulation(rs.getInt("category_id"));
+                        long books = rs.getLong("books");
+                        counts[0] += books;
+                        if (rs.getBoolean("is_issued")) {
+                            counts[1] += books;
+                        }
+                    }
+                }
+            }
+            try (PreparedStatement stmt = LibraryQuery.REPORT_OVERDUE_IN_RANGE.prepare(connection)) {
+                stmt.setInt(1, afterId);
+                stmt.setInt(2, toId);
+                stmt.setDate(3, asOfDate);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        long loans = rs.getLong("loans");
+                        long daysOverdue = asOfDay - rs.getDate("return_date").toLocalDate().toEpochDay();
+                        partial.circulation(rs.getInt("category_id"))[2] += loans;
+                        partial.aging[agingBucket(daysOverdue)] += loans;
+                    }
+                }
+            }
+            try (PreparedStatement stmt = LibraryQuery.REPORT_FINES_IN_RANGE.prepare(connection)) {
+                stmt.setInt(1, afterId);
+                stmt.setInt(2, toId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        partial.fines(rs.getInt("category_id"))
+                                .add(rs.getLong("fines"), rs.getBigDecimal("total"), rs.getBigDecimal("paid"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new LibraryException("Report failed for book IDs " + (afterId + 1) + " to " + toId + ": "
+                    + e.getMessage(), e);
+        }
+        return partial;
+    }
+
+    private static int agingBucket(long daysOverdue) {
+        for (int i = 0; i < AGING_LIMITS.length; i++) {
+            if (daysOverdue <= AGING_LIMITS[i]) {
+                return i;
+            }
+        }
+        return AGING_LIMITS.length;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    // Splits its ID range in half until it is no wider than partitionSize
+    private final class PartitionTask extends RecursiveTask<Partial> {
+        private final int afterId;
+        private final int toId;
+        private final Date asOfDate;
+        private final long asOfDay;
+
+        PartitionTask(int afterId, int toId, Date asOfDate, long asOfDay) {
+            this.afterId = afterId;
+            this.toId = toId;
+            this.asOfDate = asOfDate;
+            this.asOfDay = asOfDay;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (toId - afterId <= partitionSize) {
+                return scan(afterId, toId, asOfDate, asOfDay);
+            }
+            int middle = afterId + (toId - afterId) / 2;
+            PartitionTask upper = new PartitionTask(middle, toId, asOfDate, asOfDay);
+            upper.fork();
+            Partial lower = new PartitionTask(afterId, middle, asOfDate, asOfDay).compute();
+            return lower.merge(upper.join());
+        }
+    }
+
+    // Totals for one or more partitions, by category ID (0 for books without a category)
+    private static final class Partial {
+        // {books, issued, overdue}
+        private final Map<Integer, long[]> circulation = new HashMap<>();
+        private final long[] aging = new long[AGING_LABELS.length];
+        private final Map<Integer, FineTotals> fines = new HashMap<>();
+        private int partitions;
+
+        long[] circulation(int categoryId) {
+            return circulation.computeIfAbsent(categoryId, k -> new long[3]);
+        }
+
+        FineTotals fines(int categoryId) {
+            return fines.computeIfAbsent(categoryId, k -> new FineTotals());
+        }
+
+        Partial merge(Partial other) {
+            other.circulation.forEach((categoryId, counts) -> {
+                long[] into = circulation(categoryId);
+                for (int i = 0; i < counts.length; i++) {
+                    into[i] += counts[i];
+                }
+            });
+            for (int i = 0; i < aging.length; i++) {
+                aging[i] += other.aging[i];
+            }
+            other.fines.forEach((categoryId, fine) -> fines(categoryId).add(fine.count, fine.total, fine.paid));
+            partitions += other.partitions;
+            return this;
+        }
+    }
+
+    private static final class FineTotals {
+        private long count;
+        private BigDecimal total = BigDecimal.ZERO;
+        private BigDecimal paid = BigDecimal.ZERO;
+
+        void add(long fines, BigDecimal fineTotal, BigDecimal paidTotal) {
+            count += fines;
+            total = total.add(fineTotal);
+            paid = paid.add(paidTotal);
+        }
+    }
+
+    public record CategoryCirculation(String category, long books, long issued, long overdue) {
+    }
+
+    public record AuthorCirculation(String author, long books, long issued) {
+    }
+
+    public record AgingBucket(String daysOverdue, long loans) {
+    }
+
+    public record CategoryFines(String category, long fines, BigDecimal total, BigDecimal paid) {
+        public BigDecimal outstanding() {
+            return total.subtract(paid);
+        }
+    }
+
+    /**
+     * One report; categories are in name order, authors by books issued and then books held.
+     */
+    public record Report(LocalDate asOf, List<CategoryCirculation> circulation, List<AuthorCirculation> topAuthors,
+            List<AgingBucket> overdueAging, List<CategoryFines> fines, int partitions, int parallelism,
+            long elapsedNanos) {
+
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1_000_000_000.0;
+        }
+
+        /**
+         * Writes circulation.csv, top-authors.csv, overdue-aging.csv and fines.csv to
+         * {@code directory}, replacing earlier ones.
+         */
+        public void writeCsv(Path directory) {
+            List<String> rows = new ArrayList<>();
+            rows.add("category,books,issued,overdue");
+            circulation.forEach(row -> rows.add(csv(row.category()) + "," + row.books() + "," + row.issued() + ","
+                    + row.overdue()));
+            write(directory.resolve("circulation.csv"), rows);
+
+            rows.clear();
+            rows.add("author,books,issued");
+            topAuthors.forEach(row -> rows.add(csv(row.author()) + "," + row.books() + "," + row.issued()));
+            write(directory.resolve("top-authors.csv"), rows);
+
+            rows.clear();
+            rows.add("days_overdue,loans");
+            overdueAging.forEach(row -> rows.add(csv(row.daysOverdue()) + "," + row.loans()));
+            write(directory.resolve("overdue-aging.csv"), rows);
+
+            rows.clear();
+            rows.add("category,fines,total,paid,outstanding");
+            fines.forEach(row -> rows.add(csv(row.category()) + "," + row.fines() + "," + row.total().toPlainString()
+                    + "," + row.paid().toPlainString() + "," + row.outstanding().toPlainString()));
+            write(directory.resolve("fines.csv"), rows);
+        }
+
+        /**
+         * Writes the whole report to {@code file} as one JSON object.
+         */
+        public void writeJson(Path file) {
+            StringBuilder json = new StringBuilder(4096);
+            json.append("{\n  \"asOf\": ").append(json(asOf.toString()));
+            json.append(",\n  \"circulation\": [");
+            appendAll(json, circulation, row -> "{\"category\": " + json(row.category()) + ", \"books\": "
+                    + row.books() + ", \"issued\": " + row.issued() + ", \"overdue\": " + row.overdue() + "}");
+            json.append("],\n  \"topAuthors\": [");
+            appendAll(json, topAuthors, row -> "{\"author\": " + json(row.author()) + ", \"books\": " + row.books()
+                    + ", \"issued\": " + row.issued() + "}");
+            json.append("],\n  \"overdueAging\": [");
+            appendAll(json, overdueAging, row -> "{\"daysOverdue\": " + json(row.daysOverdue()) + ", \"loans\": "
+                    + row.loans() + "}");
+            json.append("],\n  \"fines\": [");
+            appendAll(json, fines, row -> "{\"category\": " + json(row.category()) + ", \"fines\": " + row.fines()
+                    + ", \"total\": " + row.total().toPlainString() + ", \"paid\": " + row.paid().toPlainString()
+                    + ", \"outstanding\": " + row.outstanding().toPlainString() + "}");
+            json.append("]\n}");
+            write(file, List.of(json.toString()));
+        }
+
+        private static <T> void appendAll(StringBuilder json, List<T> rows, Function<T, String> format) {
+            for (int i = 0; i < rows.size(); i++) {
+                json.append(i == 0 ? "\n    " : ",\n    ").append(format.apply(rows.get(i)));
+            }
+            if (!rows.isEmpty()) {
+                json.append("\n  ");
+            }
+        }
+
+        // Quoted only when needed, with "" for a quote, as BookImporter reads it
+        private static String csv(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        private static String json(String value) {
+            StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> quoted.append("\\\"");
+                    case '\\' -> quoted.append("\\\\");
+                    case '\n' -> quoted.append("\\n");
+                    case '\r' -> quoted.append("\\r");
+                    case '\t' -> quoted.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            quoted.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            quoted.append(c);
+                        }
+                    }
+                }
+            }
+            return quoted.append('"').toString();
+        }
+
+        private static void write(Path file, List<String> lines) {
+            try {
+                Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    for (String line : lines) {
+                        out.write(line);
+                        out.newLine();
+                    }
+                }
+            } catch (IOException e) {
+                throw new LibraryException("Failed to write report to " + file + ": " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d categories, %d authors, %d partitions on %d workers in %.2f s",
+                    circulation.size(), topAuthors.size(), partitions, parallelism, getElapsedSeconds());
+        }
+    }
+}
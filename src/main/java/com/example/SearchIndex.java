@@ -0,0 +1,792 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Inverted index over book titles and authors for the live search box. Queries match every word;
+ * the last word also matches as a prefix, since it is usually still being typed. When nothing
+ * matches as typed, words of four or more letters also match terms one edit away. Results are
+ * ranked by how well each word matched and whether it matched the title or the author. A query of
+ * several words stops looking once it has a full page from {@value #MAX_CANDIDATES} candidate books,
+ * so when one of the words is very common the page is the best of those rather than of all matches.
+ * <p>
+ * The index is filled by {@link #rebuild()} and then kept current from the library's change events.
+ */
+public class SearchIndex implements LibraryListener {
+    private static final Logger logger = LogManager.getLogger(SearchIndex.class);
+
+    private static final int TITLE = 0;
+    private static final int AUTHOR = 1;
+    private static final double[] FIELD_WEIGHTS = { 1.0, 0.6 };
+    private static final double EXACT_WEIGHT = 1.0;
+    private static final double TYPO_WEIGHT = 0.5;
+    // A prefix match scores between these, higher the more of the term was typed
+    private static final double MIN_PREFIX_WEIGHT = 0.4;
+    private static final double MAX_PREFIX_WEIGHT = 0.9;
+    private static final int MAX_QUERY_TERMS = 8;
+    // A short prefix can match thousands of terms; a search starting from it only follows the shortest
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_PREFIX_SCAN = 1024;
+    private static final int MAX_TERM_LENGTH = 32;
+    private static final int MIN_TYPO_LENGTH = 4;
+    // Books a query of several words checks before settling for the page it has
+    private static final int MAX_CANDIDATES = 512;
+
+    private final LibraryRepository library;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    // Changes that arrive while rebuild() scans the library, replayed onto the new index
+    private List<Consumer<Index>> pending;
+
+    /**
+     * Returns an empty index that follows {@code library}'s changes; {@link #rebuild} fills it.
+     */
+    public static SearchIndex create(LibraryRepository library) {
+        SearchIndex index = new SearchIndex(library);
+        library.addLibraryListener(index);
+        return index;
+    }
+
+    private SearchIndex(LibraryRepository library) {
+        this.library = library;
+    }
+
+    /**
+     * Scans the whole catalog into a new index and swaps it in. Searches keep using the old index
+     * while the scan runs.
+     */
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        Index fresh = new Index();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        boolean scanned = false;
+        try {
+            library.forEachAvailableBook(book -> fresh.put(book.id(), book.name(), book.author(),
+                    book.categoryName(), false));
+            library.forEachIssuedBook(book -> fresh.put(book.id(), book.name(), book.author(),
+                    book.categoryName(), true));
+            scanned = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (scanned) {
+                    pending.forEach(change -> change.accept(fresh));
+                    index = fresh;
+                }
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        logger.info("Indexed {} books ({} terms) in {} ms", fresh.docs.size(), fresh.terms.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Returns up to {@code limit} books matching every word of {@code query}, best match first.
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        if (words.size() > MAX_QUERY_TERMS) {
+            words = words.subList(0, MAX_QUERY_TERMS);
+        }
+        List<Hit> hits;
+        lock.readLock().lock();
+        try {
+            hits = index.search(words, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (hits.stream().noneMatch(hit -> hit.stale)) {
+            return hits;
+        }
+        List<Hit> refreshed = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            Book book = hit.stale ? library.getBookById(hit.id) : null;
+            if (book != null) {
+                update(ix -> ix.setCategory(book.id(), book.categoryName()));
+                hit = new Hit(hit, book.categoryName());
+            }
+            refreshed.add(hit);
+        }
+        return refreshed;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        update(ix -> ix.put(book.id(), book.name(), book.author(), book.categoryName(), false));
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        update(ix -> ix.remove(book.id()));
+    }
+
+    @Override
+    public void bookIssued(IssuedBook book) {
+        update(ix -> ix.put(book.id(), book.name(), book.author(), book.categoryName(), true));
+    }
+
+    @Override
+    public void bookReturned(Book book) {
+        update(ix -> ix.put(book.id(), book.name(), book.author(), book.categoryName(), false));
+    }
+
+    @Override
+    public void bookUpdated(int bookId) {
+        // Only the category can change. Fetching it here would query from the writer's thread, so
+        // it is fetched by the next search that returns the book
+        update(ix -> ix.markStale(bookId));
+    }
+
+    @Override
+    public void catalogReloaded() {
+        Thread.ofVirtual().name("search-index-rebuild").start(() -> {
+            try {
+                rebuild();
+            } catch (LibraryException e) {
+                logger.error("Failed to rebuild the search index: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void update(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower-case words of letters and digits, with accents removed.
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String normalized = text;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                normalized = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+                break;
+            }
+        }
+        normalized = normalized.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String word = normalized.substring(start, i);
+                if (!words.contains(word)) {
+                    words.add(word);
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // True if a and b differ by at most one insertion, deletion, substitution or adjacent swap
+    static boolean withinOneEdit(String a, String b) {
+        if (a.length() < b.length()) {
+            String shorter = a;
+            a = b;
+            b = shorter;
+        }
+        int lengthDifference = a.length() - b.length();
+        if (lengthDifference > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < b.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (i == b.length()) {
+            return true;
+        }
+        if (lengthDifference == 1) {
+            return a.regionMatches(i + 1, b, i, b.length() - i);
+        }
+        if (a.regionMatches(i + 1, b, i + 1, b.length() - i - 1)) {
+            return true;
+        }
+        return i + 1 < b.length() && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                && a.regionMatches(i + 2, b, i + 2, b.length() - i - 2);
+    }
+
+    private static boolean isTypoCandidate(String term) {
+        if (term.length() < MIN_TYPO_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            if (Character.isLetter(term.charAt(i))) {
+                return true;
+            }
+        }
+        return false; // numbers such as years are only matched exactly or by prefix
+    }
+
+    // Positive, non-zero key for IntObjectMap; collisions are resolved by withinOneEdit
+    private static int deletionKey(String deletion) {
+        int hash = deletion.hashCode() & 0x7FFFFFFF;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static List<String> deletions(String term) {
+        List<String> result = new ArrayList<>(term.length());
+        for (int i = 0; i < term.length(); i++) {
+            if (i > 0 && term.charAt(i) == term.charAt(i - 1)) {
+                continue; // same string as deleting the previous character
+            }
+            result.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return result;
+    }
+
+    /**
+     * One search result: the book as indexed, whether it is currently issued, and its score.
+     */
+    public static final class Hit {
+        private final int id;
+        private final String name;
+        private final String author;
+        private final String category;
+        private final boolean issued;
+        private final double score;
+        private final boolean stale;
+
+        Hit(Doc doc, double score) {
+            this.id = doc.id;
+            this.name = doc.name;
+            this.author = doc.author;
+            this.category = doc.category;
+            this.issued = doc.issued;
+            this.score = score;
+            this.stale = doc.stale;
+        }
+
+        Hit(Hit hit, String category) {
+            this.id = hit.id;
+            this.name = hit.name;
+            this.author = hit.author;
+            this.category = category;
+            this.issued = hit.issued;
+            this.score = hit.score;
+            this.stale = false;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getAuthor() {
+            return author;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public boolean isIssued() {
+            return issued;
+        }
+
+        public String getStatus() {
+            return issued ? "Issued" : "Available";
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    private static final class Doc {
+        final int id;
+        final String name;
+        final String author;
+        String category;
+        boolean issued;
+        // The category was reassigned and has not been fetched yet
+        boolean stale;
+
+        Doc(int id, String name, String author, String category, boolean issued) {
+            this.id = id;
+            this.name = name;
+            this.author = author;
+            this.category = category;
+            this.issued = issued;
+        }
+    }
+
+    /**
+     * Sorted postings for one term. Each entry is {@code bookId << 1 | field}, so a book's title and
+     * author entries sit next to each other.
+     */
+    private static final class Postings {
+        int[] entries = new int[2];
+        int size;
+        // Entries per field, so a query can bound the best score a term can contribute
+        final int[] fieldCounts = new int[2];
+
+        void add(int entry) {
+            if (size == 0 || entry > entries[size - 1]) {
+                if (size == entries.length) {
+                    entries = Arrays.copyOf(entries, size * 2);
+                }
+                entries[size++] = entry;
+            } else {
+                int at = Arrays.binarySearch(entries, 0, size, entry);
+                if (at >= 0) {
+                    return;
+                }
+                at = -at - 1;
+                if (size == entries.length) {
+                    entries = Arrays.copyOf(entries, size * 2);
+                }
+                System.arraycopy(entries, at, entries, at + 1, size - at);
+                entries[at] = entry;
+                size++;
+            }
+            fieldCounts[entry & 1]++;
+        }
+
+        void remove(int entry) {
+            int at = Arrays.binarySearch(entries, 0, size, entry);
+            if (at >= 0) {
+                System.arraycopy(entries, at + 1, entries, at, size - at - 1);
+                size--;
+                fieldCounts[entry & 1]--;
+            }
+        }
+
+        boolean contains(int entry) {
+            return Arrays.binarySearch(entries, 0, size, entry) >= 0;
+        }
+
+        double bestFieldWeight() {
+            return fieldCounts[TITLE] > 0 ? FIELD_WEIGHTS[TITLE] : FIELD_WEIGHTS[AUTHOR];
+        }
+    }
+
+    private static final class Index {
+        final TreeMap<String, Postings> terms = new TreeMap<>();
+        // Hash of each single-character deletion of a term -> the term, or a String[] of terms
+        final IntObjectMap<Object> deletions = new IntObjectMap<>(1024);
+        final IntObjectMap<Doc> docs = new IntObjectMap<>(1024);
+
+        void put(int id, String name, String author, String category, boolean issued) {
+            Doc doc = docs.get(id);
+            if (doc != null && doc.name.equals(name) && doc.author.equals(author)) {
+                doc.category = category;
+                doc.issued = issued;
+                doc.stale = false;
+                return;
+            }
+            if (doc != null) {
+                remove(id);
+            }
+            docs.put(id, new Doc(id, name, author, category, issued));
+            addTerms(id, name, TITLE);
+            addTerms(id, author, AUTHOR);
+        }
+
+        void remove(int id) {
+            Doc doc = docs.remove(id);
+            if (doc != null) {
+                removeTerms(id, doc.name, TITLE);
+                removeTerms(id, doc.author, AUTHOR);
+            }
+        }
+
+        void markStale(int id) {
+            Doc doc = docs.get(id);
+            if (doc != null) {
+                doc.stale = true;
+            }
+        }
+
+        void setCategory(int id, String category) {
+            Doc doc = docs.get(id);
+            if (doc != null) {
+                doc.category = category;
+                doc.stale = false;
+            }
+        }
+
+        private void addTerms(int id, String text, int field) {
+            for (String term : tokenize(text)) {
+                Postings postings = terms.get(term);
+                if (postings == null) {
+                    postings = new Postings();
+                    terms.put(term, postings);
+                    if (isTypoCandidate(term)) {
+                        for (String deletion : deletions(term)) {
+                            addDeletion(deletionKey(deletion), term);
+                        }
+                    }
+                }
+                postings.add(id << 1 | field);
+            }
+        }
+
+        private void removeTerms(int id, String text, int field) {
+            for (String term : tokenize(text)) {
+                Postings postings = terms.get(term);
+                if (postings == null) {
+                    continue;
+                }
+                postings.remove(id << 1 | field);
+                if (postings.size == 0) {
+                    terms.remove(term);
+                    if (isTypoCandidate(term)) {
+                        for (String deletion : deletions(term)) {
+                            removeDeletion(deletionKey(deletion), term);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void addDeletion(int key, String term) {
+            Object bucket = deletions.get(key);
+            if (bucket == null) {
+                deletions.put(key, term);
+            } else if (bucket instanceof String existing) {
+                if (!existing.equals(term)) {
+                    deletions.put(key, new String[] { existing, term });
+                }
+            } else {
+                String[] existing = (String[]) bucket;
+                if (!Arrays.asList(existing).contains(term)) {
+                    String[] grown = Arrays.copyOf(existing, existing.length + 1);
+                    grown[existing.length] = term;
+                    deletions.put(key, grown);
+                }
+            }
+        }
+
+        private void removeDeletion(int key, String term) {
+            Object bucket = deletions.get(key);
+            if (bucket instanceof String existing) {
+                if (existing.equals(term)) {
+                    deletions.remove(key);
+                }
+            } else if (bucket != null) {
+                String[] remaining = Arrays.stream((String[]) bucket).filter(t -> !t.equals(term))
+                        .toArray(String[]::new);
+                deletions.put(key, remaining.length == 1 ? remaining[0] : remaining);
+            }
+        }
+
+        private void addBucket(int key, List<String> out) {
+            Object bucket = deletions.get(key);
+            if (bucket instanceof String term) {
+                out.add(term);
+            } else if (bucket != null) {
+                out.addAll(Arrays.asList((String[]) bucket));
+            }
+        }
+
+        // Index terms the query word matches, with the best weight for each. A prefix keeps only its
+        // shortest completions, which are the ones that score highest.
+        private QueryWord expand(String word, boolean prefix, boolean typos) {
+            Map<String, Double> matches = new LinkedHashMap<>();
+            if (prefix) {
+                List<String> completions = new ArrayList<>();
+                int[] lengthCounts = new int[MAX_TERM_LENGTH + 1];
+                for (String term : terms.tailMap(word, true).keySet()) {
+                    if (!term.startsWith(word) || completions.size() == MAX_PREFIX_SCAN) {
+                        break;
+                    }
+                    completions.add(term);
+                    lengthCounts[Math.min(term.length(), MAX_TERM_LENGTH)]++;
+                }
+                // Take every completion up to the longest length that fits in the limit, then fill the
+                // rest with completions one letter longer, in term order
+                int cutoff = 0;
+                int taken = 0;
+                while (cutoff < MAX_TERM_LENGTH && taken + lengthCounts[cutoff + 1] <= MAX_PREFIX_EXPANSIONS) {
+                    taken += lengthCounts[++cutoff];
+                }
+                int spare = MAX_PREFIX_EXPANSIONS - taken;
+                for (String term : completions) {
+                    int length = Math.min(term.length(), MAX_TERM_LENGTH);
+                    if (length <= cutoff || (length == cutoff + 1 && spare-- > 0)) {
+                        matches.put(term, prefixWeight(word.length(), term.length()));
+                    }
+                }
+            } else if (terms.containsKey(word)) {
+                matches.put(word, EXACT_WEIGHT);
+            }
+            if (typos && isTypoCandidate(word)) {
+                List<String> candidates = new ArrayList<>();
+                addBucket(deletionKey(word), candidates); // a letter was left out
+                for (String deletion : deletions(word)) {
+                    candidates.add(deletion); // a letter was added
+                    addBucket(deletionKey(deletion), candidates); // a letter was changed or swapped
+                }
+                for (String candidate : candidates) {
+                    if (!matches.containsKey(candidate) && terms.containsKey(candidate)
+                            && withinOneEdit(word, candidate)) {
+                        matches.put(candidate, TYPO_WEIGHT);
+                    }
+                }
+            }
+            QueryWord queryWord = new QueryWord(word, prefix, typos);
+            matches.forEach((term, weight) -> {
+                Postings postings = terms.get(term);
+                queryWord.expansions.add(new Expansion(postings, weight));
+                queryWord.postingsSize += postings.size;
+            });
+            // Best first, so a search can stop once the remaining expansions cannot beat its results
+            queryWord.expansions.sort(Comparator.comparingDouble(Expansion::maxScore).reversed());
+            return queryWord;
+        }
+
+        /**
+         * Typos are only tried when the words match nothing as typed, since every typo expansion adds
+         * candidates to check.
+         */
+        List<Hit> search(List<String> words, int limit) {
+            List<Hit> hits = search(words, limit, false);
+            return hits.isEmpty() ? search(words, limit, true) : hits;
+        }
+
+        private List<Hit> search(List<String> words, int limit, boolean typos) {
+            List<QueryWord> queryWords = new ArrayList<>(words.size());
+            QueryWord driver = null;
+            double maxScore = 0;
+            for (int i = 0; i < words.size(); i++) {
+                QueryWord queryWord = expand(words.get(i), i == words.size() - 1, typos);
+                if (queryWord.expansions.isEmpty()) {
+                    return List.of(); // every word must match
+                }
+                if (driver == null || queryWord.postingsSize < driver.postingsSize) {
+                    driver = queryWord;
+                }
+                maxScore += queryWord.expansions.get(0).maxScore();
+                queryWords.add(queryWord);
+            }
+            double otherWordsMaxScore = maxScore - driver.expansions.get(0).maxScore();
+            // Postings lookups reject most candidates before a book has to be loaded for a prefix
+            queryWords.sort(Comparator.comparing(queryWord -> queryWord.prefix));
+
+            // Worst hit at the head; ties go to the book found first
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Hit::getScore)
+                    .thenComparing(Hit::getId, Comparator.reverseOrder()));
+            // A book can be in several of the driver's expansions but is only scored once
+            Set<Integer> checked = driver.expansions.size() > 1 ? new HashSet<>() : null;
+            int maxCandidates = queryWords.size() > 1 ? MAX_CANDIDATES : Integer.MAX_VALUE;
+            int candidates = 0;
+            for (Expansion expansion : driver.expansions) {
+                double bound = expansion.maxScore() + otherWordsMaxScore;
+                if (top.size() == limit && (candidates >= maxCandidates || top.peek().getScore() >= bound - 1e-9)) {
+                    break;
+                }
+                queryWords.forEach(QueryWord::rewind);
+                Postings postings = expansion.postings;
+                int previous = 0;
+                for (int p = 0; p < postings.size; p++) {
+                    int id = postings.entries[p] >>> 1;
+                    if (id == previous || (checked != null && !checked.add(id))) {
+                        continue; // the book's author entry after its title entry
+                    }
+                    previous = id;
+                    Doc doc = null;
+                    double score = 0;
+                    for (QueryWord queryWord : queryWords) {
+                        if (queryWord.prefix && doc == null) {
+                            doc = docs.get(id);
+                        }
+                        double best = queryWord.prefix ? queryWord.matchWords(doc) : queryWord.matchPostings(id);
+                        if (best == 0) {
+                            score = 0;
+                            break;
+                        }
+                        score += best;
+                    }
+                    if (score > 0) {
+                        top.add(new Hit(doc != null ? doc : docs.get(id), score));
+                        if (top.size() > limit) {
+                            top.poll();
+                        }
+                    }
+                    candidates++;
+                    if (top.size() == limit && (candidates >= maxCandidates || top.peek().getScore() >= bound - 1e-9)) {
+                        break;
+                    }
+                }
+            }
+            Hit[] hits = top.toArray(new Hit[0]);
+            Arrays.sort(hits, top.comparator().reversed());
+            return List.of(hits);
+        }
+    }
+
+    private static double prefixWeight(int typed, int termLength) {
+        if (typed == termLength) {
+            return EXACT_WEIGHT;
+        }
+        return MIN_PREFIX_WEIGHT + (MAX_PREFIX_WEIGHT - MIN_PREFIX_WEIGHT) * typed / termLength;
+    }
+
+    /**
+     * An index term a query word matched, and how well. Lookups gallop forward from the previous
+     * one, so a run of lookups for increasing entries costs about one pass over the postings.
+     */
+    private static final class Expansion {
+        final Postings postings;
+        final double weight;
+        private int cursor;
+
+        Expansion(Postings postings, double weight) {
+            this.postings = postings;
+            this.weight = weight;
+        }
+
+        // The most the term can add to a book's score
+        double maxScore() {
+            return weight * postings.bestFieldWeight();
+        }
+
+        void rewind() {
+            cursor = 0;
+        }
+
+        // Entries must be asked for in increasing order until the next rewind()
+        boolean contains(int entry) {
+            int[] entries = postings.entries;
+            int size = postings.size;
+            int step = 1;
+            while (cursor + step < size && entries[cursor + step] < entry) {
+                step <<= 1;
+            }
+            int at = Arrays.binarySearch(entries, cursor + (step >> 1), Math.min(cursor + step, size - 1) + 1,
+                    entry);
+            cursor = at >= 0 ? at : Math.min(-at - 1, Math.max(size - 1, 0));
+            return at >= 0;
+        }
+    }
+
+    /**
+     * A word of the query and the index terms it matches.
+     */
+    private static final class QueryWord {
+        final String word;
+        final boolean prefix;
+        final boolean typos;
+        final List<Expansion> expansions = new ArrayList<>();
+        long postingsSize;
+
+        QueryWord(String word, boolean prefix, boolean typos) {
+            this.word = word;
+            this.prefix = prefix;
+            this.typos = typos;
+        }
+
+        void rewind() {
+            expansions.forEach(Expansion::rewind);
+        }
+
+        // The most this word adds to the book's score, or 0 if it does not match
+        double matchPostings(int id) {
+            double best = 0;
+            for (Expansion expansion : expansions) {
+                if (expansion.contains(id << 1 | TITLE)) {
+                    best = Math.max(best, expansion.weight * FIELD_WEIGHTS[TITLE]);
+                } else if (expansion.contains(id << 1 | AUTHOR)) {
+                    best = Math.max(best, expansion.weight * FIELD_WEIGHTS[AUTHOR]);
+                }
+            }
+            return best;
+        }
+
+        // Compares the book's own words, so completions beyond the expansion limit match too
+        double matchWords(Doc doc) {
+            return Math.max(matchWords(doc.name) * FIELD_WEIGHTS[TITLE], matchWords(doc.author) * FIELD_WEIGHTS[AUTHOR]);
+        }
+
+        private double matchWords(String text) {
+            double best = 0;
+            int length = text.length();
+            int i = 0;
+            while (i < length) {
+                while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                    i++;
+                }
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                    if (text.charAt(i) > 0x7F) {
+                        return matchTokens(text); // accents need normalizing first
+                    }
+                    i++;
+                }
+                int termLength = i - start;
+                if (termLength >= word.length() && text.regionMatches(true, start, word, 0, word.length())) {
+                    best = Math.max(best, prefixWeight(word.length(), termLength));
+                } else if (typos && best < TYPO_WEIGHT && Math.abs(termLength - word.length()) <= 1
+                        && isTypoCandidate(word)
+                        && withinOneEdit(word, text.substring(start, i).toLowerCase(Locale.ROOT))) {
+                    best = TYPO_WEIGHT;
+                }
+            }
+            return best;
+        }
+
+        private double matchTokens(String text) {
+            double best = 0;
+            for (String term : tokenize(text)) {
+                if (term.startsWith(word)) {
+                    best = Math.max(best, prefixWeight(word.length(), term.length()));
+                } else if (typos && best < TYPO_WEIGHT && isTypoCandidate(word) && withinOneEdit(word, term)) {
+                    best = TYPO_WEIGHT;
+                }
+            }
+            return best;
+        }
+    }
+}
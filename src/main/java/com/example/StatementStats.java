@@ -0,0 +1,124 @@
+package com.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution counters and timing per prepared statement, keyed by SQL and reported under the
+ * {@link LibraryQuery} name where there is one.
+ */
+public class StatementStats {
+    private static final Logger logger = LogManager.getLogger(StatementStats.class);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    void record(String sql, long nanos) {
+        entries.computeIfAbsent(sql, Entry::new).record(nanos);
+    }
+
+    void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    void recordCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public double getCacheHitRatio() {
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the statements executed so far, most total time first.
+     */
+    public List<Entry> getEntries() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingLong(Entry::getTotalNanos).reversed());
+        return sorted;
+    }
+
+    public void reset() {
+        entries.clear();
+        cacheHits.reset();
+        cacheMisses.reset();
+    }
+
+    public void logReport() {
+        if (entries.isEmpty()) {
+            return;
+        }
+        logger.info("Statement cache: {} hits, {} misses", getCacheHits(), getCacheMisses());
+        for (Entry entry : getEntries()) {
+            logger.info("{}", entry);
+        }
+    }
+
+    public static class Entry {
+        private final String sql;
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Entry(String sql) {
+            this.sql = sql;
+            this.name = LibraryQuery.nameOf(sql);
+        }
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public double getAverageMillis() {
+            long executions = count.sum();
+            return executions == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / executions;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d executions, avg %.3f ms, max %.3f ms",
+                    name, getCount(), getAverageMillis(), getMaxMillis());
+        }
+    }
+}
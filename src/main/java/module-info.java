@@ -3,6 +3,8 @@ module com.example {
     requires javafx.controls;
     requires javafx.fxml;
     requires org.apache.logging.log4j;
+    requires com.lmax.disruptor; // log4j-core only requires it statically, so it is not resolved otherwise
+    requires java.management;
     requires transitive javafx.graphics;
 
     exports com.example;
@@ -0,0 +1,71 @@
+-- Database/LibraryDatabaseSchema.sql translated for H2 in MySQL mode, used by EmbeddedLibrary
+CREATE TABLE book_categories (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    category_name VARCHAR(255) NOT NULL UNIQUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    category_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(category_name))
+);
+
+CREATE TABLE books (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    author VARCHAR(255) NOT NULL,
+    is_issued BOOLEAN DEFAULT FALSE,
+    issued_to VARCHAR(255),
+    return_date DATE,
+    issued_on DATE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    category_id INT,
+    active_borrower VARCHAR(255) GENERATED ALWAYS AS (CASE WHEN is_issued THEN LOWER(issued_to) END),
+    name_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(name)),
+    author_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(author)),
+    CONSTRAINT fk_books_category FOREIGN KEY (category_id) REFERENCES book_categories(id)
+);
+
+CREATE TABLE fine_history (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    book_id INT,
+    user_name VARCHAR(255) NOT NULL,
+    fine_amount DECIMAL(10,2) NOT NULL,
+    days_overdue INT NOT NULL,
+    paid BOOLEAN DEFAULT FALSE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    due_date DATE NOT NULL,
+    assessed_on DATE NOT NULL,
+    CONSTRAINT uq_fine_history_loan UNIQUE (book_id, due_date),
+    CONSTRAINT fk_fine_history_book FOREIGN KEY (book_id) REFERENCES books(id)
+        ON DELETE SET NULL ON UPDATE CASCADE
+);
+
+CREATE TABLE loan_events (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    book_id INT,
+    event_type VARCHAR(6) NOT NULL,
+    borrower VARCHAR(255) NOT NULL,
+    event_date DATE NOT NULL,
+    due_date DATE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_loan_events_book FOREIGN KEY (book_id) REFERENCES books(id)
+        ON DELETE SET NULL ON UPDATE CASCADE
+);
+
+CREATE INDEX idx_books_name_author ON books(name, author);
+-- InnoDB appends the primary key to every secondary index; H2 needs it spelled out
+CREATE INDEX idx_books_issued ON books(is_issued, id);
+CREATE INDEX idx_books_category ON books(category_id);
+CREATE UNIQUE INDEX uq_books_active_borrower ON books(active_borrower);
+CREATE INDEX idx_books_name_author_key ON books(name_key, author_key);
+CREATE UNIQUE INDEX uq_book_categories_category_key ON book_categories(category_key);
+CREATE INDEX idx_loan_events_type_date ON loan_events(event_type, event_date);
+
+INSERT INTO book_categories (category_name) VALUES
+('Fiction'),
+('Non-Fiction'),
+('Science'),
+('Technology'),
+('History'),
+('Biography'),
+('Romance'),
+('Mystery'),
+('Fantasy'),
+('Science Fiction');
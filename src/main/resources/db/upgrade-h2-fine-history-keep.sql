@@ -0,0 +1,6 @@
+-- Keeps the fines of removed books in databases whose fine_history was created with book_id NOT NULL
+-- and a cascading delete: removing a book now only clears book_id
+ALTER TABLE fine_history DROP CONSTRAINT fk_fine_history_book;
+ALTER TABLE fine_history ALTER COLUMN book_id SET NULL;
+ALTER TABLE fine_history ADD CONSTRAINT fk_fine_history_book FOREIGN KEY (book_id) REFERENCES books(id)
+    ON DELETE SET NULL ON UPDATE CASCADE;
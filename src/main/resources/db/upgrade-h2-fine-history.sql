@@ -0,0 +1,19 @@
+-- Adds the fine_history table of schema-h2.sql to databases created before it, and the id column
+-- of idx_books_issued that the fine run reads its ID windows through
+CREATE TABLE fine_history (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    book_id INT,
+    user_name VARCHAR(255) NOT NULL,
+    fine_amount DECIMAL(10,2) NOT NULL,
+    days_overdue INT NOT NULL,
+    paid BOOLEAN DEFAULT FALSE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    due_date DATE NOT NULL,
+    assessed_on DATE NOT NULL,
+    CONSTRAINT uq_fine_history_loan UNIQUE (book_id, due_date),
+    CONSTRAINT fk_fine_history_book FOREIGN KEY (book_id) REFERENCES books(id)
+        ON DELETE SET NULL ON UPDATE CASCADE
+);
+
+DROP INDEX idx_books_issued;
+CREATE INDEX idx_books_issued ON books(is_issued, id);
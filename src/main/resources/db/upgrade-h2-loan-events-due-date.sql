@@ -0,0 +1,3 @@
+-- Lets loan_events record loans without a return date, as books.return_date allows, in databases
+-- whose loan_events table was created with due_date NOT NULL
+ALTER TABLE loan_events ALTER COLUMN due_date SET NULL;
@@ -0,0 +1,18 @@
+-- Adds the loan_events history of schema-h2.sql to databases created before it, starting with the
+-- loans that are open now
+CREATE TABLE loan_events (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    book_id INT,
+    event_type VARCHAR(6) NOT NULL,
+    borrower VARCHAR(255) NOT NULL,
+    event_date DATE NOT NULL,
+    due_date DATE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_loan_events_book FOREIGN KEY (book_id) REFERENCES books(id)
+        ON DELETE SET NULL ON UPDATE CASCADE
+);
+
+CREATE INDEX idx_loan_events_type_date ON loan_events(event_type, event_date);
+
+INSERT INTO loan_events (book_id, event_type, borrower, event_date, due_date)
+SELECT id, 'ISSUE', issued_to, COALESCE(issued_on, CURRENT_DATE), return_date FROM books WHERE is_issued = true;
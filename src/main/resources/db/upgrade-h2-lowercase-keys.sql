@@ -0,0 +1,6 @@
+-- Adds the lower-cased key columns of schema-h2.sql to databases created before them
+ALTER TABLE books ADD COLUMN name_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(name));
+ALTER TABLE books ADD COLUMN author_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(author));
+CREATE INDEX idx_books_name_author_key ON books(name_key, author_key);
+ALTER TABLE book_categories ADD COLUMN category_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(category_name));
+CREATE UNIQUE INDEX uq_book_categories_category_key ON book_categories(category_key);
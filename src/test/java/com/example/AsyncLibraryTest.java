@@ -0,0 +1,31 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+class AsyncLibraryTest {
+
+    @Test
+    void closeWaitsForRunningCalls() throws Exception {
+        try (TestDatabase database = new TestDatabase()) {
+            MyLibrary library = database.openLibrary();
+            library.addBook("Dune", "Frank Herbert", "Fiction");
+            AsyncLibrary async = new AsyncLibrary(library, CatalogCache.create(library), SearchIndex.create(library));
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<List<Book>> books = async.supply(() -> {
+                started.countDown();
+                Thread.sleep(300);
+                return library.getAvailableBooks();
+            });
+            started.await();
+
+            async.close();
+
+            assertEquals(1, books.get().size());
+        }
+    }
+}
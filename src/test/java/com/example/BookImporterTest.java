@@ -0,0 +1,76 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Imports with a commit interval that is not a multiple of the batch size, so commits fall in
+ * the middle of a batch.
+ */
+class BookImporterTest {
+    @TempDir
+    Path directory;
+
+    private TestDatabase database;
+    private ConnectionPool pool;
+    private BookImporter importer;
+
+    @BeforeEach
+    void open() {
+        database = new TestDatabase();
+        pool = database.openPool();
+        importer = new BookImporter(pool, 3, 5);
+    }
+
+    @AfterEach
+    void close() {
+        pool.close();
+        database.close();
+    }
+
+    @Test
+    void importsEveryRow() throws Exception {
+        BookImporter.ImportResult result = importer.importFile(write(books(7)), directory.resolve("rejects.csv"));
+
+        assertEquals(7, result.getRowsRead());
+        assertEquals(7, result.getImported());
+        assertEquals(List.of("7"), database.query("SELECT COUNT(*) FROM books"));
+    }
+
+    @Test
+    void failureReportsOnlyRowsThatWereCommitted() throws Exception {
+        List<String> lines = books(6);
+        // Too long for the name column, so the last batch fails after the first commit
+        lines.add("x".repeat(300) + ",Author,Fiction");
+
+        LibraryException e = assertThrows(LibraryException.class,
+                () -> importer.importFile(write(lines), directory.resolve("rejects.csv")));
+
+        assertEquals(List.of("5"), database.query("SELECT COUNT(*) FROM books"));
+        assertTrue(e.getMessage().startsWith("Import failed after 5 committed rows"), e.getMessage());
+    }
+
+    private static List<String> books(int count) {
+        List<String> lines = new ArrayList<>();
+        lines.add("name,author,category");
+        for (int i = 1; i <= count; i++) {
+            lines.add("Book " + i + ",Author " + i + ",Fiction");
+        }
+        return lines;
+    }
+
+    private Path write(List<String> lines) throws IOException {
+        return Files.write(directory.resolve("books.csv"), lines);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link BookRemovalMode#RESEQUENCE} on H2 in MySQL mode, which accepts the MySQL statements it
+ * runs. {@link BookRemovalMode#STABLE_IDS} is covered by the repository contract.
+ */
+class BookRemovalModeTest {
+    private TestDatabase database;
+    private MyLibrary library;
+
+    @BeforeEach
+    void open() {
+        database = new TestDatabase();
+        library = new MyLibrary(database.openPool(), BookRemovalMode.RESEQUENCE);
+        for (String name : List.of("Dune", "Emma", "Ulysses", "Walden")) {
+            library.addBook(name, "Author", "Fiction");
+        }
+    }
+
+    @AfterEach
+    void close() {
+        library.close();
+        database.close();
+    }
+
+    @Test
+    void removingABookShiftsLaterIdsDown() throws Exception {
+        library.issueBook("Ulysses", "Author", "alice", "2024-03-24", "2024-03-10");
+        List<String> events = new ArrayList<>();
+        library.addLibraryListener(new LibraryListener() {
+            @Override
+            public void catalogReloaded() {
+                events.add("reloaded");
+            }
+        });
+
+        assertTrue(library.removeBook("Emma", "Author"));
+
+        assertEquals("Dune", library.getBookById(1).name());
+        assertEquals("Ulysses", library.getBookById(2).name());
+        assertEquals("Walden", library.getBookById(3).name());
+        assertNull(library.getBookById(4));
+        assertEquals(List.of("2 alice"), database.query("SELECT id, issued_to FROM books WHERE is_issued = true"));
+        assertEquals(List.of("2 ISSUE"), database.query("SELECT book_id, event_type FROM loan_events"));
+        assertEquals(List.of("reloaded"), events);
+    }
+
+    @Test
+    void nextBookTakesTheIdAfterTheLast() throws Exception {
+        library.removeBook("Emma", "Author");
+
+        library.addBook("Hamlet", "Author", "Fiction");
+
+        assertEquals(List.of("4"), database.query("SELECT id FROM books WHERE name = 'Hamlet'"));
+    }
+}
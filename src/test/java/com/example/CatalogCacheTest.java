@@ -0,0 +1,71 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Two desks sharing one database, with the cache on the second one.
+ */
+class CatalogCacheTest {
+    private static final Duration TIME_TO_LIVE = Duration.ofSeconds(30);
+
+    private final AtomicLong now = new AtomicLong();
+    private TestDatabase database;
+    private MyLibrary deskA;
+    private MyLibrary deskB;
+    private CatalogCache cache;
+
+    @BeforeEach
+    void open() {
+        database = new TestDatabase();
+        deskA = database.openLibrary();
+        deskB = database.openLibrary();
+        cache = CatalogCache.create(deskB, 100, TIME_TO_LIVE, now::get);
+    }
+
+    @AfterEach
+    void close() {
+        deskB.close();
+        deskA.close();
+        database.close();
+    }
+
+    @Test
+    void ownChangesShowAtOnce() {
+        assertNull(cache.searchBook(1));
+        deskB.addBook("Dune", "Frank Herbert", "Fiction");
+        assertEquals("Dune", cache.searchBook(1).name());
+
+        deskB.issueBook("Dune", "Frank Herbert", "alice", "2024-03-24", "2024-03-10");
+        assertNull(cache.searchBook(1));
+    }
+
+    @Test
+    void otherDesksChangesShowAfterTimeToLive() {
+        deskA.addBook("Dune", "Frank Herbert", "Fiction");
+        deskA.issueBook("Dune", "Frank Herbert", "alice", "2024-03-24", "2024-03-10");
+        assertNull(cache.searchBook(1));
+        assertNull(cache.getBookById(2));
+        List<String> categories = cache.getCategories();
+
+        deskA.returnBook("Dune", "Frank Herbert");
+        deskA.addBook("Emma", "Jane Austen", "Fiction");
+        deskA.addBookCategory("Poetry");
+        now.addAndGet(TIME_TO_LIVE.toNanos() - 1);
+        assertNull(cache.searchBook(1));
+        assertNull(cache.getBookById(2));
+        assertEquals(categories, cache.getCategories());
+
+        now.addAndGet(1);
+        assertEquals("Dune", cache.searchBook(1).name());
+        assertEquals("Emma", cache.getBookById(2).name());
+        assertEquals(categories.size() + 1, cache.getCategories().size());
+    }
+}
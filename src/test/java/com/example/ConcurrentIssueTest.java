@@ -0,0 +1,136 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Many desks issuing books from a small hot shelf to a small set of borrowers at once, so the
+ * same book and the same borrower are contended in every round. After each round the books on
+ * loan must match exactly the issues that reported success, with at most one active loan per book
+ * and per borrower; then everything is returned for the next round. Throughput under this kind of
+ * load is measured by ConcurrentIssueBenchmark.
+ */
+class ConcurrentIssueTest {
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int HOT_BOOKS = 32;
+    private static final int BORROWERS = 24;
+    private static final int DESKS = 16;
+    private static final int ROUNDS = 25;
+    private static final int ATTEMPTS_PER_ROUND = 8;
+    private static final String ISSUED_ON = LocalDate.now().toString();
+    private static final String DUE = LocalDate.now().plusDays(14).toString();
+
+    @Test
+    void concurrentIssuesNeverDoubleIssueABookOrABorrower() throws Exception {
+        try (TestDatabase database = seededDatabase(); MyLibrary library = database.openLibrary()) {
+            long issued = run(database, library);
+
+            assertTrue(issued > 0);
+            assertEquals(issued, database.query("SELECT COUNT(*) FROM loan_events WHERE event_type = 'ISSUE'")
+                    .stream().mapToLong(Long::parseLong).sum());
+        }
+    }
+
+    // Returns the number of issues that reported success
+    private long run(TestDatabase database, MyLibrary library) throws Exception {
+        ExecutorService desks = Executors.newFixedThreadPool(DESKS);
+        CyclicBarrier start = new CyclicBarrier(DESKS);
+        long issued = 0;
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                Queue<String[]> loans = new ConcurrentLinkedQueue<>();
+                List<Future<?>> running = new ArrayList<>();
+                for (int d = 0; d < DESKS; d++) {
+                    running.add(desks.submit(() -> {
+                        start.await();
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < ATTEMPTS_PER_ROUND; i++) {
+                            int bookId = random.nextInt(HOT_BOOKS) + 1;
+                            // Mixed case, so the borrower limit must ignore case to hold
+                            String borrower = (random.nextBoolean() ? "Reader-" : "reader-") + random.nextInt(BORROWERS);
+                            try {
+                                if (library.issueBook(bookName(bookId), authorOf(bookId), borrower, DUE, ISSUED_ON)) {
+                                    loans.add(new String[] { Integer.toString(bookId), borrower });
+                                }
+                            } catch (LibraryException e) {
+                                // Lost the race for the book or the borrower
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : running) {
+                    future.get();
+                }
+                issued += loans.size();
+                assertOneLoanPerBookAndBorrower(database, loans);
+
+                List<Integer> onLoan = new ArrayList<>();
+                loans.forEach(loan -> onLoan.add(Integer.parseInt(loan[0])));
+                library.returnBooks(onLoan).forEach(result -> assertTrue(result.isSuccess(), result.getMessage()));
+            }
+        } finally {
+            desks.shutdownNow();
+        }
+        return issued;
+    }
+
+    private static void assertOneLoanPerBookAndBorrower(TestDatabase database, Queue<String[]> loans)
+            throws SQLException {
+        Map<String, String> reported = new HashMap<>();
+        Set<String> borrowers = new HashSet<>();
+        for (String[] loan : loans) {
+            assertEquals(null, reported.put(loan[0], loan[1]), "Book " + loan[0] + " issued twice");
+            assertTrue(borrowers.add(loan[1].toLowerCase(Locale.ROOT)), "Borrower " + loan[1] + " holds two books");
+        }
+        Map<String, String> stored = new HashMap<>();
+        for (String row : database.query("SELECT id, issued_to FROM books WHERE is_issued = true")) {
+            String[] columns = row.split(" ");
+            stored.put(columns[0], columns[1]);
+        }
+        assertEquals(reported, stored);
+    }
+
+    private static TestDatabase seededDatabase() throws SQLException {
+        TestDatabase database = new TestDatabase();
+        Connection fixture = database.getFixture();
+        try (PreparedStatement stmt = fixture.prepareStatement(
+                "INSERT INTO books (name, author, category_id) VALUES (?, ?, 1)")) {
+            for (int id = 1; id <= CATALOG_SIZE; id++) {
+                stmt.setString(1, bookName(id));
+                stmt.setString(2, authorOf(id));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        return database;
+    }
+
+    private static String bookName(int id) {
+        return "Book " + id;
+    }
+
+    private static String authorOf(int id) {
+        return "Author " + id % 100;
+    }
+}
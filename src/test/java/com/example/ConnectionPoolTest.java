@@ -0,0 +1,92 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import org.h2.jdbc.JdbcConnection;
+import org.h2.jdbc.JdbcPreparedStatement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * What a borrower can reach through a lease and what a cached statement carries over to the next
+ * borrower. The pool has one connection, so every borrow gets the same physical connection.
+ */
+class ConnectionPoolTest {
+    private static final String ALL_BOOKS = "SELECT name FROM books ORDER BY id";
+
+    private TestDatabase database;
+    private MyLibrary library;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void open() {
+        database = new TestDatabase();
+        library = database.openLibrary();
+        for (String name : new String[] { "Dune", "Emma", "Ulysses" }) {
+            library.addBook(name, "Author", "Fiction");
+        }
+        pool = new ConnectionPool(database.getUrl(), "sa", "", 1, Duration.ofSeconds(1),
+                Duration.ofMinutes(10), Duration.ZERO, 8);
+    }
+
+    @AfterEach
+    void close() {
+        pool.close();
+        library.close();
+        database.close();
+    }
+
+    @Test
+    void unwrapStaysInsideTheLease() throws Exception {
+        try (Connection connection = pool.getConnection()) {
+            assertSame(connection, connection.unwrap(Connection.class));
+            assertFalse(connection.isWrapperFor(JdbcConnection.class));
+            assertThrows(SQLException.class, () -> connection.unwrap(JdbcConnection.class));
+
+            PreparedStatement stmt = connection.prepareStatement(ALL_BOOKS);
+            assertSame(connection, stmt.getConnection());
+            assertThrows(SQLException.class, () -> stmt.unwrap(JdbcPreparedStatement.class));
+            stmt.close();
+        }
+    }
+
+    @Test
+    void cachedStatementsGoBackWithDefaultLimits() throws Exception {
+        try (Connection connection = pool.getConnection();
+                PreparedStatement stmt = connection.prepareStatement(ALL_BOOKS)) {
+            stmt.setMaxRows(1);
+            stmt.setFetchSize(1);
+            stmt.setQueryTimeout(5);
+            assertEquals(1, rows(stmt));
+        }
+
+        try (Connection connection = pool.getConnection();
+                PreparedStatement stmt = connection.prepareStatement(ALL_BOOKS)) {
+            assertEquals(1, pool.getStatementStats().getCacheHits());
+            assertEquals(0, stmt.getMaxRows());
+            assertEquals(0, stmt.getQueryTimeout());
+            assertTrue(stmt.getFetchSize() != 1);
+            assertEquals(3, rows(stmt));
+        }
+    }
+
+    private static int rows(PreparedStatement stmt) throws SQLException {
+        int count = 0;
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
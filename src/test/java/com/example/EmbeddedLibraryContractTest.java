@@ -0,0 +1,12 @@
+package com.example;
+
+/**
+ * Runs the contract against {@link EmbeddedLibrary} on an H2 file in a temporary directory.
+ */
+class EmbeddedLibraryContractTest extends LibraryRepositoryContractTest {
+
+    @Override
+    protected LibraryRepository openLibrary() {
+        return new EmbeddedLibrary(directory.resolve("library"));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Opens H2 files created by older versions of {@link EmbeddedLibrary}, including loans recorded
+ * before a return date was required.
+ */
+class EmbeddedLibraryUpgradeTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void upgradesFirstReleaseWithLegacyLoans() throws Exception {
+        Path file = directory.resolve("library");
+        try (Connection connection = connect(file)) {
+            runScript(connection, "/db/schema-h2-v1.sql");
+            update(connection, "INSERT INTO books (name, author, category_id, is_issued, issued_to) "
+                    + "VALUES ('Dune', 'Frank Herbert', 1, true, 'alice')");
+            update(connection, "INSERT INTO books (name, author, category_id, is_issued, issued_to, return_date, "
+                    + "issued_on) VALUES ('Emma', 'Jane Austen', 1, true, 'bob', DATE '2024-03-24', DATE '2024-03-10')");
+        }
+
+        try (EmbeddedLibrary library = new EmbeddedLibrary(file)) {
+            try (Connection connection = connect(file)) {
+                assertEquals(List.of("ISSUE 1 alice null", "ISSUE 2 bob 2024-03-24"), loanEvents(connection));
+            }
+            assertThrows(LibraryException.class, () -> library.addBook("DUNE", "frank herbert", "Fiction"));
+            assertEquals(0, library.calculateFine(1));
+            assertTrue(library.calculateFine(2) > 0);
+
+            assertTrue(library.returnBook("Dune", "Frank Herbert"));
+            assertTrue(library.returnBook("Emma", "Jane Austen"));
+
+            assertFalse(library.isBookIssued("Dune", "Frank Herbert"));
+            try (Connection connection = connect(file)) {
+                assertEquals(List.of("ISSUE 1 alice null", "ISSUE 2 bob 2024-03-24", "RETURN 1 alice null",
+                        "RETURN 2 bob 2024-03-24"), loanEvents(connection));
+            }
+        }
+    }
+
+    @Test
+    void relaxesDueDateOfExistingLoanEvents() throws Exception {
+        Path file = directory.resolve("library");
+        try (Connection connection = connect(file)) {
+            EmbeddedLibrary.createSchema(connection);
+            update(connection, "ALTER TABLE loan_events ALTER COLUMN due_date SET NOT NULL");
+            update(connection, "INSERT INTO books (name, author, category_id, is_issued, issued_to) "
+                    + "VALUES ('Dune', 'Frank Herbert', 1, true, 'alice')");
+        }
+
+        try (EmbeddedLibrary library = new EmbeddedLibrary(file)) {
+            assertTrue(library.returnBook("Dune", "Frank Herbert"));
+            try (Connection connection = connect(file)) {
+                assertEquals(List.of("RETURN 1 alice null"), loanEvents(connection));
+            }
+        }
+    }
+
+    @Test
+    void keepsFinesOfRemovedBooksInExistingFineHistory() throws Exception {
+        Path file = directory.resolve("library");
+        try (Connection connection = connect(file)) {
+            EmbeddedLibrary.createSchema(connection);
+            update(connection, "ALTER TABLE fine_history DROP CONSTRAINT fk_fine_history_book");
+            update(connection, "ALTER TABLE fine_history ALTER COLUMN book_id SET NOT NULL");
+            update(connection, "ALTER TABLE fine_history ADD CONSTRAINT fk_fine_history_book FOREIGN KEY (book_id) "
+                    + "REFERENCES books(id) ON DELETE CASCADE ON UPDATE CASCADE");
+            update(connection, "INSERT INTO books (name, author, category_id) VALUES ('Dune', 'Frank Herbert', 1)");
+            update(connection, "INSERT INTO fine_history (book_id, user_name, fine_amount, days_overdue, due_date, "
+                    + "assessed_on) VALUES (1, 'alice', 4.50, 3, DATE '2024-03-01', DATE '2024-03-04')");
+        }
+
+        try (EmbeddedLibrary library = new EmbeddedLibrary(file)) {
+            assertTrue(library.removeBook("Dune", "Frank Herbert"));
+            try (Connection connection = connect(file);
+                    Statement stmt = connection.createStatement();
+                    ResultSet rs = stmt.executeQuery("SELECT book_id, user_name FROM fine_history")) {
+                assertTrue(rs.next());
+                assertNull(rs.getObject(1));
+                assertEquals("alice", rs.getString(2));
+            }
+        }
+    }
+
+    @Test
+    void reopensCurrentSchemaUnchanged() {
+        Path file = directory.resolve("library");
+        try (EmbeddedLibrary library = new EmbeddedLibrary(file)) {
+            library.addBook("Dune", "Frank Herbert", "Fiction");
+        }
+        try (EmbeddedLibrary library = new EmbeddedLibrary(file)) {
+            assertTrue(library.isBookExistsInLibrary("Dune", "Frank Herbert"));
+            assertNull(library.getBookById(2));
+        }
+    }
+
+    private static Connection connect(Path file) throws SQLException {
+        return DriverManager.getConnection(EmbeddedLibrary.url(file), "sa", "");
+    }
+
+    private static void update(Connection connection, String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+
+    private static List<String> loanEvents(Connection connection) throws SQLException {
+        List<String> events = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT event_type, book_id, borrower, due_date FROM loan_events "
+                        + "ORDER BY id")) {
+            while (rs.next()) {
+                events.add(rs.getString(1) + " " + rs.getInt(2) + " " + rs.getString(3) + " " + rs.getDate(4));
+            }
+        }
+        return events;
+    }
+
+    private static void runScript(Connection connection, String resource) throws IOException, SQLException {
+        String script;
+        try (InputStream in = EmbeddedLibraryUpgradeTest.class.getResourceAsStream(resource)) {
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : script.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (!sql.isBlank()) {
+                    stmt.execute(sql);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FineEngineTest {
+    private static final LocalDate DUE = LocalDate.of(2024, 3, 1);
+
+    private TestDatabase database;
+    private MyLibrary library;
+    private FineEngine engine;
+
+    @BeforeEach
+    void open() {
+        database = new TestDatabase();
+        library = database.openLibrary();
+        engine = new FineEngine(library.getConnectionPool(), FinePolicy.perDay(2, 0, 100), 10);
+        library.addBook("Dune", "Frank Herbert", "Fiction");
+        library.issueBook("Dune", "Frank Herbert", "alice", DUE.toString(), DUE.minusDays(14).toString());
+    }
+
+    @AfterEach
+    void close() {
+        engine.close();
+        library.close();
+        database.close();
+    }
+
+    @Test
+    void laterRunUpdatesTheSameLoan() throws Exception {
+        engine.run(DUE.plusDays(3));
+        engine.run(DUE.plusDays(5));
+        engine.run(DUE.plusDays(5));
+
+        assertEquals(List.of("1 alice 5 10.00 2024-03-06 FALSE"), fines());
+    }
+
+    @Test
+    void paidFineKeepsThePaidAmount() throws Exception {
+        engine.run(DUE.plusDays(3));
+        database.update("UPDATE fine_history SET paid = true");
+
+        engine.run(DUE.plusDays(10));
+
+        assertEquals(List.of("1 alice 3 6.00 2024-03-04 TRUE"), fines());
+    }
+
+    @Test
+    void removingReturnedBookKeepsItsFines() throws Exception {
+        engine.run(DUE.plusDays(4));
+        library.returnBook("Dune", "Frank Herbert");
+
+        assertTrue(library.removeBook("Dune", "Frank Herbert"));
+
+        assertEquals(List.of("null alice 4 8.00 2024-03-05 FALSE"), fines());
+        try (ReportEngine reports = library.createReportEngine()) {
+            List<ReportEngine.CategoryFines> reported = reports.run(DUE.plusDays(4)).fines();
+            assertEquals(1, reported.size());
+            assertEquals(ReportEngine.REMOVED_BOOKS, reported.get(0).category());
+            assertEquals(1, reported.get(0).fines());
+            assertEquals(0, new BigDecimal("8").compareTo(reported.get(0).outstanding()));
+        }
+    }
+
+    private List<String> fines() throws Exception {
+        return database.query("SELECT book_id, user_name, days_overdue, fine_amount, assessed_on, paid "
+                + "FROM fine_history ORDER BY id");
+    }
+}
@@ -0,0 +1,44 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives the monitor with a single-thread executor in place of the FX application thread.
+ */
+class FxStallMonitorTest {
+
+    @Test
+    void longStallIsCountedOnce() throws Exception {
+        ExecutorService fxThread = Executors.newSingleThreadExecutor();
+        try (FxStallMonitor monitor = new FxStallMonitor(10, 100, fxThread)) {
+            Thread.sleep(100);
+            long probesBefore = monitor.getProbeCount();
+            assertTrue(probesBefore > 0);
+            assertEquals(0, monitor.getStallCount());
+
+            CountDownLatch stalled = new CountDownLatch(1);
+            fxThread.execute(() -> {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                stalled.countDown();
+            });
+            stalled.await();
+            Thread.sleep(200);
+
+            assertEquals(1, monitor.getStallCount());
+            assertTrue(monitor.getTotalStallMillis() < 1100, "stalled " + monitor.getTotalStallMillis() + " ms");
+            assertTrue(monitor.getMaxDelayMillis() >= 900, "worst delay " + monitor.getMaxDelayMillis() + " ms");
+        } finally {
+            fxThread.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the contract against {@link InMemoryLibrary} with its journal in a temporary directory.
+ */
+class InMemoryLibraryContractTest extends LibraryRepositoryContractTest {
+
+    @Override
+    protected LibraryRepository openLibrary() {
+        return InMemoryLibrary.open(directory.resolve("catalog"), false);
+    }
+
+    @Test
+    void reopenedLibraryDoesNotReuseIdsOfRemovedBooks() {
+        add("Dune", "Frank Herbert");
+        add("Emma", "Jane Austen");
+        Book ulysses = add("Ulysses", "James Joyce");
+        library.removeBook("Ulysses", "James Joyce");
+
+        // Twice, so the second open starts from a snapshot written without the removed book
+        for (int i = 0; i < 2; i++) {
+            library.close();
+            library = openLibrary();
+        }
+
+        assertNull(library.getBookById(ulysses.id()));
+        assertEquals(ulysses.id() + 1, add("Walden", "Henry David Thoreau").id());
+    }
+
+    @Test
+    void crashAfterSnapshotReplaysJournalOnTopOfIt() throws IOException {
+        Book dune = add("Dune", "Frank Herbert");
+        Book emma = add("Emma", "Jane Austen");
+        Book ulysses = add("Ulysses", "James Joyce");
+        Book walden = add("Walden", "Henry David Thoreau");
+        Book hamlet = add("Hamlet", "William Shakespeare");
+        library.removeBook("Walden", "Henry David Thoreau");
+        library.issueBook("Emma", "Jane Austen", "alice", DUE, ISSUED_ON);
+        ((InMemoryLibrary) library).snapshot();
+        // Only in the journal from here on
+        library.removeBook("Hamlet", "William Shakespeare");
+        library.returnBook("Emma", "Jane Austen");
+        library.issueBook("Dune", "Frank Herbert", "bob", DUE, ISSUED_ON);
+        library.assignBookCategory(ulysses.id(), "History");
+
+        // A copy taken without close() is what a crashed kiosk leaves behind
+        InMemoryLibrary reopened = InMemoryLibrary.open(copy(directory.resolve("catalog")), false);
+        try {
+            assertNull(reopened.getBookById(walden.id()));
+            assertNull(reopened.getBookById(hamlet.id()));
+            assertEquals(List.of(emma), reopened.getAvailableBooks().stream()
+                    .filter(book -> book.categoryName().equals("Fiction")).toList());
+            assertTrue(reopened.isBookIssued("Dune", "Frank Herbert"));
+            assertEquals(dune.id(), reopened.getBookIssuedTo("bob").id());
+            assertNull(reopened.getBookIssuedTo("alice"));
+            assertEquals(List.of(ulysses.id()),
+                    reopened.getBooksByCategory("History").stream().map(Book::id).toList());
+            assertEquals(3, reopened.size());
+            assertTrue(reopened.addBook("Walden", "Henry David Thoreau", "Fiction"));
+            List<Book> available = reopened.getAvailableBooks();
+            assertEquals(hamlet.id() + 1, available.get(available.size() - 1).id());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void journalIsFoldedIntoSnapshotPastTheThreshold() throws IOException {
+        Path catalog = directory.resolve("compacting");
+        InMemoryLibrary compacting = InMemoryLibrary.open(catalog, false, 5);
+        try {
+            for (int i = 1; i <= 12; i++) {
+                compacting.addBook("Book " + i, "Author", "Fiction");
+                assertTrue(compacting.getJournalRecords() < 5, () -> "journal records: "
+                        + compacting.getJournalRecords());
+            }
+            compacting.removeBook("Book 3", "Author");
+
+            InMemoryLibrary reopened = InMemoryLibrary.open(copy(catalog), false);
+            try {
+                assertEquals(11, reopened.size());
+                assertFalse(reopened.isBookExistsInLibrary("Book 3", "Author"));
+                assertTrue(reopened.isBookExistsInLibrary("Book 12", "Author"));
+            } finally {
+                reopened.close();
+            }
+        } finally {
+            compacting.close();
+        }
+    }
+
+    private Path copy(Path catalog) throws IOException {
+        Path target = Files.createDirectories(directory.resolve(catalog.getFileName() + "-copy"));
+        try (var files = Files.list(catalog)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, target.resolve(file.getFileName()));
+            }
+        }
+        return target;
+    }
+}
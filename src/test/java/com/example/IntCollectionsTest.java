@@ -0,0 +1,64 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Random adds and removes against the java.util collections they replace. Keys come from a small
+ * range so probe runs are long and removals often have to shift later entries back.
+ */
+class IntCollectionsTest {
+    private static final int OPERATIONS = 200_000;
+    private static final int KEY_RANGE = 5_000;
+
+    @Test
+    void objectIntMapMatchesHashMap() {
+        Random random = new Random(42);
+        ObjectIntMap<String> map = new ObjectIntMap<>(4);
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            String key = "key" + random.nextInt(KEY_RANGE);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.getOrDefault(key, ObjectIntMap.MISSING), map.remove(key));
+                expected.remove(key);
+            } else {
+                int value = random.nextInt(Integer.MAX_VALUE) + 1;
+                assertEquals(expected.getOrDefault(key, ObjectIntMap.MISSING), map.put(key, value));
+                expected.put(key, value);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int k = 0; k < KEY_RANGE; k++) {
+            String key = "key" + k;
+            assertEquals(expected.getOrDefault(key, ObjectIntMap.MISSING), map.get(key), key);
+        }
+    }
+
+    @Test
+    void intSetMatchesTreeSet() {
+        Random random = new Random(42);
+        IntSet set = new IntSet(4);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int key = random.nextInt(KEY_RANGE) + 1;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.add(key), set.add(key));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (int key = 1; key <= KEY_RANGE; key++) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toSortedArray());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks with EXPLAIN that the case-insensitive lookups are answered from the indexes on the
+ * lower-cased key columns rather than by scanning the table.
+ */
+class LibraryQueryPlanTest {
+    private static TestDatabase database;
+
+    @BeforeAll
+    static void seed() throws SQLException {
+        database = new TestDatabase();
+        Connection fixture = database.getFixture();
+        try (PreparedStatement stmt = fixture.prepareStatement(
+                "INSERT INTO books (name, author, category_id) VALUES (?, ?, ?)")) {
+            for (int id = 1; id <= 5000; id++) {
+                stmt.setString(1, "Book " + id);
+                stmt.setString(2, "Author " + id % 100);
+                stmt.setInt(3, id % 10 + 1);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        database.update("ANALYZE");
+    }
+
+    @AfterAll
+    static void drop() {
+        database.close();
+    }
+
+    @Test
+    void duplicateBookCheckUsesLowerCasedKeyIndex() throws SQLException {
+        assertUsesIndex(LibraryQuery.COUNT_BOOK_IGNORE_CASE, "idx_books_name_author_key", "book 42", "author 42");
+    }
+
+    @Test
+    void categoryCountUsesLowerCasedKeyIndex() throws SQLException {
+        assertUsesIndex(LibraryQuery.COUNT_CATEGORY, "uq_book_categories_category_key", "FICTION");
+    }
+
+    @Test
+    void categoryLookupUsesLowerCasedKeyIndex() throws SQLException {
+        assertUsesIndex(LibraryQuery.FIND_CATEGORY, "uq_book_categories_category_key", "science fiction");
+    }
+
+    private static void assertUsesIndex(LibraryQuery query, String index, String... params) throws SQLException {
+        String plan = explain(query, params);
+        assertTrue(plan.contains(index + ":"), query + " does not use " + index + ":\n" + plan);
+        assertFalse(plan.contains("tableScan"), query + " scans a table:\n" + plan);
+    }
+
+    private static String explain(LibraryQuery query, String... params) throws SQLException {
+        try (PreparedStatement stmt = database.getFixture().prepareStatement("EXPLAIN " + query.getSql())) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setString(i + 1, params[i]);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+}
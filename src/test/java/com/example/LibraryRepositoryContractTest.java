@@ -0,0 +1,334 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The behaviour every {@link LibraryRepository} shares. Each backend's test opens a fresh, empty
+ * library with the default categories; the tests here only go through the interface.
+ */
+abstract class LibraryRepositoryContractTest {
+    protected static final String ISSUED_ON = "2024-03-10";
+    protected static final String DUE = "2024-03-24";
+
+    @TempDir
+    protected Path directory;
+    protected LibraryRepository library;
+
+    protected abstract LibraryRepository openLibrary();
+
+    @BeforeEach
+    void open() {
+        library = openLibrary();
+    }
+
+    @AfterEach
+    void close() {
+        library.close();
+    }
+
+    protected Book add(String name, String author) {
+        assertTrue(library.addBook(name, author, "Fiction"));
+        return library.getAvailableBooks().stream()
+                .filter(book -> book.name().equals(name) && book.author().equals(author))
+                .findFirst().orElseThrow();
+    }
+
+    @Test
+    void addedBookIsAvailable() {
+        Book book = add("Dune", "Frank Herbert");
+
+        assertEquals("Fiction", book.categoryName());
+        assertTrue(library.isBookExistsInLibrary("Dune", "Frank Herbert"));
+        assertFalse(library.isBookIssued("Dune", "Frank Herbert"));
+        assertEquals(book, library.searchBook(book.id()));
+        assertEquals(book, library.getBookById(book.id()));
+    }
+
+    @Test
+    void addRejectsDuplicateIgnoringCase() {
+        add("Dune", "Frank Herbert");
+
+        LibraryException e = assertThrows(LibraryException.class,
+                () -> library.addBook("DUNE", "frank herbert", "Fiction"));
+        assertEquals("Book already exists in the library", e.getMessage());
+        assertEquals(1, library.getAvailableBooks().size());
+    }
+
+    @Test
+    void addRejectsUnknownCategory() {
+        assertThrows(LibraryException.class, () -> library.addBook("Dune", "Frank Herbert", "Cookery"));
+        assertFalse(library.isBookExistsInLibrary("Dune", "Frank Herbert"));
+    }
+
+    @Test
+    void addCategoryRejectsDuplicateIgnoringCase() {
+        library.addBookCategory("Poetry");
+
+        assertTrue(library.getCategories().contains("Poetry"));
+        assertThrows(LibraryException.class, () -> library.addBookCategory("poetry"));
+    }
+
+    @Test
+    void issueMovesBookToIssued() {
+        Book book = add("Dune", "Frank Herbert");
+
+        assertTrue(library.issueBook("Dune", "Frank Herbert", "alice", DUE, ISSUED_ON));
+
+        assertTrue(library.isBookIssued("Dune", "Frank Herbert"));
+        assertNull(library.searchBook(book.id()));
+        List<IssuedBook> issued = library.getIssuedBooks();
+        assertEquals(1, issued.size());
+        assertEquals(book.id(), issued.get(0).id());
+        assertEquals("alice", issued.get(0).issuedTo());
+        assertEquals(LocalDate.parse(DUE), issued.get(0).returnDate());
+        assertEquals(LocalDate.parse(ISSUED_ON), issued.get(0).issuedOn());
+        assertTrue(library.getAvailableBooks().isEmpty());
+    }
+
+    @Test
+    void issueRejectsIssuedBook() {
+        add("Dune", "Frank Herbert");
+        library.issueBook("Dune", "Frank Herbert", "alice", DUE, ISSUED_ON);
+
+        LibraryException e = assertThrows(LibraryException.class,
+                () -> library.issueBook("Dune", "Frank Herbert", "bob", DUE, ISSUED_ON));
+        assertEquals("Book not available for issue", e.getMessage());
+        assertEquals("alice", library.getIssuedBooks().get(0).issuedTo());
+    }
+
+    @Test
+    void issueRejectsSecondLoanForBorrowerIgnoringCase() {
+        add("Dune", "Frank Herbert");
+        add("Emma", "Jane Austen");
+        library.issueBook("Dune", "Frank Herbert", "alice", DUE, ISSUED_ON);
+
+        LibraryException e = assertThrows(LibraryException.class,
+                () -> library.issueBook("Emma", "Jane Austen", "ALICE", DUE, ISSUED_ON));
+        assertEquals("User has already issued a book", e.getMessage());
+        assertFalse(library.isBookIssued("Emma", "Jane Austen"));
+    }
+
+    @Test
+    void issueRejectsUnknownBookAndBadDates() {
+        add("Dune", "Frank Herbert");
+
+        assertThrows(LibraryException.class, () -> library.issueBook("Emma", "Jane Austen", "alice", DUE, ISSUED_ON));
+        assertThrows(LibraryException.class,
+                () -> library.issueBook("Dune", "Frank Herbert", "alice", "24/03/2024", ISSUED_ON));
+        assertFalse(library.isBookIssued("Dune", "Frank Herbert"));
+    }
+
+    @Test
+    void returnMakesBookAvailableAndFreesBorrower() {
+        Book book = add("Dune", "Frank Herbert");
+        add("Emma", "Jane Austen");
+        library.issueBook("Dune", "Frank Herbert", "alice", DUE, ISSUED_ON);
+
+        assertTrue(library.returnBook("Dune", "Frank Herbert"));
+
+        assertFalse(library.isBookIssued("Dune", "Frank Herbert"));
+        assertEquals(book, library.searchBook(book.id()));
+        assertTrue(library.getIssuedBooks().isEmpty());
+        assertTrue(library.issueBook("Emma", "Jane Austen", "alice", DUE, ISSUED_ON));
+    }
+
+    @Test
+    void returnOfBookNotIssuedReturnsFalse() {
+        add("Dune", "Frank Herbert");
+
+        assertFalse(library.returnBook("Dune", "Frank Herbert"));
+        assertFalse(library.returnBook("Emma", "Jane Austen"));
+    }
+
+    @Test
+    void batchIssueAndReturnReportEachItem() {
+        Book dune = add("Dune", "Frank Herbert");
+        Book emma = add("Emma", "Jane Austen");
+        Book ulysses = add("Ulysses", "James Joyce");
+        LocalDate due = LocalDate.parse(DUE);
+        LocalDate issuedOn = LocalDate.parse(ISSUED_ON);
+
+        List<BatchItemResult> issued = library.issueBooks(List.of(
+                new IssueRequest(dune.id(), "alice", due, issuedOn),
+                new IssueRequest(emma.id(), "alice", due, issuedOn),
+                new IssueRequest(ulysses.id(), "bob", due, issuedOn),
+                new IssueRequest(999, "carol", due, issuedOn)));
+
+        assertTrue(issued.get(0).isSuccess());
+        assertFalse(issued.get(1).isSuccess());
+        assertTrue(issued.get(2).isSuccess());
+        assertFalse(issued.get(3).isSuccess());
+        assertEquals(2, library.getIssuedBooks().size());
+
+        List<BatchItemResult> returned = library.returnBooks(List.of(dune.id(), emma.id(), ulysses.id()));
+
+        assertTrue(returned.get(0).isSuccess());
+        assertFalse(returned.get(1).isSuccess());
+        assertTrue(returned.get(2).isSuccess());
+        assertTrue(library.getIssuedBooks().isEmpty());
+    }
+
+    @Test
+    void removeDeletesAvailableBookAndKeepsOtherIds() {
+        Book dune = add("Dune", "Frank Herbert");
+        Book emma = add("Emma", "Jane Austen");
+
+        assertTrue(library.removeBook("Dune", "Frank Herbert"));
+
+        assertFalse(library.isBookExistsInLibrary("Dune", "Frank Herbert"));
+        assertNull(library.getBookById(dune.id()));
+        assertEquals(emma, library.getBookById(emma.id()));
+        assertThrows(LibraryException.class, () -> library.removeBook("Dune", "Frank Herbert"));
+    }
+
+    @Test
+    void removeRejectsIssuedBook() {
+        add("Dune", "Frank Herbert");
+        library.issueBook("Dune", "Frank Herbert", "alice", DUE, ISSUED_ON);
+
+        LibraryException e = assertThrows(LibraryException.class, () -> library.removeBook("Dune", "Frank Herbert"));
+        assertEquals("Cannot remove book as it is currently issued", e.getMessage());
+        assertTrue(library.isBookIssued("Dune", "Frank Herbert"));
+    }
+
+    @Test
+    void pagesWalkAvailableAndIssuedBooksInIdOrder() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            ids.add(add("Book " + i, "Author").id());
+        }
+        library.issueBook("Book 2", "Author", "alice", DUE, ISSUED_ON);
+        library.issueBook("Book 5", "Author", "bob", DUE, ISSUED_ON);
+
+        List<Integer> available = new ArrayList<>();
+        int cursor = 0;
+        Page<Book> page;
+        do {
+            page = library.getAvailableBooksPage(cursor, 2);
+            assertTrue(page.getItems().size() <= 2);
+            page.getItems().forEach(book -> available.add(book.id()));
+            cursor = page.getNextCursor();
+        } while (page.hasMore());
+        assertEquals(List.of(ids.get(0), ids.get(2), ids.get(3), ids.get(5), ids.get(6)), available);
+
+        Page<IssuedBook> issued = library.getIssuedBooksPage(0, 1);
+        assertEquals(ids.get(1), issued.getItems().get(0).id());
+        assertTrue(issued.hasMore());
+        issued = library.getIssuedBooksPage(issued.getNextCursor(), 1);
+        assertEquals(ids.get(4), issued.getItems().get(0).id());
+        assertFalse(library.getIssuedBooksPage(issued.getNextCursor(), 1).hasMore());
+    }
+
+    @Test
+    void listenersSeeEveryCommittedChange() {
+        List<String> events = new ArrayList<>();
+        library.addLibraryListener(new LibraryListener() {
+            @Override
+            public void bookAdded(Book book) {
+                events.add("added " + book.name());
+            }
+
+            @Override
+            public void bookRemoved(Book book) {
+                events.add("removed " + book.name());
+            }
+
+            @Override
+            public void bookIssued(IssuedBook issuedBook) {
+                events.add("issued " + issuedBook.name() + " to " + issuedBook.issuedTo());
+            }
+
+            @Override
+            public void bookReturned(Book book) {
+                events.add("returned " + book.name());
+            }
+
+            @Override
+            public void categoriesChanged() {
+                events.add("categories");
+            }
+        });
+
+        library.addBookCategory("Poetry");
+        library.addBook("Dune", "Frank Herbert", "Fiction");
+        library.issueBook("Dune", "Frank Herbert", "alice", DUE, ISSUED_ON);
+        assertThrows(LibraryException.class, () -> library.issueBook("Dune", "Frank Herbert", "bob", DUE, ISSUED_ON));
+        library.returnBook("Dune", "Frank Herbert");
+        library.removeBook("Dune", "Frank Herbert");
+
+        assertEquals(List.of("categories", "added Dune", "issued Dune to alice", "returned Dune", "removed Dune"),
+                events);
+    }
+
+    @Test
+    void loansPerMonthCountsEveryIssue() {
+        add("Dune", "Frank Herbert");
+        add("Emma", "Jane Austen");
+        library.issueBook("Dune", "Frank Herbert", "alice", "2024-02-14", "2024-01-31");
+        library.returnBook("Dune", "Frank Herbert");
+        library.issueBook("Dune", "Frank Herbert", "alice", DUE, ISSUED_ON);
+        library.issueBook("Emma", "Jane Austen", "bob", DUE, ISSUED_ON);
+
+        SortedMap<YearMonth, Long> loans = library.getLoansPerMonth(YearMonth.of(2024, 1), YearMonth.of(2024, 4));
+
+        assertEquals(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2), YearMonth.of(2024, 3),
+                YearMonth.of(2024, 4)), new ArrayList<>(loans.keySet()));
+        assertEquals(List.of(1L, 0L, 2L, 0L), new ArrayList<>(loans.values()));
+    }
+
+    @Test
+    void fineIsZeroUntilDueAndGrowsWhenOverdue() {
+        Book onTime = add("Dune", "Frank Herbert");
+        Book late = add("Emma", "Jane Austen");
+        LocalDate today = LocalDate.now();
+        library.issueBook("Dune", "Frank Herbert", "alice", today.plusDays(3).toString(), today.toString());
+        library.issueBook("Emma", "Jane Austen", "bob", today.minusDays(30).toString(),
+                today.minusDays(44).toString());
+
+        assertEquals(0, library.calculateFine(onTime.id()));
+        assertTrue(library.calculateFine(late.id()) > 0);
+        assertNotNull(library.getBookById(late.id()));
+    }
+
+    @Test
+    void importAddsValidRowsAndRejectsTheRest() throws Exception {
+        add("Dune", "Frank Herbert");
+        Path source = Files.write(directory.resolve("books.csv"), List.of(
+                "name,author,category",
+                "Emma,Jane Austen,fiction",
+                "",
+                "Walden,Henry David Thoreau",
+                "DUNE,frank herbert,Fiction",
+                "\"Ulysses, Annotated\",James Joyce,Fiction"));
+        Path rejects = directory.resolve("rejects.csv");
+
+        BookImporter.ImportResult result = library.importBooks(source, rejects);
+
+        assertEquals(4, result.getRowsRead());
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertTrue(library.isBookExistsInLibrary("Emma", "Jane Austen"));
+        assertTrue(library.isBookExistsInLibrary("Ulysses, Annotated", "James Joyce"));
+        List<String> rejected = Files.readAllLines(rejects);
+        assertEquals(2, rejected.size());
+        assertTrue(rejected.get(0).startsWith("Walden,Henry David Thoreau,"), rejected.get(0));
+        assertTrue(rejected.get(1).startsWith("DUNE,frank herbert,Fiction,"), rejected.get(1));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class LruCacheTest {
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private String load(int key) {
+        return "value " + key + " #" + loads.incrementAndGet();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        LruCache<Integer, String> cache = new LruCache<>(2);
+        cache.getOrLoad(1, this::load);
+        cache.getOrLoad(2, this::load);
+        cache.getOrLoad(1, this::load);
+        cache.getOrLoad(3, this::load);
+
+        assertEquals("value 1 #1", cache.getOrLoad(1, this::load));
+        assertEquals("value 2 #4", cache.getOrLoad(2, this::load));
+        assertEquals(2, cache.getEvictionCount());
+    }
+
+    @Test
+    void reloadsEntriesOlderThanTimeToLive() {
+        LruCache<Integer, String> cache = new LruCache<>(10, Duration.ofSeconds(30), now::get);
+        cache.getOrLoad(1, this::load);
+        now.addAndGet(Duration.ofSeconds(29).toNanos());
+        cache.put(2, "stored");
+
+        assertEquals("value 1 #1", cache.getOrLoad(1, this::load));
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals("value 1 #2", cache.getOrLoad(1, this::load));
+        assertEquals("stored", cache.getOrLoad(2, this::load));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void keepsEntriesWithoutTimeToLive() {
+        LruCache<Integer, String> cache = new LruCache<>(10, Duration.ZERO, now::get);
+        cache.getOrLoad(1, this::load);
+        now.addAndGet(Duration.ofDays(365).toNanos());
+
+        assertEquals("value 1 #1", cache.getOrLoad(1, this::load));
+        assertEquals(0, cache.getExpirationCount());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example;
+
+import org.junit.jupiter.api.AfterEach;
+
+/**
+ * Runs the contract against {@link MyLibrary} on an in-memory H2 database in MySQL mode, built
+ * from the same schema script as the embedded backend.
+ */
+class MyLibraryContractTest extends LibraryRepositoryContractTest {
+    private TestDatabase database;
+
+    @Override
+    protected LibraryRepository openLibrary() {
+        database = new TestDatabase();
+        return database.openLibrary();
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        database.close();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Two desks sharing one database, with the tracker on the first one.
+ */
+class OverdueTrackerTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 20);
+
+    private final List<String> sent = new ArrayList<>();
+    private TestDatabase database;
+    private MyLibrary deskA;
+    private MyLibrary deskB;
+    private OverdueTracker tracker;
+
+    @BeforeEach
+    void open() {
+        database = new TestDatabase();
+        deskA = database.openLibrary();
+        deskB = database.openLibrary();
+        for (String name : List.of("Dune", "Emma", "Ulysses", "Walden")) {
+            deskA.addBook(name, "Author", "Fiction");
+        }
+        tracker = OverdueTracker.start(deskA, batch -> batch.forEach(reminder -> sent.add(reminder.kind() + " "
+                + reminder.loan().name() + " " + reminder.loan().issuedTo())), 2, 1);
+    }
+
+    @AfterEach
+    void close() {
+        tracker.close();
+        deskB.close();
+        deskA.close();
+        database.close();
+    }
+
+    @Test
+    void tracksLoansOfItsOwnDeskFromEvents() {
+        tracker.reload();
+        deskA.issueBook("Dune", "Author", "alice", "2024-03-18", "2024-03-04");
+        deskA.issueBook("Emma", "Author", "bob", "2024-03-21", "2024-03-07");
+        deskA.issueBook("Ulysses", "Author", "carol", "2024-03-30", "2024-03-16");
+
+        assertEquals(2, tracker.sendReminders(TODAY));
+        assertEquals(List.of("OVERDUE Dune alice", "DUE Emma bob"), sent);
+    }
+
+    @Test
+    void scheduledRunSeesLoansChangedAtOtherDesks() {
+        deskA.issueBook("Dune", "Author", "alice", "2024-03-18", "2024-03-04");
+        tracker.reload();
+        deskB.returnBook("Dune", "Author");
+        deskB.issueBook("Emma", "Author", "bob", "2024-03-10", "2024-02-25");
+        deskB.issueBook("Walden", "Author", "dave", "2024-03-20", "2024-03-06");
+
+        assertEquals(2, tracker.reloadAndSendReminders(TODAY));
+        assertEquals(List.of("OVERDUE Emma bob", "DUE Walden dave"), sent);
+    }
+}
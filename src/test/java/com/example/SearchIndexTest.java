@@ -0,0 +1,59 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Queries of two words where the rarer word still has more books than a search checks once its
+ * page is full.
+ */
+class SearchIndexTest {
+    private static final int COMMON_BOOKS = 3000;
+
+    @TempDir
+    Path directory;
+
+    private InMemoryLibrary library;
+    private SearchIndex index;
+
+    @BeforeEach
+    void open() {
+        library = InMemoryLibrary.open(directory, false);
+        for (int i = 1; i <= COMMON_BOOKS; i++) {
+            library.addBook("Common " + i, i == COMMON_BOOKS ? "Zed Writer" : "Alice Writer", "Fiction");
+        }
+        for (int i = 1; i <= 2 * COMMON_BOOKS; i++) {
+            library.addBook("Other " + i, "Zed Writer", "Fiction");
+        }
+        index = SearchIndex.create(library);
+        index.rebuild();
+    }
+
+    @AfterEach
+    void close() {
+        library.close();
+    }
+
+    @Test
+    void fullPageOfMatchesForCommonWords() {
+        List<SearchIndex.Hit> hits = index.search("common ali", 50);
+
+        assertEquals(50, hits.size());
+        hits.forEach(hit -> assertTrue(hit.getName().startsWith("Common ") && hit.getAuthor().equals("Alice Writer")));
+    }
+
+    @Test
+    void findsEveryMatchWhenThePageIsNotFull() {
+        List<SearchIndex.Hit> hits = index.search("common zed", 50);
+
+        assertEquals(1, hits.size());
+        assertEquals("Common " + COMMON_BOOKS, hits.get(0).getName());
+    }
+}
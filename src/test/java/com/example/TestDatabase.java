@@ -0,0 +1,91 @@
+package com.example;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An empty in-memory H2 database in MySQL mode with the embedded schema, for tests that drive
+ * {@link MyLibrary} and its engines and then look at the tables directly.
+ */
+class TestDatabase implements AutoCloseable {
+    private static final AtomicInteger DATABASE_COUNT = new AtomicInteger();
+
+    private final String url;
+    // Kept open so the in-memory database lives until close(); also used for fixtures
+    private final Connection fixture;
+
+    TestDatabase() {
+        url = "jdbc:h2:mem:test" + DATABASE_COUNT.incrementAndGet()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        try {
+            fixture = DriverManager.getConnection(url, "sa", "");
+            EmbeddedLibrary.createSchema(fixture);
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to create test database: " + e.getMessage(), e);
+        }
+    }
+
+    ConnectionPool openPool() {
+        return DBHelper.createConnectionPool(url, "sa", "");
+    }
+
+    MyLibrary openLibrary() {
+        return new MyLibrary(openPool(), BookRemovalMode.STABLE_IDS);
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    Connection getFixture() {
+        return fixture;
+    }
+
+    int update(String sql, Object... params) throws SQLException {
+        try (PreparedStatement stmt = prepare(sql, params)) {
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns each row of the query as its columns joined by spaces.
+     */
+    List<String> query(String sql, Object... params) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (PreparedStatement stmt = prepare(sql, params); ResultSet rs = stmt.executeQuery()) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    row.append(i > 1 ? " " : "").append(rs.getString(i));
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+
+    private PreparedStatement prepare(String sql, Object... params) throws SQLException {
+        PreparedStatement stmt = fixture.prepareStatement(sql);
+        for (int i = 0; i < params.length; i++) {
+            stmt.setObject(i + 1, params[i]);
+        }
+        return stmt;
+    }
+
+    @Override
+    public void close() {
+        try (Statement stmt = fixture.createStatement()) {
+            stmt.execute("SHUTDOWN");
+        } catch (SQLException e) {
+            throw new LibraryException("Failed to drop test database: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+-- schema-h2.sql as first released with EmbeddedLibrary, before the lower-cased keys, fine_history and
+-- loan_events; EmbeddedLibraryUpgradeTest opens files created from it
+CREATE TABLE book_categories (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    category_name VARCHAR(255) NOT NULL UNIQUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE books (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    author VARCHAR(255) NOT NULL,
+    is_issued BOOLEAN DEFAULT FALSE,
+    issued_to VARCHAR(255),
+    return_date DATE,
+    issued_on DATE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    category_id INT,
+    active_borrower VARCHAR(255) GENERATED ALWAYS AS (CASE WHEN is_issued THEN LOWER(issued_to) END),
+    CONSTRAINT fk_books_category FOREIGN KEY (category_id) REFERENCES book_categories(id)
+);
+
+CREATE INDEX idx_books_name_author ON books(name, author);
+CREATE INDEX idx_books_issued ON books(is_issued);
+CREATE INDEX idx_books_category ON books(category_id);
+CREATE UNIQUE INDEX uq_books_active_borrower ON books(active_borrower);
+
+INSERT INTO book_categories (category_name) VALUES
+('Fiction'),
+('Non-Fiction'),
+('Science'),
+('Technology'),
+('History'),
+('Biography'),
+('Romance'),
+('Mystery'),
+('Fantasy'),
+('Science Fiction');